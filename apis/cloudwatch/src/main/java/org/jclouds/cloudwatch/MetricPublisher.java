@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudwatch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.DoubleBinaryOperator;
+
+import org.jclouds.cloudwatch.domain.Dimension;
+import org.jclouds.cloudwatch.domain.MetricDatum;
+import org.jclouds.cloudwatch.domain.StatisticValues;
+import org.jclouds.cloudwatch.domain.Unit;
+import org.jclouds.cloudwatch.features.MetricApi;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
+/**
+ * Aggregates the values recorded for each metric, then publishes them as {@link StatisticValues}
+ * at each flush interval, instead of calling {@link MetricApi#putMetricsInNamespace} for each
+ * value.
+ * <p/>
+ * Recording a value adds it to striped accumulators under a shared lock, so recorders do not wait
+ * for each other, only for a flush swapping the accumulators out. Each flush puts the metrics which
+ * got values since the previous one, {@value #MAX_DATUMS_PER_REQUEST} per request. A value recorded
+ * during a flush is counted in that flush or the next one.
+ *
+ * <pre>
+ * MetricPublisher publisher = MetricPublisher.create(cloudWatchApi.getMetricApiForRegion(region), scheduler, 1,
+ *       TimeUnit.MINUTES);
+ * MetricPublisher.Statistic latency = publisher.statistic(&quot;MyApp&quot;, &quot;Latency&quot;, Unit.MILLISECONDS,
+ *       ImmutableSet.of(new Dimension(&quot;Operation&quot;, &quot;get&quot;)));
+ * latency.record(12.5);
+ * ...
+ * publisher.close();
+ * </pre>
+ */
+@Beta
+public class MetricPublisher implements Closeable {
+
+   /** The most datums a PutMetricData request accepts. */
+   public static final int MAX_DATUMS_PER_REQUEST = 20;
+
+   /**
+    * Creates a publisher which flushes at a fixed rate on the scheduler, until it is closed.
+    */
+   public static MetricPublisher create(MetricApi metricApi, ScheduledExecutorService scheduler, long flushInterval,
+         TimeUnit unit) {
+      checkArgument(flushInterval > 0, "flushInterval must be positive: %s", flushInterval);
+      final MetricPublisher publisher = new MetricPublisher(metricApi);
+      publisher.scheduled = scheduler.scheduleAtFixedRate(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               publisher.flush();
+            } catch (RuntimeException e) {
+               // keep flushing; the values of the failed requests are dropped
+               publisher.lastFailure = e;
+            }
+         }
+      }, flushInterval, flushInterval, unit);
+      return publisher;
+   }
+
+   private final MetricApi metricApi;
+   private final ConcurrentMap<Statistic, Statistic> statistics = Maps.newConcurrentMap();
+   private volatile ScheduledFuture<?> scheduled;
+   private volatile RuntimeException lastFailure;
+
+   MetricPublisher(MetricApi metricApi) {
+      this.metricApi = checkNotNull(metricApi, "metricApi");
+   }
+
+   /**
+    * Returns the statistic of a metric, to record its values. Statistics are kept for the life of
+    * the publisher, so callers recording often should keep the statistic rather than look it up for
+    * each value.
+    */
+   public Statistic statistic(String namespace, String metricName, Unit unit, Iterable<Dimension> dimensions) {
+      Statistic created = new Statistic(namespace, metricName, unit, dimensions);
+      Statistic existing = statistics.putIfAbsent(created, created);
+      return existing != null ? existing : created;
+   }
+
+   /**
+    * Records a value of a metric without dimensions.
+    */
+   public void record(String namespace, String metricName, Unit unit, double value) {
+      statistic(namespace, metricName, unit, ImmutableSet.<Dimension> of()).record(value);
+   }
+
+   /**
+    * Puts the statistics of the values recorded since the previous flush.
+    *
+    * @throws RuntimeException
+    *            the first error putting them, once every namespace was attempted
+    */
+   public void flush() {
+      Date timestamp = new Date();
+      ListMultimap<String, MetricDatum> byNamespace = ArrayListMultimap.create();
+      for (Statistic statistic : statistics.keySet()) {
+         MetricDatum datum = statistic.drain(timestamp);
+         if (datum != null)
+            byNamespace.put(statistic.namespace, datum);
+      }
+      RuntimeException failure = null;
+      for (String namespace : byNamespace.keySet()) {
+         for (List<MetricDatum> slice : Iterables.partition(byNamespace.get(namespace), MAX_DATUMS_PER_REQUEST)) {
+            try {
+               metricApi.putMetricsInNamespace(slice, namespace);
+            } catch (RuntimeException e) {
+               if (failure == null)
+                  failure = e;
+            }
+         }
+      }
+      if (failure != null)
+         throw failure;
+   }
+
+   /**
+    * The last error of a scheduled flush, if any.
+    */
+   public RuntimeException getLastFailure() {
+      return lastFailure;
+   }
+
+   /**
+    * Stops the scheduled flushes and flushes the values recorded since the last one.
+    */
+   @Override
+   public void close() {
+      if (scheduled != null)
+         scheduled.cancel(false);
+      flush();
+   }
+
+   /**
+    * The values of a metric recorded since the last flush.
+    */
+   public static final class Statistic {
+      private static final DoubleBinaryOperator MIN = new DoubleBinaryOperator() {
+         @Override
+         public double applyAsDouble(double left, double right) {
+            return Math.min(left, right);
+         }
+      };
+      private static final DoubleBinaryOperator MAX = new DoubleBinaryOperator() {
+         @Override
+         public double applyAsDouble(double left, double right) {
+            return Math.max(left, right);
+         }
+      };
+
+      private final String namespace;
+      private final String metricName;
+      private final Unit unit;
+      private final ImmutableSet<Dimension> dimensions;
+      private final ReadWriteLock lock = new ReentrantReadWriteLock();
+      private volatile Values values = new Values();
+
+      private Statistic(String namespace, String metricName, Unit unit, Iterable<Dimension> dimensions) {
+         this.namespace = checkNotNull(namespace, "namespace");
+         this.metricName = checkNotNull(metricName, "metricName");
+         this.unit = checkNotNull(unit, "unit");
+         this.dimensions = ImmutableSet.copyOf(checkNotNull(dimensions, "dimensions"));
+      }
+
+      /**
+       * Records a value.
+       *
+       * @throws IllegalArgumentException
+       *            if the value is NaN or infinite, which CloudWatch rejects
+       */
+      public void record(double value) {
+         checkArgument(Double.isFinite(value), "value must be finite: %s", value);
+         Lock recording = lock.readLock();
+         recording.lock();
+         try {
+            values.record(value);
+         } finally {
+            recording.unlock();
+         }
+      }
+
+      /**
+       * Returns the datum of the values recorded since the last call, or null if none was.
+       */
+      private MetricDatum drain(Date timestamp) {
+         if (values.sampleCount.sum() == 0)
+            return null;
+         Values drained;
+         // once swapped under the exclusive lock, no recorder still holds the drained values
+         Lock swapping = lock.writeLock();
+         swapping.lock();
+         try {
+            drained = values;
+            values = new Values();
+         } finally {
+            swapping.unlock();
+         }
+         long count = drained.sampleCount.sum();
+         double sum = drained.sum.sum();
+         double min = drained.minimum.get();
+         double max = drained.maximum.get();
+         // CloudWatch rejects the whole request if a datum is not finite, as when the sum overflows
+         if (count == 0 || !Double.isFinite(sum) || !Double.isFinite(min) || !Double.isFinite(max))
+            return null;
+         return MetricDatum.builder().metricName(metricName).unit(unit).dimensions(dimensions)
+               .timestamp(timestamp)
+               .statisticValues(new StatisticValues(max, min, count, sum)).build();
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(namespace, metricName, unit, dimensions);
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (obj == null || getClass() != obj.getClass())
+            return false;
+         Statistic that = Statistic.class.cast(obj);
+         return Objects.equal(this.namespace, that.namespace) && Objects.equal(this.metricName, that.metricName)
+               && Objects.equal(this.unit, that.unit) && Objects.equal(this.dimensions, that.dimensions);
+      }
+
+      @Override
+      public String toString() {
+         return MoreObjects.toStringHelper(this).add("namespace", namespace).add("metricName", metricName)
+               .add("unit", unit).add("dimensions", dimensions).toString();
+      }
+   }
+
+   private static final class Values {
+      private final LongAdder sampleCount = new LongAdder();
+      private final DoubleAdder sum = new DoubleAdder();
+      private final DoubleAccumulator minimum = new DoubleAccumulator(Statistic.MIN, Double.POSITIVE_INFINITY);
+      private final DoubleAccumulator maximum = new DoubleAccumulator(Statistic.MAX, Double.NEGATIVE_INFINITY);
+
+      private void record(double value) {
+         sum.add(value);
+         minimum.accumulate(value);
+         maximum.accumulate(value);
+         sampleCount.increment();
+      }
+   }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudwatch;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.jclouds.cloudwatch.domain.Dimension;
+import org.jclouds.cloudwatch.domain.MetricDatum;
+import org.jclouds.cloudwatch.domain.StatisticValues;
+import org.jclouds.cloudwatch.domain.Unit;
+import org.jclouds.cloudwatch.features.MetricApi;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Tests behavior of {@code MetricPublisher}.
+ */
+@Test(groups = "unit", testName = "MetricPublisherTest")
+public class MetricPublisherTest {
+
+   public void testFlushPutsStatisticsOfEachMetric() {
+      MetricApi metricApi = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> datums = Capture.newInstance();
+      metricApi.putMetricsInNamespace(capture(datums), eq("MyApp"));
+      replay(metricApi);
+
+      MetricPublisher publisher = new MetricPublisher(metricApi);
+      MetricPublisher.Statistic latency = publisher.statistic("MyApp", "Latency", Unit.MILLISECONDS,
+            ImmutableSet.of(new Dimension("Operation", "get")));
+      assertSame(publisher.statistic("MyApp", "Latency", Unit.MILLISECONDS,
+            ImmutableList.of(new Dimension("Operation", "get"))), latency);
+      for (int i = 1; i <= 1000; i++)
+         latency.record(i);
+      publisher.record("MyApp", "Requests", Unit.COUNT, 1);
+      publisher.record("MyApp", "Requests", Unit.COUNT, 1);
+      publisher.flush();
+
+      Map<String, StatisticValues> values = Maps.newHashMap();
+      for (MetricDatum datum : datums.getValue())
+         values.put(datum.getMetricName(), datum.getStatisticValues().get());
+      assertEquals(values.size(), 2);
+      assertStatistics(values.get("Latency"), 1, 1000, 1000, 500500);
+      assertStatistics(values.get("Requests"), 1, 1, 2, 2);
+      verify(metricApi);
+   }
+
+   public void testFlushPutsOnlyMetricsRecordedSinceLast() {
+      MetricApi metricApi = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> datums = Capture.newInstance();
+      metricApi.putMetricsInNamespace(capture(datums), eq("MyApp"));
+      replay(metricApi);
+
+      MetricPublisher publisher = new MetricPublisher(metricApi);
+      publisher.record("MyApp", "Requests", Unit.COUNT, 1);
+      publisher.flush();
+      publisher.flush();
+
+      assertEquals(Iterables.size(datums.getValue()), 1);
+      verify(metricApi);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRecordRejectsNaN() {
+      new MetricPublisher(createMock(MetricApi.class)).record("MyApp", "Ratio", Unit.PERCENT, Double.NaN);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRecordRejectsInfinity() {
+      new MetricPublisher(createMock(MetricApi.class)).record("MyApp", "Ratio", Unit.PERCENT,
+            Double.POSITIVE_INFINITY);
+   }
+
+   public void testFlushSkipsStatisticsWhichAreNotFinite() {
+      MetricApi metricApi = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> datums = Capture.newInstance();
+      metricApi.putMetricsInNamespace(capture(datums), eq("MyApp"));
+      replay(metricApi);
+
+      MetricPublisher publisher = new MetricPublisher(metricApi);
+      publisher.record("MyApp", "Requests", Unit.COUNT, 1);
+      // the sum overflows
+      publisher.record("MyApp", "Bytes", Unit.BYTES, Double.MAX_VALUE);
+      publisher.record("MyApp", "Bytes", Unit.BYTES, Double.MAX_VALUE);
+      publisher.flush();
+
+      assertEquals(Iterables.getOnlyElement(datums.getValue()).getMetricName(), "Requests");
+      verify(metricApi);
+   }
+
+   public void testValuesRecordedDuringFlushesAreCountedOnce() throws Exception {
+      MetricApi metricApi = createMock(MetricApi.class);
+      final Capture<Iterable<MetricDatum>> datums = Capture.newInstance(CaptureType.ALL);
+      metricApi.putMetricsInNamespace(capture(datums), eq("MyApp"));
+      expectLastCall().anyTimes();
+      replay(metricApi);
+
+      final MetricPublisher publisher = new MetricPublisher(metricApi);
+      final MetricPublisher.Statistic requests = publisher.statistic("MyApp", "Requests", Unit.COUNT,
+            ImmutableSet.<Dimension> of());
+      ExecutorService recorders = Executors.newFixedThreadPool(4);
+      List<Future<?>> recorded = Lists.newArrayList();
+      try {
+         for (int i = 0; i < 4; i++) {
+            recorded.add(recorders.submit(new Runnable() {
+               @Override
+               public void run() {
+                  for (int j = 0; j < 100000; j++)
+                     requests.record(1);
+               }
+            }));
+         }
+         for (Future<?> future : recorded) {
+            while (!future.isDone())
+               publisher.flush();
+            future.get();
+         }
+      } finally {
+         recorders.shutdownNow();
+      }
+      publisher.flush();
+
+      double sampleCount = 0;
+      double sum = 0;
+      for (Iterable<MetricDatum> request : datums.getValues()) {
+         StatisticValues values = Iterables.getOnlyElement(request).getStatisticValues().get();
+         // the sum and the count of a datum come from the same values
+         assertEquals(values.getSum(), values.getSampleCount());
+         sampleCount += values.getSampleCount();
+         sum += values.getSum();
+      }
+      assertEquals(sampleCount, 400000.0);
+      assertEquals(sum, 400000.0);
+   }
+
+   public void testFlushPutsAtMostMaxDatumsPerRequest() {
+      MetricApi metricApi = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> datums = Capture.newInstance(CaptureType.ALL);
+      metricApi.putMetricsInNamespace(capture(datums), eq("MyApp"));
+      expectLastCall().times(2);
+      replay(metricApi);
+
+      MetricPublisher publisher = new MetricPublisher(metricApi);
+      for (int i = 0; i < 25; i++)
+         publisher.record("MyApp", "Metric" + i, Unit.COUNT, i);
+      publisher.flush();
+
+      List<Iterable<MetricDatum>> requests = datums.getValues();
+      assertEquals(Iterables.size(requests.get(0)) + Iterables.size(requests.get(1)), 25);
+      assertEquals(Iterables.size(requests.get(0)), MetricPublisher.MAX_DATUMS_PER_REQUEST);
+      verify(metricApi);
+   }
+
+   public void testCloseFlushesAndStopsSchedule() {
+      MetricApi metricApi = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> datums = Capture.newInstance();
+      metricApi.putMetricsInNamespace(capture(datums), eq("MyApp"));
+      replay(metricApi);
+
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+      try {
+         MetricPublisher publisher = MetricPublisher.create(metricApi, scheduler, 1, TimeUnit.HOURS);
+         publisher.record("MyApp", "Requests", Unit.COUNT, 1);
+         publisher.close();
+      } finally {
+         scheduler.shutdownNow();
+      }
+
+      assertEquals(Iterables.size(datums.getValue()), 1);
+      verify(metricApi);
+   }
+
+   private static void assertStatistics(StatisticValues values, double minimum, double maximum, double sampleCount,
+         double sum) {
+      assertEquals(values.getMinimum(), minimum);
+      assertEquals(values.getMaximum(), maximum);
+      assertEquals(values.getSampleCount(), sampleCount);
+      assertEquals(values.getSum(), sum);
+   }
+}
@@ -40,16 +40,24 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -83,6 +91,7 @@ import org.jclouds.filesystem.reference.FilesystemConstants;
 import org.jclouds.filesystem.util.Utils;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.FileRegionPayload;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.annotations.ParamValidators;
@@ -94,6 +103,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
@@ -362,6 +373,18 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       return blobNames;
    }
 
+   /**
+    * Walks the container lazily, reading each directory only when the walk reaches it and visiting
+    * its entries in key order.  Directories are returned with a trailing separator.
+    */
+   @Override
+   public SortedKeyIterator getSortedBlobKeysInsideContainer(String container, String prefix, String marker)
+         throws IOException {
+      filesystemContainerNameValidator.validate(container);
+      // a missing container lists no entries
+      return new SortedBlobKeyIterator(openFolder(container), prefix, marker);
+   }
+
    @Override
    public Blob getBlob(final String container, final String key) {
       BlobBuilder builder = blobBuilders.get();
@@ -550,13 +573,35 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       byte[] eTag = null;
       try {
          Files.createParentDirs(tmpFile);
-         if (isMpu) {
-            inputStream = payload.openStream();
-            eTag = blob.getMetadata().getETag().getBytes();
+         long actualSize;
+         HashCode actualHashCode = null;
+         if (payload instanceof FileRegionPayload) {
+            // copy the region within the kernel and hash it from a mapping instead of streaming it
+            FileRegionPayload region = (FileRegionPayload) payload;
+            FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                  StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+               actualSize = region.transferTo(channel);
+            } finally {
+               channel.close();
+            }
+            if (isMpu) {
+               eTag = blob.getMetadata().getETag().getBytes();
+            } else {
+               actualHashCode = region.hash(Hashing.md5());
+            }
          } else {
-            inputStream = new HashingInputStream(Hashing.md5(), payload.openStream());
+            if (isMpu) {
+               inputStream = payload.openStream();
+               eTag = blob.getMetadata().getETag().getBytes();
+            } else {
+               inputStream = new HashingInputStream(Hashing.md5(), payload.openStream());
+            }
+            actualSize = Files.asByteSink(tmpFile).writeFrom(inputStream);
+            if (!isMpu) {
+               actualHashCode = ((HashingInputStream) inputStream).hash();
+            }
          }
-         long actualSize = Files.asByteSink(tmpFile).writeFrom(inputStream);
          Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
          if (expectedSize != null && actualSize != expectedSize) {
             throw new IOException("Content-Length mismatch, actual: " + actualSize +
@@ -564,7 +609,6 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          }
 
          if (!isMpu) {
-            HashCode actualHashCode = ((HashingInputStream) inputStream).hash();
             HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
             if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
                throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
@@ -574,28 +618,72 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             eTag = actualHashCode.asBytes();
          }
 
-         if (outputFile.exists()) {
-            delete(outputFile);
-         }
+         moveTemporaryBlob(containerName, blob, access, tmpBlobName, outputFile, eTag);
+         tmpFile = null;
 
-         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tmpPath);
-         if (view != null) {
+         return base16().lowerCase().encode(eTag);
+      } finally {
+         if (tmpFile != null) {
             try {
-               view.write(XATTR_CONTENT_MD5, ByteBuffer.wrap(eTag));
-               writeCommonMetadataAttr(view, blob);
+               delete(tmpFile);
             } catch (IOException e) {
-               logger.debug("xattrs not supported on %s", tmpPath);
+               logger.debug("Could not delete %s: %s", tmpFile, e);
             }
          }
+         closeQuietly(inputStream);
+         if (payload != null) {
+            payload.release();
+         }
+      }
+   }
 
-         setBlobAccess(containerName, tmpBlobName, access);
-
-         if (!tmpFile.renameTo(outputFile)) {
-            throw new IOException("Could not rename file " + tmpFile + " to " + outputFile);
+   /**
+    * Copies the files of the blobs with {@link FileChannel#transferTo}, which the operating system
+    * may do without reading them into the heap, instead of streaming the payload.
+    */
+   @Override
+   public String concatenateBlobs(final String containerName, final Blob blob, BlobAccess access,
+         List<String> keys) throws IOException {
+      String blobKey = blob.getMetadata().getName();
+      Payload payload = blob.getPayload();
+      String eTag = blob.getMetadata().getETag();
+      filesystemContainerNameValidator.validate(containerName);
+      filesystemBlobKeyValidator.validate(blobKey);
+      if (getDirectoryBlobSuffix(blobKey) != null || eTag == null
+            || !MPU_ETAG_FORMAT.matcher(eTag).matches()) {
+         return putBlob(containerName, blob, access);
+      }
+      File outputFile = getFileForBlobKey(containerName, blobKey);
+      String tmpBlobName = blobKey + "-" + UUID.randomUUID();
+      File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
+      try {
+         Files.createParentDirs(tmpFile);
+         long actualSize = 0;
+         FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+         try {
+            for (String key : keys) {
+               filesystemBlobKeyValidator.validate(key);
+               File file = getFileForBlobKey(containerName, key);
+               if (!file.isFile()) {
+                  throw new FileNotFoundException("Blob " + key + " not found in container " + containerName);
+               }
+               actualSize += new FileRegionPayload(file, 0, file.length()).transferTo(channel);
+            }
+         } finally {
+            channel.close();
          }
+         Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
+         if (expectedSize != null && actualSize != expectedSize) {
+            throw new IOException("Content-Length mismatch, actual: " + actualSize +
+                  " expected: " + expectedSize);
+         }
+
+         byte[] eTagBytes = eTag.getBytes();
+         moveTemporaryBlob(containerName, blob, access, tmpBlobName, outputFile, eTagBytes);
          tmpFile = null;
 
-         return base16().lowerCase().encode(eTag);
+         return base16().lowerCase().encode(eTagBytes);
       } finally {
          if (tmpFile != null) {
             try {
@@ -604,13 +692,37 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
                logger.debug("Could not delete %s: %s", tmpFile, e);
             }
          }
-         closeQuietly(inputStream);
          if (payload != null) {
             payload.release();
          }
       }
    }
 
+   private void moveTemporaryBlob(String containerName, Blob blob, BlobAccess access, String tmpBlobName,
+         File outputFile, byte[] eTag) throws IOException {
+      File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
+      Path tmpPath = tmpFile.toPath();
+      if (outputFile.exists()) {
+         delete(outputFile);
+      }
+
+      UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tmpPath);
+      if (view != null) {
+         try {
+            view.write(XATTR_CONTENT_MD5, ByteBuffer.wrap(eTag));
+            writeCommonMetadataAttr(view, blob);
+         } catch (IOException e) {
+            logger.debug("xattrs not supported on %s", tmpPath);
+         }
+      }
+
+      setBlobAccess(containerName, tmpBlobName, access);
+
+      if (!tmpFile.renameTo(outputFile)) {
+         throw new IOException("Could not rename file " + tmpFile + " to " + outputFile);
+      }
+   }
+
    @Override
    public void removeBlob(final String container, final String blobKey) {
       filesystemContainerNameValidator.validate(container);
@@ -992,12 +1104,166 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             if (prefix != null && !fullPath.startsWith(prefix) && !prefix.startsWith(fullPath + "/")) {
                continue;
             }
-            blobNames.add(fullPath + File.separator); // TODO: undo if failures
+            blobNames.add(denormalize(fullPath + File.separator)); // TODO: undo if failures
             populateBlobKeysInContainer(child, blobNames, prefix, function);
          }
       }
    }
 
+   /**
+    * Depth-first walk which sorts the entries of each directory by key, where a directory sorts as
+    * its name plus the separator.  All keys below a directory share that prefix, so visiting
+    * siblings in this order yields every key in lexicographic order.
+    */
+   private static final class SortedBlobKeyIterator implements SortedKeyIterator {
+      private final Deque<Folder> stack = new ArrayDeque<Folder>();
+      private final String prefix;
+      private final String marker;
+      /** the directory returned last, which is only read if the walk continues into it */
+      private KeyEntry unread;
+      private String next;
+
+      SortedBlobKeyIterator(File containerFile, String prefix, String marker) {
+         this.prefix = Strings.nullToEmpty(prefix);
+         this.marker = marker;
+         stack.push(new Folder("", sortedEntries(containerFile, "")));
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (next == null) {
+            next = computeNext();
+         }
+         return next != null;
+      }
+
+      @Override
+      public String next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         String key = next;
+         next = null;
+         return key;
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void skipKeysWithPrefix(String skipped) {
+         if (next != null && !next.startsWith(skipped)) {
+            // the walk is already past the skipped keys
+            return;
+         }
+         next = null;
+         if (unread != null && unread.key.startsWith(skipped)) {
+            unread = null;
+         }
+         while (!stack.isEmpty() && stack.peek().key.startsWith(skipped)) {
+            stack.pop();
+         }
+         if (!stack.isEmpty()) {
+            PeekingIterator<KeyEntry> entries = stack.peek().entries;
+            while (entries.hasNext() && entries.peek().key.startsWith(skipped)) {
+               entries.next();
+            }
+         }
+      }
+
+      private String computeNext() {
+         if (unread != null) {
+            stack.push(new Folder(unread.key, sortedEntries(unread.file, unread.key)));
+            unread = null;
+         }
+         while (!stack.isEmpty()) {
+            PeekingIterator<KeyEntry> entries = stack.peek().entries;
+            if (!entries.hasNext()) {
+               stack.pop();
+               continue;
+            }
+            KeyEntry entry = entries.next();
+            if (entry.file == null) {
+               if (entry.key.startsWith(prefix) && (marker == null || entry.key.compareTo(marker) > 0)) {
+                  return entry.key;
+               }
+               continue;
+            }
+            // Consider a prefix /a/b/c but we have only descended to path /a.
+            // We need to match the path against the prefix to continue
+            // matching down to /a/b.
+            if (!entry.key.startsWith(prefix) && !prefix.startsWith(entry.key)) {
+               continue;
+            }
+            // every key below this directory sorts before the marker
+            if (marker != null && entry.key.compareTo(marker) < 0 && !marker.startsWith(entry.key)) {
+               continue;
+            }
+            if (entry.key.startsWith(prefix) && (marker == null || entry.key.compareTo(marker) > 0)) {
+               unread = entry;
+               return entry.key;
+            }
+            stack.push(new Folder(entry.key, sortedEntries(entry.file, entry.key)));
+         }
+         return null;
+      }
+
+      private PeekingIterator<KeyEntry> sortedEntries(File directory, String directoryKey) {
+         String[] names = directory.list();
+         if (names == null) {
+            return Iterators.peekingIterator(Collections.<KeyEntry>emptyIterator());
+         }
+         List<KeyEntry> entries = new ArrayList<KeyEntry>(names.length);
+         for (String name : names) {
+            String key = directoryKey + denormalize(name);
+            // skip entries which cannot match without calling stat
+            if (!key.startsWith(prefix) && !prefix.startsWith(key)) {
+               continue;
+            }
+            if (marker != null && key.compareTo(marker) < 0 && !marker.startsWith(key)) {
+               continue;
+            }
+            File child = new File(directory, name);
+            if (child.isDirectory()) {
+               entries.add(new KeyEntry(denormalize(key + File.separator), child));
+            } else if (child.isFile()) {
+               entries.add(new KeyEntry(key, null));
+            }
+         }
+         Collections.sort(entries);
+         return Iterators.peekingIterator(entries.iterator());
+      }
+   }
+
+   private static final class Folder {
+      /** the key of the directory, with a trailing separator */
+      private final String key;
+      private final PeekingIterator<KeyEntry> entries;
+
+      Folder(String key, PeekingIterator<KeyEntry> entries) {
+         this.key = key;
+         this.entries = entries;
+      }
+   }
+
+   private static final class KeyEntry implements Comparable<KeyEntry> {
+      private final String key;
+      /** the directory to descend into, or null for a file */
+      private final File file;
+
+      KeyEntry(String key, File file) {
+         this.key = key;
+         this.file = file;
+      }
+
+      @Override
+      public int compareTo(KeyEntry other) {
+         return key.compareTo(other.key);
+      }
+   }
+
    /**
     * Creates a directory and returns the result
     *
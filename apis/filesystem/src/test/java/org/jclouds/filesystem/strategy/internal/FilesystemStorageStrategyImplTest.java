@@ -39,7 +39,9 @@ import java.util.concurrent.TimeUnit;
 import javax.inject.Provider;
 
 import org.assertj.core.api.Fail;
+import org.jclouds.blobstore.LocalStorageStrategy.SortedKeyIterator;
 import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.ContainerAccess;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
@@ -49,6 +51,7 @@ import org.jclouds.filesystem.predicates.validators.internal.FilesystemBlobKeyVa
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemContainerNameValidatorImpl;
 import org.jclouds.filesystem.utils.TestUtils;
 import org.jclouds.io.payloads.FilePayload;
+import org.jclouds.io.payloads.FileRegionPayload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.util.Throwables2;
 import org.testng.annotations.AfterMethod;
@@ -57,9 +60,11 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -475,6 +480,52 @@ public class FilesystemStorageStrategyImplTest {
             "Files are not equal");
    }
 
+   public void testWritePayloadOnFileRegion() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("writePayload-", ".img");
+      File sourceFile = TestUtils.getImageForBlobPayload();
+      long offset = sourceFile.length() / 3;
+      long length = sourceFile.length() / 3;
+      FileRegionPayload regionPayload = new FileRegionPayload(sourceFile, offset, length);
+      Blob blob = storageStrategy.newBlob(blobKey);
+      blob.setPayload(regionPayload);
+
+      // write files
+      String eTag = storageStrategy.putBlob(CONTAINER_NAME, blob);
+
+      // verify that the file is equal to the region
+      File blobFullPath = new File(TARGET_CONTAINER_NAME, blobKey);
+      ByteSource expectedInput = Files.asByteSource(sourceFile).slice(offset, length);
+      ByteSource actualInput = Files.asByteSource(blobFullPath);
+      assertTrue(expectedInput.contentEquals(actualInput),
+            "Files are not equal");
+      assertEquals(eTag, expectedInput.hash(Hashing.md5()).toString());
+   }
+
+   @Test(dataProvider = "ignoreOnMacOSX")
+   public void testConcatenateBlobs() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("concatenate-", ".img");
+      ByteSource first = randomByteSource().slice(0, 1024);
+      ByteSource second = randomByteSource().slice(1024, 512);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(blobKey + "-1").payload(first).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(blobKey + "-2").payload(second).build());
+      String eTag = "\"" + Hashing.md5().hashInt(0) + "-2\"";
+      Blob blob = new BlobBuilderImpl()
+            .name(blobKey)
+            .payload(ByteSource.empty())
+            .contentLength(1536L)
+            .eTag(eTag)
+            .build();
+
+      storageStrategy.concatenateBlobs(CONTAINER_NAME, blob, BlobAccess.PRIVATE,
+            ImmutableList.of(blobKey + "-1", blobKey + "-2"));
+
+      // the parts are copied rather than the payload, and the etag is kept
+      File blobFullPath = new File(TARGET_CONTAINER_NAME, blobKey);
+      assertTrue(ByteSource.concat(first, second).contentEquals(Files.asByteSource(blobFullPath)),
+            "Files are not equal");
+      assertEquals(storageStrategy.getBlob(CONTAINER_NAME, blobKey).getMetadata().getETag(), eTag);
+   }
+
    public void testWritePayloadOnFileInputStream() throws IOException {
       String blobKey = TestUtils.createRandomBlobKey("writePayload-", ".img");
       File sourceFile = TestUtils.getImageForBlobPayload();
@@ -624,6 +675,52 @@ public class FilesystemStorageStrategyImplTest {
       }
    }
 
+   public void testGetSortedBlobKeysInsideContainer() throws IOException {
+      // no container
+      assertFalse(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, null).hasNext());
+
+      storageStrategy.createContainer(CONTAINER_NAME);
+      // "a-b" and "a0" sort on either side of the keys below directory "a"
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a0", "a-b", "a/c", "a/b/d", "b", "aa/e");
+
+      assertEquals(ImmutableList.copyOf(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, null)),
+            ImmutableList.of("a-b", "a/", "a/b/", "a/b/d", "a/c", "a0", "aa/", "aa/e", "b"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, "a/", null)),
+            ImmutableList.of("a/", "a/b/", "a/b/d", "a/c"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, "a/b", null)),
+            ImmutableList.of("a/b/", "a/b/d"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, "a/b/d")),
+            ImmutableList.of("a/c", "a0", "aa/", "aa/e", "b"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, "a", "a0")),
+            ImmutableList.of("aa/", "aa/e"));
+      assertFalse(storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, "b").hasNext());
+   }
+
+   public void testSkipKeysWithPrefix() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a0", "a-b", "a/c", "a/b/d", "b", "aa/e");
+
+      SortedKeyIterator keys = storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, null);
+      assertEquals(keys.next(), "a-b");
+      assertEquals(keys.next(), "a/");
+      // leaves directory "a" unread
+      keys.skipKeysWithPrefix("a/");
+      assertEquals(keys.next(), "a0");
+      assertEquals(keys.next(), "aa/");
+      assertEquals(keys.next(), "aa/e");
+      // pops directory "aa" and skips the siblings sharing the prefix
+      keys.skipKeysWithPrefix("a");
+      assertEquals(ImmutableList.copyOf(keys), ImmutableList.of("b"));
+
+      keys = storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, null);
+      assertEquals(keys.next(), "a-b");
+      assertEquals(keys.next(), "a/");
+      assertEquals(keys.next(), "a/b/");
+      keys.hasNext();
+      keys.skipKeysWithPrefix("a/b/");
+      assertEquals(keys.next(), "a/c");
+   }
+
    public void testCountsBlob() {
       storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE);
    }
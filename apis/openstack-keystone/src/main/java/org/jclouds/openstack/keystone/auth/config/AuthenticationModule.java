@@ -27,10 +27,10 @@ import java.util.concurrent.TimeoutException;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
-import org.jclouds.location.Provider;
 import org.jclouds.openstack.keystone.auth.AuthenticationApi;
 import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
 import org.jclouds.openstack.keystone.auth.functions.AuthenticateApiAccessKeyCredentials;
@@ -49,6 +49,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
@@ -119,10 +120,13 @@ public class AuthenticationModule extends AbstractModule {
    // TODO: what is the timeout of the session token? modify default accordingly
    // PROPERTY_SESSION_INTERVAL is default to 60 seconds, but we have this here
    // at 11 hours for now.
+   // refreshes, see RefreshingAuthInfoSupplier, authenticate in the user executor
    @Provides
    @Singleton
-   public final LoadingCache<Credentials, AuthInfo> provideAuthInfoCache(Function<Credentials, AuthInfo> getAccess) {
-      return CacheBuilder.newBuilder().expireAfterWrite(11, TimeUnit.HOURS).build(CacheLoader.from(getAccess));
+   public final LoadingCache<Credentials, AuthInfo> provideAuthInfoCache(Function<Credentials, AuthInfo> getAccess,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      return CacheBuilder.newBuilder().expireAfterWrite(11, TimeUnit.HOURS)
+            .build(CacheLoader.asyncReloading(CacheLoader.from(getAccess), userExecutor));
    }
 
    // Temporary conversion of a cache to a supplier until there is a
@@ -130,13 +134,7 @@ public class AuthenticationModule extends AbstractModule {
    // http://code.google.com/p/guava-libraries/issues/detail?id=872
    @Provides
    @Singleton
-   protected final Supplier<AuthInfo> provideAuthInfoSupplier(final LoadingCache<Credentials, AuthInfo> cache,
-         @Provider final Supplier<Credentials> creds) {
-      return new Supplier<AuthInfo>() {
-         @Override
-         public AuthInfo get() {
-            return cache.getUnchecked(creds.get());
-         }
-      };
+   protected final Supplier<AuthInfo> provideAuthInfoSupplier(RefreshingAuthInfoSupplier supplier) {
+      return supplier;
    }
 }
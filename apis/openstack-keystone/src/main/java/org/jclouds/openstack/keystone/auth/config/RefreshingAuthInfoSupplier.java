@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.keystone.auth.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.config.KeystoneProperties;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+
+/**
+ * Supplies the cached authentication of the current credentials.
+ * <p/>
+ * When {@link KeystoneProperties#TOKEN_REFRESH_MARGIN} is set, a token expiring within the margin is
+ * renewed in the background while it is still supplied, by a single reload of the cache. A token
+ * already expired is renewed before returning.
+ */
+@Singleton
+class RefreshingAuthInfoSupplier implements Supplier<AuthInfo> {
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final LoadingCache<Credentials, AuthInfo> cache;
+   private final Supplier<Credentials> creds;
+
+   @Inject(optional = true)
+   @Named(KeystoneProperties.TOKEN_REFRESH_MARGIN)
+   @VisibleForTesting
+   long refreshMarginSeconds = -1;
+
+   @Inject
+   RefreshingAuthInfoSupplier(LoadingCache<Credentials, AuthInfo> cache, @Provider Supplier<Credentials> creds) {
+      this.cache = cache;
+      this.creds = creds;
+   }
+
+   @Override
+   public AuthInfo get() {
+      Credentials credentials = creds.get();
+      AuthInfo authInfo = cache.getUnchecked(credentials);
+      if (refreshMarginSeconds < 0 || authInfo.getExpires() == null)
+         return authInfo;
+      long remainingMillis = authInfo.getExpires().getTime() - System.currentTimeMillis();
+      if (remainingMillis <= 0) {
+         logger.debug("renewing expired token of %s", credentials.identity);
+         // only remove the expired token, not one another caller just renewed, so that concurrent
+         // callers wait for a single authentication
+         cache.asMap().remove(credentials, authInfo);
+         return cache.getUnchecked(credentials);
+      }
+      if (remainingMillis <= TimeUnit.SECONDS.toMillis(refreshMarginSeconds)) {
+         // does nothing if a reload is already in progress
+         cache.refresh(credentials);
+      }
+      return authInfo;
+   }
+}
@@ -16,10 +16,23 @@
  */
 package org.jclouds.openstack.keystone.auth.domain;
 
+import java.util.Date;
+
+import org.jclouds.javax.annotation.Nullable;
+
 /**
  * Common interface for authentication objects.
  */
 public interface AuthInfo {
 
    String getAuthToken();
+
+   /**
+    * When the token expires, or null if unknown, which is the default so that implementations
+    * outside jclouds keep compiling.
+    */
+   @Nullable
+   default Date getExpires() {
+      return null;
+   }
 }
@@ -120,6 +120,12 @@ public final class KeystoneProperties {
     */
    public static final String KEYSTONE_VERSION = "jclouds.keystone.version";
 
+   /**
+    * Seconds before the token expires at which it is renewed in the background, while requests keep
+    * using it. By default tokens are renewed only when rejected, or 11 hours after they were issued.
+    */
+   public static final String TOKEN_REFRESH_MARGIN = "jclouds.keystone.token-refresh-margin";
+
    private KeystoneProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -19,6 +19,7 @@ package org.jclouds.openstack.keystone.v2_0.domain;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
+import java.util.Date;
 import java.util.Set;
 
 import org.jclouds.javax.annotation.Nullable;
@@ -172,4 +173,9 @@ public class Access extends ForwardingSet<Service> implements Comparable<Access>
       return token.getId();
    }
 
+   @Override
+   public Date getExpires() {
+      return token.getExpires();
+   }
+
 }
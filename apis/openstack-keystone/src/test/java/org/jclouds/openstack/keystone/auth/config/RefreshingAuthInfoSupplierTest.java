@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.keystone.auth.config;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "RefreshingAuthInfoSupplierTest")
+public class RefreshingAuthInfoSupplierTest {
+
+   private static final Credentials CREDS = new Credentials("identity", "credential");
+
+   public void testSuppliesCachedTokenByDefault() {
+      RefreshingAuthInfoSupplier supplier = supplier(token("1", 60), token("2", 3600));
+
+      assertEquals(supplier.get().getAuthToken(), "1");
+      assertEquals(supplier.get().getAuthToken(), "1");
+   }
+
+   public void testRenewsTokenExpiringWithinMarginWhileSupplyingIt() {
+      RefreshingAuthInfoSupplier supplier = supplier(token("1", 60), token("2", 3600));
+      supplier.refreshMarginSeconds = 300;
+
+      assertEquals(supplier.get().getAuthToken(), "1");
+      assertEquals(supplier.get().getAuthToken(), "2");
+      assertEquals(supplier.get().getAuthToken(), "2");
+   }
+
+   public void testRenewsExpiredTokenBeforeSupplyingIt() {
+      RefreshingAuthInfoSupplier supplier = supplier(token("1", -60), token("2", 3600));
+      supplier.refreshMarginSeconds = 300;
+
+      assertEquals(supplier.get().getAuthToken(), "2");
+   }
+
+   public void testConcurrentCallersRenewExpiredTokenOnce() throws Exception {
+      final AtomicInteger loads = new AtomicInteger();
+      LoadingCache<Credentials, AuthInfo> cache = CacheBuilder.newBuilder().build(
+            CacheLoader.from(new Function<Credentials, AuthInfo>() {
+               @Override
+               public AuthInfo apply(Credentials input) {
+                  if (loads.getAndIncrement() == 0)
+                     return token("expired", -60);
+                  Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+                  return token("renewed", 3600);
+               }
+            }));
+      final RefreshingAuthInfoSupplier supplier = new RefreshingAuthInfoSupplier(cache, Suppliers.ofInstance(CREDS));
+      supplier.refreshMarginSeconds = 300;
+      cache.getUnchecked(CREDS);
+
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<AuthInfo>> results = Lists.newArrayList();
+         for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(new Callable<AuthInfo>() {
+               @Override
+               public AuthInfo call() {
+                  return supplier.get();
+               }
+            }));
+         }
+         for (Future<AuthInfo> result : results)
+            assertEquals(result.get().getAuthToken(), "renewed");
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals(loads.get(), 2);
+   }
+
+   private static RefreshingAuthInfoSupplier supplier(AuthInfo... tokens) {
+      final Iterator<AuthInfo> issued = ImmutableList.copyOf(tokens).iterator();
+      LoadingCache<Credentials, AuthInfo> cache = CacheBuilder.newBuilder().build(
+            CacheLoader.asyncReloading(CacheLoader.from(new Function<Credentials, AuthInfo>() {
+               @Override
+               public AuthInfo apply(Credentials input) {
+                  return issued.next();
+               }
+            }), MoreExecutors.directExecutor()));
+      return new RefreshingAuthInfoSupplier(cache, Suppliers.ofInstance(CREDS));
+   }
+
+   private static AuthInfo token(final String id, long expiresInSeconds) {
+      final Date expires = new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expiresInSeconds));
+      return new AuthInfo() {
+         @Override
+         public String getAuthToken() {
+            return id;
+         }
+
+         @Override
+         public Date getExpires() {
+            return expires;
+         }
+      };
+   }
+}
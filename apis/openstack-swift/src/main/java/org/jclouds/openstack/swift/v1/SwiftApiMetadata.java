@@ -17,6 +17,7 @@
 package org.jclouds.openstack.swift.v1;
 
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MAX_DELETES_PER_REQUEST;
 import static org.jclouds.openstack.keystone.config.KeystoneProperties.CREDENTIAL_TYPE;
 import static org.jclouds.openstack.keystone.config.KeystoneProperties.KEYSTONE_VERSION;
 import static org.jclouds.openstack.keystone.config.KeystoneProperties.SERVICE_TYPE;
@@ -67,6 +68,8 @@ public class SwiftApiMetadata extends BaseHttpApiMetadata<SwiftApi> {
       properties.setProperty(SERVICE_TYPE, ServiceType.OBJECT_STORE);
       properties.setProperty(KEYSTONE_VERSION, "2");
       properties.setProperty(PROPERTY_IDEMPOTENT_METHODS, "DELETE,GET,HEAD,OPTIONS,POST,PUT");
+      // the default max_deletes_per_request of the bulk middleware is 10000
+      properties.setProperty(PROPERTY_MAX_DELETES_PER_REQUEST, "1000");
       // Can alternatively be set to "tempAuthCredentials"
       properties.setProperty(CREDENTIAL_TYPE, CredentialTypes.PASSWORD_CREDENTIALS);
       properties.setProperty(TEMP_AUTH_HEADER_USER, DEFAULT_HEADER_USER);
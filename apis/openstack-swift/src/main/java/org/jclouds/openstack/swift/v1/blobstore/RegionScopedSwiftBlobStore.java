@@ -86,6 +86,7 @@ import org.jclouds.openstack.swift.v1.SwiftApi;
 import org.jclouds.openstack.swift.v1.blobstore.functions.ToBlobMetadata;
 import org.jclouds.openstack.swift.v1.blobstore.functions.ToListContainerOptions;
 import org.jclouds.openstack.swift.v1.blobstore.functions.ToResourceMetadata;
+import org.jclouds.openstack.swift.v1.domain.BulkDeleteResponse;
 import org.jclouds.openstack.swift.v1.domain.Container;
 import org.jclouds.openstack.swift.v1.domain.DeleteStaticLargeObjectResponse;
 import org.jclouds.openstack.swift.v1.domain.ObjectList;
@@ -403,18 +404,48 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
    /**
     * Delete multiple single-part objects.  Note that this does not remove the
-    * subobjects of a multi-part upload.
+    * subobjects of a multi-part upload.  The objects the bulk delete reports
+    * as errors are deleted one at a time.
     */
    @Override
    public void removeBlobs(String container, Iterable<String> names) {
       BulkApi bulkApi = api.getBulkApi(regionId);
       for (List<String> partition : Iterables.partition(names, 1000)) {
-         ImmutableList.Builder<String> builder = ImmutableList.builder();
+         Map<String, String> pathToName = Maps.newLinkedHashMap();
          for (String name : partition) {
-            builder.add(container + "/" + name);
+            pathToName.put(container + "/" + name, name);
          }
-         bulkApi.bulkDelete(builder.build());
+         BulkDeleteResponse response = bulkApi.bulkDelete(pathToName.keySet());
+         if (response.getErrors().isEmpty()) {
+            continue;
+         }
+         ObjectApi objectApi = api.getObjectApi(regionId, container);
+         for (String path : response.getErrors().keySet()) {
+            String name = nameOfErrorPath(pathToName, path);
+            if (name == null) {
+               // an error we cannot attribute to an object, so delete them all again
+               for (String each : partition) {
+                  objectApi.delete(each);
+               }
+               break;
+            }
+            objectApi.delete(name);
+         }
+      }
+   }
+
+   /**
+    * Swift reports the paths of a bulk delete as requested, or qualified with
+    * the version and account, e.g. {@code /v1/AUTH_test/container/object}.
+    */
+   private static String nameOfErrorPath(Map<String, String> pathToName, String path) {
+      String relative = path.startsWith("/") ? path.substring(1) : path;
+      if (pathToName.containsKey(relative)) {
+         return pathToName.get(relative);
       }
+      int version = relative.indexOf('/');
+      int account = version < 0 ? -1 : relative.indexOf('/', version + 1);
+      return account < 0 ? null : pathToName.get(relative.substring(account + 1));
    }
 
    @Override
@@ -578,7 +609,6 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
    @Override
    public void clearContainer(String containerName, ListContainerOptions options) {
-      // this could be implemented to use bulk delete
       clearList.execute(containerName, options);
    }
 
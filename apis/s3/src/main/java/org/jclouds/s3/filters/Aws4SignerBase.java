@@ -19,38 +19,43 @@ package org.jclouds.s3.filters;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base16;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.crypto.Macs.asByteProcessor;
 import static org.jclouds.http.utils.Queries.queryParser;
-import static org.jclouds.util.Strings2.toInputStream;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.security.InvalidKeyException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
 import com.google.common.escape.Escaper;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteProcessor;
-import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.PercentEscaper;
@@ -77,6 +82,18 @@ public abstract class Aws4SignerBase {
 
    private static final Escaper AWS_PATH_ESCAPER = new PercentEscaper("/-_.~", false);
 
+   private static final Joiner SIGNED_HEADERS_JOINER = Joiner.on(';');
+
+   // canonical requests are rarely larger than this; bigger builders are not kept around
+   private static final int MAX_REUSED_BUILDER_CAPACITY = 16 * 1024;
+
+   private static final ThreadLocal<StringBuilder> CANONICAL_REQUEST_BUILDER = new ThreadLocal<StringBuilder>() {
+      @Override
+      protected StringBuilder initialValue() {
+         return new StringBuilder(1024);
+      }
+   };
+
    // Specifying a default for how to parse the service and region in this way allows
    // tests or other downstream services to not have to use guice overrides.
    @ImplementedBy(ServiceAndRegion.AWSServiceAndRegion.class)
@@ -115,7 +132,17 @@ public abstract class Aws4SignerBase {
    protected final Supplier<Credentials> creds;
    protected final Supplier<Date> timestampProvider;
    protected final Crypto crypto;
+   private final String amzHeaderPrefix;
+
+   /**
+    * Signing keys only depend on the secret key, the date, the region and the service, so they are derived once a day
+    * for each scope. Entries of past days expire on their own.
+    */
+   private final Cache<List<String>, byte[]> signingKeys = CacheBuilder.newBuilder().maximumSize(100)
+         .expireAfterWrite(1, TimeUnit.DAYS).build();
 
+   /** Obtaining a {@link Mac} from the provider is costly; one instance per thread is initialized with each key. */
+   private final ThreadLocal<Mac> hmacs = new ThreadLocal<Mac>();
 
    protected Aws4SignerBase(SignatureWire signatureWire, String headerTag,
          Supplier<Credentials> creds, Supplier<Date> timestampProvider,
@@ -126,6 +153,7 @@ public abstract class Aws4SignerBase {
       this.timestampProvider = timestampProvider;
       this.serviceAndRegion = serviceAndRegion;
       this.crypto = crypto;
+      this.amzHeaderPrefix = "x-" + headerTag + "-";
       this.timestampFormat = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
       timestampFormat.setTimeZone(GMT);
       this.dateFormat = new SimpleDateFormat("yyyyMMdd");
@@ -181,7 +209,7 @@ public abstract class Aws4SignerBase {
          ImmutableMap.Builder<String, String> signedHeadersBuilder) {
       for (Map.Entry<String, String> header : request.getHeaders().entries()) {
          String key = header.getKey();
-         if (key.startsWith("x-" + headerTag + "-")) {
+         if (key.startsWith(amzHeaderPrefix)) {
             signedHeadersBuilder.put(key.toLowerCase(), header.getValue());
          }
       }
@@ -210,6 +238,16 @@ public abstract class Aws4SignerBase {
     * @return SigningKey
     */
    protected byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
+      List<String> scope = ImmutableList.of(secretKey, datestamp, region, service);
+      byte[] kSigning = signingKeys.getIfPresent(scope);
+      if (kSigning == null) {
+         kSigning = deriveSignatureKey(secretKey, datestamp, region, service);
+         signingKeys.put(scope, kSigning);
+      }
+      return kSigning;
+   }
+
+   private byte[] deriveSignatureKey(String secretKey, String datestamp, String region, String service) {
       byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
       byte[] kDate = hmacSHA256(datestamp, kSecret);
       byte[] kRegion = hmacSHA256(region, kDate);
@@ -226,9 +264,14 @@ public abstract class Aws4SignerBase {
     */
    protected byte[] hmacSHA256(String toSign, byte[] key) {
       try {
-         return readBytes(toInputStream(toSign), hmacSHA256(crypto, key));
-      } catch (IOException e) {
-         throw new HttpException("read sign error", e);
+         Mac mac = hmacs.get();
+         if (mac == null) {
+            mac = crypto.hmacSHA256(key);
+            hmacs.set(mac);
+         } else {
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+         }
+         return mac.doFinal(toSign.getBytes(UTF_8));
       } catch (InvalidKeyException e) {
          throw new HttpException("invalid key", e);
       }
@@ -263,11 +306,7 @@ public abstract class Aws4SignerBase {
     * @throws HttpException
     */
    public static byte[] hash(byte[] bytes) throws HttpException {
-      try {
-         return ByteSource.wrap(bytes).hash(Hashing.sha256()).asBytes();
-      } catch (IOException e) {
-         throw new HttpException("Unable to compute hash while signing request: " + e.getMessage(), e);
-      }
+      return Hashing.sha256().hashBytes(bytes).asBytes();
    }
 
    /**
@@ -278,7 +317,7 @@ public abstract class Aws4SignerBase {
     * @throws HttpException
     */
    public static byte[] hash(String input) throws HttpException {
-      return hash(new ByteArrayInputStream(input.getBytes(UTF_8)));
+      return Hashing.sha256().hashString(input, UTF_8).asBytes();
    }
 
    /**
@@ -388,7 +427,12 @@ public abstract class Aws4SignerBase {
       // lower case header keys
       Map<String, String> lowerCaseHeaders = lowerCaseNaturalOrderKeys(signedHeaders);
 
-      StringBuilder canonicalRequest = new StringBuilder();
+      StringBuilder canonicalRequest = CANONICAL_REQUEST_BUILDER.get();
+      if (canonicalRequest.capacity() > MAX_REUSED_BUILDER_CAPACITY) {
+         canonicalRequest = new StringBuilder(1024);
+         CANONICAL_REQUEST_BUILDER.set(canonicalRequest);
+      }
+      canonicalRequest.setLength(0);
 
       // HTTPRequestMethod + '\n' +
       canonicalRequest.append(method).append("\n");
@@ -409,12 +453,14 @@ public abstract class Aws4SignerBase {
       canonicalRequest.append("\n");
 
       // SignedHeaders + '\n' +
-      canonicalRequest.append(Joiner.on(';').join(lowerCaseHeaders.keySet())).append('\n');
+      SIGNED_HEADERS_JOINER.appendTo(canonicalRequest, lowerCaseHeaders.keySet()).append('\n');
 
       // HexEncode(Hash(Payload))
       canonicalRequest.append(hashedPayload);
 
-      signatureWire.getWireLog().debug("<< " + canonicalRequest);
+      if (signatureWire.getWireLog().isDebugEnabled()) {
+         signatureWire.getWireLog().debug("<< " + canonicalRequest);
+      }
 
       // Create a String to Sign
       StringBuilder toSign = new StringBuilder();
@@ -425,7 +471,7 @@ public abstract class Aws4SignerBase {
       // CredentialScope + '\n' +
       toSign.append(credentialScope).append('\n');
       // HexEncode(Hash(CanonicalRequest))
-      toSign.append(hex(hash(canonicalRequest.toString())));
+      toSign.append(hex(Hashing.sha256().hashString(canonicalRequest, UTF_8).asBytes()));
 
       return toSign.toString();
    }
@@ -438,10 +484,30 @@ public abstract class Aws4SignerBase {
     */
    protected static Map<String, String> lowerCaseNaturalOrderKeys(Map<String, String> in) {
       checkNotNull(in, "input map");
+      if (isLowerCaseNaturalOrder(in)) {
+         return in;
+      }
       ImmutableSortedMap.Builder<String, String> returnVal = ImmutableSortedMap.<String, String>naturalOrder();
       for (Map.Entry<String, String> entry : in.entrySet())
          returnVal.put(entry.getKey().toLowerCase(Locale.US), entry.getValue());
       return returnVal.build();
    }
 
+   // the signers already collect their headers in this form
+   private static boolean isLowerCaseNaturalOrder(Map<String, String> in) {
+      if (!(in instanceof SortedMap)) {
+         return false;
+      }
+      Comparator<? super String> comparator = ((SortedMap<String, String>) in).comparator();
+      if (comparator != null && !comparator.equals(Ordering.natural())) {
+         return false;
+      }
+      for (String key : in.keySet()) {
+         if (!key.equals(key.toLowerCase(Locale.US))) {
+            return false;
+         }
+      }
+      return true;
+   }
+
 }
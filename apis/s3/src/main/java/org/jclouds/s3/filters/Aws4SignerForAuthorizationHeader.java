@@ -22,6 +22,8 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import com.google.common.net.HttpHeaders;
 import com.google.inject.Inject;
@@ -38,8 +40,13 @@ import org.jclouds.util.Closeables2;
 
 import javax.inject.Named;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -52,12 +59,31 @@ import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_ALGORITHM_HMAC_
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_DATE_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_SECURITY_TOKEN_HEADER;
+import static org.jclouds.s3.filters.AwsSignatureV4Constants.UNSIGNED_PAYLOAD;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_V4_CONTENT_MD5;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_V4_UNSIGNED_PAYLOAD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
 /**
  * AWS4 signer sign requests to Amazon S3 using an 'Authorization' header.
  */
 public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
+   private static final String EMPTY_PAYLOAD_CONTENT_HASH = base16().lowerCase().encode(
+         hash(new ByteArrayInputStream(new byte[0])));
+   /** Files are hashed through memory mapped regions of at most this size. */
+   private static final long MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+   private static final int BUFFER_SIZE = 1024 * 1024;
+   private static final Joiner SLASH_JOINER = Joiner.on('/');
+   private static final Joiner SEMICOLON_JOINER = Joiner.on(';');
+
+   @Inject(optional = true)
+   @Named(PROPERTY_S3_V4_UNSIGNED_PAYLOAD)
+   private boolean unsignedPayload = false;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_S3_V4_CONTENT_MD5)
+   private boolean calculateContentMD5 = false;
+
    @Inject
    public Aws4SignerForAuthorizationHeader(SignatureWire signatureWire,
          @Named(PROPERTY_S3_VIRTUAL_HOST_BUCKETS) boolean isVhostStyle,
@@ -82,7 +108,7 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
 
       String service = serviceAndRegion.service();
       String region = serviceAndRegion.region(host);
-      String credentialScope = Joiner.on('/').join(datestamp, region, service, "aws4_request");
+      String credentialScope = SLASH_JOINER.join(datestamp, region, service, "aws4_request");
 
       HttpRequest.Builder<?> requestBuilder = request.toBuilder() //
             .removeHeader(AUTHORIZATION) // remove Authorization
@@ -105,6 +131,9 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
          signedHeadersBuilder.put(HttpHeaders.CONTENT_LENGTH.toLowerCase(), contentLength);
       }
 
+      // hash the payload first, as the same read may also produce its Content-MD5
+      String contentSha256 = getPayloadHash(request);
+
       // Content MD5
       String contentMD5 = request.getFirstHeaderOrNull(CONTENT_MD5);
       if (payload != null) {
@@ -141,7 +170,6 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
       }
 
       // x-amz-content-sha256
-      String contentSha256 = getPayloadHash(request);
       requestBuilder.replaceHeader(AMZ_CONTENT_SHA256_HEADER, contentSha256);
       signedHeadersBuilder.put(AMZ_CONTENT_SHA256_HEADER.toLowerCase(), contentSha256);
 
@@ -159,10 +187,9 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
       String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
 
       StringBuilder authorization = new StringBuilder(AMZ_ALGORITHM_HMAC_SHA256).append(" ");
-      authorization.append("Credential=").append(Joiner.on("/").join(credentials.identity, credentialScope))
-            .append(", ");
-      authorization.append("SignedHeaders=").append(Joiner.on(";").join(signedHeaders.keySet()))
+      authorization.append("Credential=").append(credentials.identity).append('/').append(credentialScope)
             .append(", ");
+      SEMICOLON_JOINER.appendTo(authorization.append("SignedHeaders="), signedHeaders.keySet()).append(", ");
       authorization.append("Signature=").append(signature);
       return requestBuilder.replaceHeader(HttpHeaders.AUTHORIZATION, authorization.toString()).build();
    }
@@ -172,6 +199,9 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
       if (payload == null || "0".equals(getContentLength(request))) {
          return getEmptyPayloadContentHash();
       }
+      if (unsignedPayload) {
+         return UNSIGNED_PAYLOAD;
+      }
       return calculatePayloadContentHash(payload);
    }
 
@@ -179,13 +209,28 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
     * The hash returns the following value: e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855
     */
    protected String getEmptyPayloadContentHash() {
-      return base16().lowerCase().encode(hash(new ByteArrayInputStream(new byte[0])));
+      return EMPTY_PAYLOAD_CONTENT_HASH;
    }
 
    /**
     * in this time, payload ContentMetadata provided content hash md5, but aws required sha256.
     */
    protected String calculatePayloadContentHash(Payload payload) {
+      if (payload.isRepeatable()) {
+         Hasher sha256 = Hashing.sha256().newHasher();
+         Hasher md5 = calculateContentMD5 && payload.getContentMetadata().getContentMD5AsHashCode() == null
+               ? Hashing.md5().newHasher() : null;
+         try {
+            hashPayload(payload, md5 == null ? new Hasher[] { sha256 } : new Hasher[] { sha256, md5 });
+         } catch (IOException e) {
+            throw new HttpException("unable to read payload to calculate AWS4 signature.", e);
+         }
+         if (md5 != null) {
+            payload.getContentMetadata().setContentMD5(md5.hash());
+         }
+         return base16().lowerCase().encode(sha256.hash().asBytes());
+      }
+
       // use payload stream calculate content sha256
       InputStream payloadStream;
       try {
@@ -200,6 +245,46 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
       }
    }
 
+   /**
+    * Feeds the content of a repeatable payload to all hashers in a single read. Byte arrays are hashed in place
+    * and files through memory mapped regions, so neither is copied into an intermediate buffer.
+    */
+   static void hashPayload(Payload payload, Hasher... hashers) throws IOException {
+      Object content = payload.getRawContent();
+      if (content instanceof byte[]) {
+         for (Hasher hasher : hashers) {
+            hasher.putBytes((byte[]) content);
+         }
+      } else if (content instanceof File) {
+         FileChannel channel = FileChannel.open(((File) content).toPath(), StandardOpenOption.READ);
+         try {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+               ByteBuffer region = channel.map(MapMode.READ_ONLY, position,
+                     Math.min(MAPPED_REGION_SIZE, size - position));
+               for (Hasher hasher : hashers) {
+                  hasher.putBytes(region.duplicate());
+               }
+            }
+         } finally {
+            Closeables2.closeQuietly(channel);
+         }
+      } else {
+         InputStream is = payload.openStream();
+         try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+               for (Hasher hasher : hashers) {
+                  hasher.putBytes(buffer, 0, read);
+               }
+            }
+         } finally {
+            Closeables2.closeQuietly(is);
+         }
+      }
+   }
+
    // some times, when use Multipart Payload and a part can not be repeatable, will happen some error...
    void closeOrResetPayloadStream(InputStream payloadStream, boolean repeatable) {
       // if payload stream can repeatable.
@@ -19,10 +19,8 @@ package org.jclouds.s3.filters;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.io.BaseEncoding.base64;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.aws.reference.AWSConstants.PROPERTY_AUTH_TAG;
 import static org.jclouds.aws.reference.AWSConstants.PROPERTY_HEADER_TAG;
-import static org.jclouds.crypto.Macs.asByteProcessor;
 import static org.jclouds.http.utils.Queries.queryParser;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_SERVICE_PATH;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
@@ -36,6 +34,8 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -66,7 +66,6 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
-import com.google.common.io.ByteProcessor;
 import com.google.common.net.HttpHeaders;
 
 /**
@@ -96,6 +95,8 @@ public class RequestAuthorizeSignatureV2 implements RequestAuthorizeSignature, R
    private final String servicePath;
    private final boolean isVhostStyle;
    private final DateService dateService;
+   /** Obtaining a {@link Mac} from the provider is costly; one instance per thread is initialized with each key. */
+   private final ThreadLocal<Mac> hmacs = new ThreadLocal<Mac>();
 
    @Inject
    public RequestAuthorizeSignatureV2(SignatureWire signatureWire, @Named(PROPERTY_AUTH_TAG) String authTag,
@@ -177,9 +178,15 @@ public class RequestAuthorizeSignatureV2 implements RequestAuthorizeSignature, R
 
    public String sign(String toSign) {
       try {
-         ByteProcessor<byte[]> hmacSHA1 = asByteProcessor(
-               crypto.hmacSHA1(creds.get().credential.getBytes(UTF_8)));
-         return base64().encode(readBytes(toInputStream(toSign), hmacSHA1));
+         byte[] key = creds.get().credential.getBytes(UTF_8);
+         Mac hmacSHA1 = hmacs.get();
+         if (hmacSHA1 == null) {
+            hmacSHA1 = crypto.hmacSHA1(key);
+            hmacs.set(hmacSHA1);
+         } else {
+            hmacSHA1.init(new SecretKeySpec(key, hmacSHA1.getAlgorithm()));
+         }
+         return base64().encode(hmacSHA1.doFinal(toSign.getBytes(UTF_8)));
       } catch (Exception e) {
          throw new HttpException("error signing request", e);
       }
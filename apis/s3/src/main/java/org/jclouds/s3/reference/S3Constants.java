@@ -32,6 +32,10 @@ public final class S3Constants {
    public static final String PROPERTY_S3_SERVICE_PATH = "jclouds.s3.service-path";
    public static final String PROPERTY_S3_VIRTUAL_HOST_BUCKETS = "jclouds.s3.virtual-host-buckets";
    public static final String PROPERTY_JCLOUDS_S3_CHUNKED_SIZE = "jclouds.s3.chunked.size";
+   /** Sign V4 requests with {@code UNSIGNED-PAYLOAD} instead of the SHA-256 of their payload. */
+   public static final String PROPERTY_S3_V4_UNSIGNED_PAYLOAD = "jclouds.s3.v4.unsigned-payload";
+   /** Compute the MD5 of repeatable V4 payloads in the same pass as their SHA-256 and send it as Content-MD5. */
+   public static final String PROPERTY_S3_V4_CONTENT_MD5 = "jclouds.s3.v4.content-md5";
 
    public static final String TEMPORARY_SIGNATURE_PARAM = "Signature";
 
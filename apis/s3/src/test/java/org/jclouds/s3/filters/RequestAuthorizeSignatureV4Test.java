@@ -16,10 +16,21 @@
  */
 package org.jclouds.s3.filters;
 
+import static com.google.common.base.Charsets.UTF_8;
 import static org.jclouds.reflect.Reflection2.method;
+import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER;
+import static org.jclouds.s3.filters.AwsSignatureV4Constants.UNSIGNED_PAYLOAD;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_V4_CONTENT_MD5;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_V4_UNSIGNED_PAYLOAD;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
+import java.util.Properties;
 
 import javax.inject.Named;
 
@@ -48,6 +59,9 @@ import org.testng.annotations.Test;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.Files;
 import com.google.common.net.HttpHeaders;
 import com.google.inject.Injector;
 import com.google.inject.Module;
@@ -109,10 +123,15 @@ public class RequestAuthorizeSignatureV4Test {
    }
 
    public static Injector injector(Credentials creds) {
+      return injector(creds, new Properties());
+   }
+
+   public static Injector injector(Credentials creds, Properties overrides) {
       return ContextBuilder.newBuilder(new S3ApiMetadata())
             .credentialsSupplier(Suppliers.<Credentials>ofInstance(creds))
             .modules(ImmutableList.<Module>of(new BaseRestApiTest.MockModule(), new NullLoggingModule(),
                   new TestS3HttpApiModule()))
+            .overrides(overrides)
             .buildInjector();
    }
 
@@ -197,6 +216,76 @@ public class RequestAuthorizeSignatureV4Test {
 
    }
 
+   @Test
+   void testPutObjectFilePayloadSignature() throws IOException {
+      File file = File.createTempFile("payload", ".txt");
+      try {
+         Files.write(PUT_OBJECT_CONTENT, file, UTF_8);
+         Payload payload = Payloads.newFilePayload(file);
+         payload.getContentMetadata().setContentType("text/plain");
+
+         HttpRequest filtered = filter(temporaryCredentials).filter(putObject(payload));
+         assertEquals(filtered.getFirstHeaderOrNull("Authorization"), PUT_OBJECT_RESULT);
+      } finally {
+         file.delete();
+      }
+   }
+
+   @Test
+   void testPutObjectUnsignedPayload() {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_S3_V4_UNSIGNED_PAYLOAD, "true");
+      Payload payload = Payloads.newStringPayload(PUT_OBJECT_CONTENT);
+      payload.getContentMetadata().setContentType("text/plain");
+
+      HttpRequest filtered = injector(temporaryCredentials, overrides).getInstance(RequestAuthorizeSignatureV4.class)
+            .filter(putObject(payload));
+      assertEquals(filtered.getFirstHeaderOrNull(AMZ_CONTENT_SHA256_HEADER), UNSIGNED_PAYLOAD);
+   }
+
+   @Test
+   void testPutObjectContentMD5() {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_S3_V4_CONTENT_MD5, "true");
+      Payload payload = Payloads.newByteArrayPayload(PUT_OBJECT_CONTENT.getBytes(UTF_8));
+      payload.getContentMetadata().setContentType("text/plain");
+
+      HttpRequest filtered = injector(temporaryCredentials, overrides).getInstance(RequestAuthorizeSignatureV4.class)
+            .filter(putObject(payload));
+      @SuppressWarnings("deprecation")
+      String md5 = BaseEncoding.base64().encode(Hashing.md5().hashString(PUT_OBJECT_CONTENT, UTF_8).asBytes());
+      assertEquals(filtered.getFirstHeaderOrNull(HttpHeaders.CONTENT_MD5), md5);
+      assertEquals(filtered.getFirstHeaderOrNull(AMZ_CONTENT_SHA256_HEADER),
+            Aws4SignerBase.hex(Aws4SignerBase.hash(PUT_OBJECT_CONTENT)));
+      assertTrue(filtered.getFirstHeaderOrNull("Authorization").contains("content-md5;"));
+   }
+
+   @Test
+   void testSignatureKeyIsDerivedOncePerDay() {
+      Aws4SignerForAuthorizationHeader signer = injector(temporaryCredentials)
+            .getInstance(Aws4SignerForAuthorizationHeader.class);
+      // example from the AWS documentation on deriving a signing key
+      String secretKey = "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY";
+      byte[] key = signer.signatureKey(secretKey, "20120215", "us-east-1", "iam");
+      assertEquals(Aws4SignerBase.hex(key), "f4780e2d9f65fa895f9c67b32ce1baf0b0d8a43505a000a1a9e090d414db404d");
+
+      assertSame(signer.signatureKey(secretKey, "20120215", "us-east-1", "iam"), key);
+      assertNotSame(signer.signatureKey(secretKey, "20120216", "us-east-1", "iam"), key);
+   }
+
+   private static HttpRequest putObject(Payload payload) {
+      Invocation invocation = Invocation.create(method(S3Client.class, "putObject", String.class, S3Object.class,
+                  PutObjectOptions[].class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+      return GeneratedHttpRequest.builder().method("PUT")
+            .invocation(invocation)
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME)
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .addHeader("x-amz-storage-class", "REDUCED_REDUNDANCY")
+            .payload(payload)
+            .build();
+   }
+
    // JCLOUDS-1401
    @Test
    void testListBucketFunnyCharactersSignature() {
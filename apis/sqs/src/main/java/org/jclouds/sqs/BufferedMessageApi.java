@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.Message;
+import org.jclouds.sqs.domain.MessageIdAndMD5;
+import org.jclouds.sqs.features.MessageApi;
+import org.jclouds.sqs.options.ReceiveMessageOptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Sends, receives and deletes messages of a queue in batches of up to 10, the most a request
+ * accepts, instead of one request per message.
+ * <p/>
+ * Messages sent, and receipt handles deleted, are buffered until there are 10 of them, or messages
+ * adding up to 256 KB, or the first has waited for the max linger, then sent in one request by the
+ * executor. Messages are received by receivers running in the executor, each receiving up to 10
+ * messages at a time until the buffer is full, and polling on after an error. Receivers start at the
+ * first call to {@link #receive}; note that the visibility timeout of the messages buffered runs while
+ * they wait to be received.
+ *
+ * <pre>
+ * BufferedMessageApi queue = BufferedMessageApi.builder(sqsApi.getMessageApiForQueue(queue), userExecutor, scheduler)
+ *       .receivers(2).receiveOptions(waitTimeSeconds(20)).build();
+ * queue.send(&quot;hello&quot;);
+ * Message message = queue.receive(20, TimeUnit.SECONDS);
+ * queue.delete(message.getReceiptHandle());
+ * queue.close();
+ * </pre>
+ */
+@Beta
+public class BufferedMessageApi implements Closeable {
+
+   /** The most entries a batch request accepts, and the most messages a request receives. */
+   public static final int MAX_BATCH_SIZE = 10;
+
+   /** The most bytes the message bodies of a send batch request may add up to. */
+   public static final int MAX_BATCH_PAYLOAD = 256 * 1024;
+
+   public static Builder builder(MessageApi api, ListeningExecutorService executor, ScheduledExecutorService scheduler) {
+      return new Builder(api, executor, scheduler);
+   }
+
+   public static class Builder {
+      private final MessageApi api;
+      private final ListeningExecutorService executor;
+      private final ScheduledExecutorService scheduler;
+      private long maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(200);
+      private int receivers = 1;
+      private int bufferSize = MAX_BATCH_SIZE * 2;
+      private ReceiveMessageOptions receiveOptions = new ReceiveMessageOptions();
+      private long emptyReceivePauseNanos = TimeUnit.SECONDS.toNanos(1);
+      private Logger logger = Logger.NULL;
+
+      private Builder(MessageApi api, ListeningExecutorService executor, ScheduledExecutorService scheduler) {
+         this.api = checkNotNull(api, "message api");
+         this.executor = checkNotNull(executor, "executor");
+         this.scheduler = checkNotNull(scheduler, "scheduler");
+      }
+
+      /**
+       * How long a message sent, or receipt handle deleted, waits for others to fill its batch.
+       * Defaults to 200 milliseconds.
+       */
+      public Builder maxLinger(long duration, TimeUnit unit) {
+         checkArgument(duration >= 0, "maxLinger must not be negative: %s", duration);
+         this.maxLingerNanos = unit.toNanos(duration);
+         return this;
+      }
+
+      /** How many receive requests to keep in flight. Defaults to 1. */
+      public Builder receivers(int receivers) {
+         checkArgument(receivers > 0, "receivers must be positive: %s", receivers);
+         this.receivers = receivers;
+         return this;
+      }
+
+      /** The most messages received ahead of the caller. Defaults to 20. */
+      public Builder bufferSize(int bufferSize) {
+         checkArgument(bufferSize >= MAX_BATCH_SIZE, "bufferSize must be at least %s: %s", MAX_BATCH_SIZE,
+               bufferSize);
+         this.bufferSize = bufferSize;
+         return this;
+      }
+
+      /**
+       * Options of the receive requests, such as
+       * {@link ReceiveMessageOptions#waitTimeSeconds(Integer) long polling}, which requires the
+       * context to use the 2012-11-05 api version.
+       */
+      public Builder receiveOptions(ReceiveMessageOptions receiveOptions) {
+         this.receiveOptions = checkNotNull(receiveOptions, "receiveOptions");
+         return this;
+      }
+
+      /** How long a receiver waits after receiving no message. Defaults to 1 second. */
+      public Builder emptyReceivePause(long duration, TimeUnit unit) {
+         checkArgument(duration >= 0, "emptyReceivePause must not be negative: %s", duration);
+         this.emptyReceivePauseNanos = unit.toNanos(duration);
+         return this;
+      }
+
+      /** Where receivers log the errors they keep polling after. Defaults to none. */
+      public Builder logger(Logger logger) {
+         this.logger = checkNotNull(logger, "logger");
+         return this;
+      }
+
+      public BufferedMessageApi build() {
+         return new BufferedMessageApi(this);
+      }
+   }
+
+   private final MessageApi api;
+   private final ListeningExecutorService executor;
+   private final ScheduledExecutorService scheduler;
+   private final long maxLingerNanos;
+   private final int receivers;
+   private final ReceiveMessageOptions receiveOptions;
+   private final long emptyReceivePauseNanos;
+   private final Logger logger;
+   private final BlockingQueue<Message> received = new LinkedBlockingQueue<Message>();
+   private final Semaphore bufferSpace;
+   private final List<Future<?>> running = Lists.newArrayList();
+   private volatile RuntimeException receiveFailure;
+   private volatile boolean closed;
+
+   private final Batcher<MessageIdAndMD5> sends = new Batcher<MessageIdAndMD5>() {
+      @Override
+      BatchResult<? extends MessageIdAndMD5> execute(Map<String, String> idMessageBody) {
+         return api.send(idMessageBody);
+      }
+
+      @Override
+      int payload(String message) {
+         return message.getBytes(Charsets.UTF_8).length;
+      }
+   };
+
+   private final Batcher<String> deletes = new Batcher<String>() {
+      @Override
+      BatchResult<String> execute(Map<String, String> idReceiptHandle) {
+         return api.delete(idReceiptHandle);
+      }
+   };
+
+   private BufferedMessageApi(Builder builder) {
+      this.api = builder.api;
+      this.executor = builder.executor;
+      this.scheduler = builder.scheduler;
+      this.maxLingerNanos = builder.maxLingerNanos;
+      this.receivers = builder.receivers;
+      this.receiveOptions = builder.receiveOptions.clone();
+      this.emptyReceivePauseNanos = builder.emptyReceivePauseNanos;
+      this.logger = builder.logger;
+      this.bufferSpace = new Semaphore(builder.bufferSize);
+   }
+
+   /**
+    * Sends the message in the next batch.
+    *
+    * @return the id and md5 of the message sent, or an {@link IllegalArgumentException} if SQS
+    *         rejected it, or an {@link IllegalStateException} if it failed to send it
+    * @see MessageApi#send(Map)
+    */
+   public ListenableFuture<MessageIdAndMD5> send(String message) {
+      return sends.add(checkNotNull(message, "message"));
+   }
+
+   /**
+    * Deletes the message in the next batch.
+    *
+    * @see MessageApi#delete(Map)
+    */
+   public ListenableFuture<Void> delete(String receiptHandle) {
+      return Futures.transform(deletes.add(checkNotNull(receiptHandle, "receiptHandle")),
+            Functions.<Void> constant(null), MoreExecutors.directExecutor());
+   }
+
+   /**
+    * Returns the next message received, waiting up to the timeout for one.
+    *
+    * @return the message, or null if none was received in time
+    */
+   @Nullable
+   public Message receive(long timeout, TimeUnit unit) throws InterruptedException {
+      startReceivers();
+      Message message = received.poll(timeout, unit);
+      if (message != null)
+         bufferSpace.release();
+      return message;
+   }
+
+   /**
+    * The last error of a receive request, if any. Receivers keep polling after an error.
+    */
+   @Nullable
+   public RuntimeException getLastReceiveFailure() {
+      return receiveFailure;
+   }
+
+   /**
+    * Sends the messages and deletes buffered, and stops receiving. Messages received but not
+    * returned become visible again at the end of their visibility timeout.
+    */
+   @Override
+   public void close() {
+      synchronized (running) {
+         closed = true;
+         for (Future<?> receiver : running)
+            receiver.cancel(true);
+      }
+      sends.flush();
+      deletes.flush();
+   }
+
+   private void startReceivers() {
+      synchronized (running) {
+         checkState(!closed, "closed");
+         if (!running.isEmpty())
+            return;
+         for (int i = 0; i < receivers; i++) {
+            running.add(executor.submit(new Runnable() {
+               @Override
+               public void run() {
+                  receiveUntilClosed();
+               }
+            }));
+         }
+      }
+   }
+
+   private void receiveUntilClosed() {
+      try {
+         while (!closed) {
+            bufferSpace.acquire(MAX_BATCH_SIZE);
+            int count = 0;
+            try {
+               for (Message message : api.receive(MAX_BATCH_SIZE, receiveOptions)) {
+                  received.add(message);
+                  count++;
+               }
+            } catch (RuntimeException e) {
+               if (closed)
+                  return;
+               // keep polling, as the error may be transient, but not faster than once a second
+               logger.error(e, "Error receiving messages, retrying");
+               receiveFailure = e;
+               TimeUnit.NANOSECONDS.sleep(Math.max(emptyReceivePauseNanos, TimeUnit.SECONDS.toNanos(1)));
+               continue;
+            } finally {
+               bufferSpace.release(MAX_BATCH_SIZE - count);
+            }
+            if (count == 0 && emptyReceivePauseNanos > 0)
+               TimeUnit.NANOSECONDS.sleep(emptyReceivePauseNanos);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Collects values until a batch is full, in entries or payload, or its first value waited for the
+    * max linger, then executes the batch in the executor.
+    */
+   private abstract class Batcher<V> {
+      private final List<String> values = Lists.newArrayList();
+      private final List<SettableFuture<V>> futures = Lists.newArrayList();
+      private int payload;
+      private ScheduledFuture<?> linger;
+
+      abstract BatchResult<? extends V> execute(Map<String, String> idValue);
+
+      /**
+       * Returns the bytes the value counts towards {@link #MAX_BATCH_PAYLOAD}, or 0 if the batch
+       * request limits only its entries.
+       */
+      int payload(String value) {
+         return 0;
+      }
+
+      synchronized ListenableFuture<V> add(String value) {
+         checkState(!closed, "closed");
+         SettableFuture<V> future = SettableFuture.create();
+         int valuePayload = payload(value);
+         // a value which does not fit the batch starts the next one
+         if (!values.isEmpty() && payload + valuePayload > MAX_BATCH_PAYLOAD)
+            flush();
+         values.add(value);
+         futures.add(future);
+         payload += valuePayload;
+         if (values.size() >= MAX_BATCH_SIZE || payload >= MAX_BATCH_PAYLOAD) {
+            flush();
+         } else if (values.size() == 1) {
+            linger = scheduler.schedule(new Runnable() {
+               @Override
+               public void run() {
+                  flush();
+               }
+            }, maxLingerNanos, TimeUnit.NANOSECONDS);
+         }
+         return future;
+      }
+
+      synchronized void flush() {
+         if (linger != null) {
+            linger.cancel(false);
+            linger = null;
+         }
+         if (values.isEmpty())
+            return;
+         // ids only correlate entries within a batch
+         ImmutableMap.Builder<String, String> batch = ImmutableMap.builder();
+         final ImmutableMap.Builder<String, SettableFuture<V>> pending = ImmutableMap.builder();
+         for (int i = 0; i < values.size(); i++) {
+            batch.put(Integer.toString(i + 1), values.get(i));
+            pending.put(Integer.toString(i + 1), futures.get(i));
+         }
+         values.clear();
+         futures.clear();
+         payload = 0;
+         final Map<String, String> idValue = batch.build();
+         try {
+            executor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  complete(idValue, pending.build());
+               }
+            });
+         } catch (RejectedExecutionException e) {
+            for (SettableFuture<V> future : pending.build().values())
+               future.setException(e);
+         }
+      }
+
+      private void complete(Map<String, String> idValue, Map<String, SettableFuture<V>> pending) {
+         BatchResult<? extends V> result;
+         try {
+            result = execute(idValue);
+         } catch (RuntimeException e) {
+            for (SettableFuture<V> future : pending.values())
+               future.setException(e);
+            return;
+         }
+         Map<String, ? extends V> values = result;
+         for (Map.Entry<String, SettableFuture<V>> entry : pending.entrySet()) {
+            V value = values.get(entry.getKey());
+            BatchError error = result.getErrors().get(entry.getKey());
+            if (value != null)
+               entry.getValue().set(value);
+            else if (error != null)
+               entry.getValue().setException(error.isSenderFault() ? new IllegalArgumentException(error.toString())
+                     : new IllegalStateException(error.toString()));
+            else
+               entry.getValue().setException(new IllegalStateException("no result for entry " + entry.getKey()));
+         }
+      }
+   }
+}
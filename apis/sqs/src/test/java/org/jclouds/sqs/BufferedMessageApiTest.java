@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.Message;
+import org.jclouds.sqs.domain.MessageIdAndMD5;
+import org.jclouds.sqs.features.MessageApi;
+import org.jclouds.sqs.options.ReceiveMessageOptions;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests behavior of {@code BufferedMessageApi}.
+ */
+@Test(groups = "unit", testName = "BufferedMessageApiTest")
+public class BufferedMessageApiTest {
+
+   private static final HashCode MD5 = HashCode.fromString("acbd18db4cc2f85cedef654fccc4a4d8");
+
+   private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+   @AfterClass
+   void shutdown() {
+      executor.shutdownNow();
+      scheduler.shutdownNow();
+   }
+
+   public void testSendsFullBatchInOneRequest() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      ImmutableMap.Builder<String, String> batch = ImmutableMap.builder();
+      BatchResult.Builder<MessageIdAndMD5> result = BatchResult.builder();
+      for (int i = 1; i <= 10; i++) {
+         batch.put(Integer.toString(i), "message " + i);
+         result.put(Integer.toString(i), MessageIdAndMD5.builder().id("id" + i).md5(MD5).build());
+      }
+      expectSend(api, batch.build(), result.build());
+      replay(api);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor, scheduler).maxLinger(1, TimeUnit.HOURS)
+            .build();
+      List<ListenableFuture<MessageIdAndMD5>> sent = Lists.newArrayList();
+      for (int i = 1; i <= 10; i++)
+         sent.add(buffered.send("message " + i));
+
+      for (int i = 1; i <= 10; i++)
+         assertEquals(sent.get(i - 1).get(10, TimeUnit.SECONDS).getId(), "id" + i);
+      verify(api);
+   }
+
+   public void testSendsBatchBeforeItExceedsMaxPayload() throws Exception {
+      String large = Strings.repeat("a", 100 * 1024);
+      MessageApi api = createMock(MessageApi.class);
+      expectSend(api, ImmutableMap.of("1", large, "2", large), BatchResult.<MessageIdAndMD5> builder()
+            .put("1", MessageIdAndMD5.builder().id("id1").md5(MD5).build())
+            .put("2", MessageIdAndMD5.builder().id("id2").md5(MD5).build()).build());
+      expectSend(api, ImmutableMap.of("1", large), BatchResult.<MessageIdAndMD5> builder()
+            .put("1", MessageIdAndMD5.builder().id("id3").md5(MD5).build()).build());
+      replay(api);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor, scheduler).maxLinger(1, TimeUnit.HOURS)
+            .build();
+      ListenableFuture<MessageIdAndMD5> first = buffered.send(large);
+      ListenableFuture<MessageIdAndMD5> second = buffered.send(large);
+      ListenableFuture<MessageIdAndMD5> third = buffered.send(large);
+
+      assertEquals(first.get(10, TimeUnit.SECONDS).getId(), "id1");
+      assertEquals(second.get(10, TimeUnit.SECONDS).getId(), "id2");
+      buffered.close();
+      assertEquals(third.get(10, TimeUnit.SECONDS).getId(), "id3");
+      verify(api);
+   }
+
+   public void testSendsPartialBatchAfterMaxLinger() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      Map<String, String> batch = ImmutableMap.of("1", "foo", "2", "bar");
+      expectSend(api, batch, BatchResult.<MessageIdAndMD5> builder()
+            .put("1", MessageIdAndMD5.builder().id("id1").md5(MD5).build())
+            .addError(BatchError.builder().id("2").code("InvalidMessageContents")
+                  .message("invalid characters").senderFault(true).build())
+            .build());
+      replay(api);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor, scheduler)
+            .maxLinger(10, TimeUnit.MILLISECONDS).build();
+      ListenableFuture<MessageIdAndMD5> foo = buffered.send("foo");
+      ListenableFuture<MessageIdAndMD5> bar = buffered.send("bar");
+
+      assertEquals(foo.get(10, TimeUnit.SECONDS).getId(), "id1");
+      try {
+         bar.get(10, TimeUnit.SECONDS);
+         fail();
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof IllegalArgumentException, e.getCause().toString());
+      }
+      verify(api);
+   }
+
+   public void testCloseDeletesBuffered() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      expect(api.delete(eq(ImmutableMap.of("1", "handle1", "2", "handle2")))).andReturn(
+            BatchResult.<String> builder().put("1", "1").put("2", "2").build());
+      replay(api);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor, scheduler).maxLinger(1, TimeUnit.HOURS)
+            .build();
+      ListenableFuture<Void> deleted1 = buffered.delete("handle1");
+      ListenableFuture<Void> deleted2 = buffered.delete("handle2");
+      buffered.close();
+
+      assertNull(deleted1.get(10, TimeUnit.SECONDS));
+      assertNull(deleted2.get(10, TimeUnit.SECONDS));
+      verify(api);
+   }
+
+   public void testReceivesMessagesAhead() throws Exception {
+      ReceiveMessageOptions options = new ReceiveMessageOptions().visibilityTimeout(60);
+      Message foo = Message.builder().id("1").body("foo").receiptHandle("handle1").md5(MD5).build();
+      Message bar = Message.builder().id("2").body("bar").receiptHandle("handle2").md5(MD5).build();
+      MessageApi api = createMock(MessageApi.class);
+      expect(api.receive(10, options)).andReturn(FluentIterable.from(ImmutableList.of(foo, bar)));
+      expect(api.receive(10, options)).andReturn(FluentIterable.from(ImmutableList.<Message> of())).anyTimes();
+      replay(api);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor, scheduler).receiveOptions(options)
+            .emptyReceivePause(10, TimeUnit.MILLISECONDS).build();
+
+      assertEquals(buffered.receive(10, TimeUnit.SECONDS), foo);
+      assertEquals(buffered.receive(10, TimeUnit.SECONDS), bar);
+      assertNull(buffered.receive(50, TimeUnit.MILLISECONDS));
+      buffered.close();
+      verify(api);
+   }
+
+   public void testReceiversKeepPollingAfterAnError() throws Exception {
+      ReceiveMessageOptions options = new ReceiveMessageOptions();
+      Message foo = Message.builder().id("1").receiptHandle("r1").body("foo").md5(MD5).build();
+      IllegalStateException error = new IllegalStateException("throttled");
+      MessageApi api = createMock(MessageApi.class);
+      expect(api.receive(10, options)).andThrow(error);
+      expect(api.receive(10, options)).andReturn(FluentIterable.from(ImmutableList.of(foo)));
+      expect(api.receive(10, options)).andReturn(FluentIterable.from(ImmutableList.<Message> of())).anyTimes();
+      replay(api);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor, scheduler).receiveOptions(options)
+            .emptyReceivePause(10, TimeUnit.MILLISECONDS).build();
+
+      assertEquals(buffered.receive(10, TimeUnit.SECONDS), foo);
+      assertSame(buffered.getLastReceiveFailure(), error);
+      buffered.close();
+      verify(api);
+   }
+
+   public void testSendFailsWhenTheExecutorRejectsTheBatch() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      replay(api);
+      ListeningExecutorService shutdown = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      shutdown.shutdown();
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, shutdown, scheduler).build();
+      ListenableFuture<MessageIdAndMD5> sent = buffered.send("foo");
+      buffered.close();
+
+      try {
+         sent.get(10, TimeUnit.SECONDS);
+         fail();
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof RejectedExecutionException, e.getCause().toString());
+      }
+      verify(api);
+   }
+
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static void expectSend(MessageApi api, Map<String, String> batch, BatchResult<MessageIdAndMD5> result) {
+      expect((BatchResult) api.send(eq(batch))).andReturn(result);
+   }
+}
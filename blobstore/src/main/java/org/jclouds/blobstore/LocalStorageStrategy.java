@@ -18,6 +18,8 @@ package org.jclouds.blobstore;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -26,6 +28,7 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
 
 /**
  * Strategy for local operations related to container and blob
@@ -100,6 +103,33 @@ public interface LocalStorageStrategy {
      */
     Iterable<String> getBlobKeysInsideContainer(String container, String prefix) throws IOException;
 
+    /**
+     * Returns the keys inside a container in lexicographic order, restricted to keys starting with
+     * prefix and sorting after marker.  Implementations produce keys lazily, so that callers which
+     * stop after a page only pay for that page rather than for the whole container.  Keys may
+     * include directories which are not blobs; callers can filter them with {@link #blobExists}.
+     *
+     * @param container
+     * @param prefix only return keys starting with this prefix, or null for all keys
+     * @param marker only return keys sorting after this key, or null to start at the first key
+     * @return iterator over the matching keys
+     * @throws IOException
+     */
+    SortedKeyIterator getSortedBlobKeysInsideContainer(String container, @Nullable String prefix,
+          @Nullable String marker) throws IOException;
+
+    /**
+     * Iterator over keys in lexicographic order, which can skip the keys sharing a prefix, such as
+     * the keys rolled up into a common prefix by a delimiter, without visiting them.
+     */
+    interface SortedKeyIterator extends Iterator<String> {
+       /**
+        * Skips the remaining keys starting with prefix, which must be a prefix of the key last
+        * returned by {@link #next}.
+        */
+       void skipKeysWithPrefix(String prefix);
+    }
+
     /**
      * Load the blob with the given key belonging to the container with the given
      * name. There must exist a resource on the file system whose complete name
@@ -127,6 +157,24 @@ public interface LocalStorageStrategy {
      */
     String putBlob(String containerName, Blob blob, BlobAccess access) throws IOException;
 
+    /**
+     * Write the concatenation of existing blobs, such as the parts of a multipart upload, into a
+     * new blob.  The payload of the blob streams the same content, so by default this is
+     * {@link #putBlob(String, Blob, BlobAccess)}; strategies which can copy the blobs natively
+     * ignore the payload instead of reading it.  The etag of the blob is stored as is.
+     *
+     * @param container
+     * @param blob
+     * @param access
+     * @param keys the blobs to concatenate, in order
+     * @return etag of blob
+     * @throws IOException
+     */
+    default String concatenateBlobs(String containerName, Blob blob, BlobAccess access, List<String> keys)
+          throws IOException {
+       return putBlob(containerName, blob, access);
+    }
+
     /**
      * Remove blob named by the given key
      * @param container
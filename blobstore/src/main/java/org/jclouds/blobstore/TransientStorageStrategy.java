@@ -21,8 +21,12 @@ import static com.google.common.io.BaseEncoding.base16;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -157,6 +161,78 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return blobs.subMap(prefix, /*fromInclusive=*/ true, lastPrefix, /*toInclusive=*/ false).keySet();
    }
 
+   @Override
+   public SortedKeyIterator getSortedBlobKeysInsideContainer(final String containerName, final String prefix,
+         String marker) {
+      NavigableSet<String> keys = containerToBlobs.get(containerName).navigableKeySet();
+      if (marker != null && (prefix == null || marker.compareTo(prefix) >= 0)) {
+         keys = keys.tailSet(marker, false);
+      } else if (prefix != null) {
+         keys = keys.tailSet(prefix, true);
+      }
+      return new NavigableKeyIterator(keys, prefix);
+   }
+
+   private static final class NavigableKeyIterator implements SortedKeyIterator {
+      private final NavigableSet<String> keys;
+      private final String prefix;
+      private Iterator<String> iterator;
+      private String next;
+
+      NavigableKeyIterator(NavigableSet<String> keys, String prefix) {
+         this.keys = keys;
+         this.prefix = prefix;
+         this.iterator = keys.iterator();
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (next == null && iterator.hasNext()) {
+            String key = iterator.next();
+            if (prefix == null || key.startsWith(prefix)) {
+               next = key;
+            } else {
+               iterator = Collections.emptyIterator();
+            }
+         }
+         return next != null;
+      }
+
+      @Override
+      public String next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         String key = next;
+         next = null;
+         return key;
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void skipKeysWithPrefix(String skipped) {
+         if (next != null && !next.startsWith(skipped)) {
+            return;
+         }
+         next = null;
+         // seek to the first string sorting after every string starting with skipped
+         int end = skipped.length();
+         while (end > 0 && skipped.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+         }
+         if (end == 0) {
+            iterator = Collections.emptyIterator();
+         } else {
+            String successor = skipped.substring(0, end - 1) + (char) (skipped.charAt(end - 1) + 1);
+            iterator = keys.tailSet(successor, true).iterator();
+         }
+      }
+   }
+
    @Override
    public Blob getBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
@@ -18,12 +18,12 @@ package org.jclouds.blobstore.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 import static org.jclouds.util.Predicates2.retry;
 
 import java.io.File;
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -48,7 +48,10 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.internal.BufferedMultipartUploader;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.blobstore.strategy.internal.ParallelRangeDownloader;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -58,7 +61,6 @@ import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
-import org.jclouds.io.Payloads;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.util.Closeables2;
 
@@ -333,6 +335,16 @@ public abstract class BaseBlobStore implements BlobStore {
    @VisibleForTesting
    ListeningExecutorService userExecutor;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_MAX_RETRIES)
+   @VisibleForTesting
+   int retryCountLimit = 5;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_MULTIPART_BUFFERS)
+   @VisibleForTesting
+   int multipartBuffers = BlobStoreConstants.DEFAULT_MULTIPART_BUFFERS;
+
    /**
     * Upload using a user-provided executor, or the jclouds userExecutor
     *
@@ -354,43 +366,32 @@ public abstract class BaseBlobStore implements BlobStore {
    protected String putMultipartBlob(String container, Blob blob, PutOptions overrides, ListeningExecutorService executor) {
       ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
       MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
-      // Cannot slice InputStream Payload since slice and close mutate the
-      // underlying stream.  Also issue synchronous uploads to avoid buffering
-      // arbitrary amounts of data in-memory.
       Payload payload = blob.getPayload();
-      boolean repeatable = blob.getPayload().isRepeatable();
-      if (!repeatable) {
-         payload = Payloads.newInputStreamPayload(new FilterInputStream((InputStream) payload.getRawContent()) {
-            @Override
-            public long skip(long offset) throws IOException {
-               // intentionally not implemented
-               return offset;
-            }
-
-            @Override
-            public void close() throws IOException {
-               // intentionally not implemented
-            }
-         });
-      }
 
       try {
          long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
          // TODO: inject MultipartUploadSlicingAlgorithm to override default part size
          MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
                getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
+         if (!payload.isRepeatable()) {
+            // Cannot slice InputStream Payload since slice and close mutate the
+            // underlying stream.  Instead read parts into a bounded number of
+            // buffers and upload those concurrently.
+            return completeMultipartUpload(mpu, new BufferedMultipartUploader(this, executor, multipartBuffers)
+                  .upload(mpu, (InputStream) payload.getRawContent(), contentLength, algorithm));
+         }
          long partSize = algorithm.calculateChunkSize(contentLength);
          int partNumber = 1;
          while (partNumber <= algorithm.getParts()) {
             Payload slice = slicer.slice(payload, algorithm.getCopied(), partSize);
             BlobUploader b = new BlobUploader(mpu, partNumber++, slice);
-            parts.add(repeatable ? executor.submit(b) : Futures.immediateFuture(b.call()));
+            parts.add(executor.submit(b));
             algorithm.addCopied(partSize);
          }
          if (algorithm.getRemaining() != 0) {
             Payload slice = slicer.slice(payload, algorithm.getCopied(), algorithm.getRemaining());
             BlobUploader b = new BlobUploader(mpu, partNumber, slice);
-            parts.add(repeatable ? executor.submit(b) : Futures.immediateFuture(b.call()));
+            parts.add(executor.submit(b));
          }
          return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
       } catch (RuntimeException re) {
@@ -432,21 +433,33 @@ public abstract class BaseBlobStore implements BlobStore {
 
    @Override
    public void downloadBlob(String container, String name, File destination) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      downloadBlob(container, name, destination, userExecutor);
    }
 
+   /**
+    * This implementation issues parallel ranged GETs sized by {@link #getMinimumMultipartPartSize} via
+    * {@link ParallelRangeDownloader}.
+    */
    @Override
    public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      newRangeDownloader(executor).download(container, name, destination);
    }
 
    @Override
    public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return streamBlob(container, name, userExecutor);
    }
 
+   /**
+    * This implementation returns an ordered stream which prefetches
+    * {@link ParallelRangeDownloader#DEFAULT_PREFETCH_RANGES} ranges via {@link ParallelRangeDownloader}.
+    */
    @Override
    public InputStream streamBlob(String container, String name, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return newRangeDownloader(executor).stream(container, name, ParallelRangeDownloader.DEFAULT_PREFETCH_RANGES);
+   }
+
+   private ParallelRangeDownloader newRangeDownloader(ExecutorService executor) {
+      return new ParallelRangeDownloader(this, executor, getMinimumMultipartPartSize(), retryCountLimit);
    }
 }
@@ -44,18 +44,20 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
    private String prefix;
    private boolean recursive;
    private boolean detailed;
+   private int maxConcurrency = 1;
 
    public ListContainerOptions() {
    }
 
    ListContainerOptions(Integer maxKeys, String marker, String dir, boolean recursive,
-            boolean detailed, String prefix, String delimiter) {
+            boolean detailed, String prefix, String delimiter, int maxConcurrency) {
       super(maxKeys, marker);
       this.dir = dir;
       this.recursive = recursive;
       this.detailed = detailed;
       this.prefix = prefix;
       this.delimiter = delimiter;
+      this.maxConcurrency = maxConcurrency;
    }
 
    public static class ImmutableListContainerOptions extends ListContainerOptions {
@@ -101,6 +103,16 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
 
       }
 
+      @Override
+      public ListContainerOptions maxConcurrency(int maxConcurrency) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int getMaxConcurrency() {
+         return delegate.getMaxConcurrency();
+      }
+
       @Override
       public String getMarker() {
          return delegate.getMarker();
@@ -167,6 +179,10 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
       return prefix;
    }
 
+   public int getMaxConcurrency() {
+      return maxConcurrency;
+   }
+
    /**
     * This will list the contents of a virtual or real directory path.
     *
@@ -214,6 +230,16 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
       return this;
    }
 
+   /**
+    * list up to this many folders at the same time when listing recursively, instead of one after
+    * the other.
+    */
+   public ListContainerOptions maxConcurrency(int maxConcurrency) {
+      checkArgument(maxConcurrency > 0, "maxConcurrency must be positive: %s", maxConcurrency);
+      this.maxConcurrency = maxConcurrency;
+      return this;
+   }
+
    /**
     * Only list keys that start with the supplied prefix
     */
@@ -275,6 +301,14 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
          return options.withDetails();
       }
 
+      /**
+       * @see ListContainerOptions#maxConcurrency(int)
+       */
+      public static ListContainerOptions maxConcurrency(int maxConcurrency) {
+         ListContainerOptions options = new ListContainerOptions();
+         return options.maxConcurrency(maxConcurrency);
+      }
+
       /**
        * @see ListContainerOptions#prefix(String)
        */
@@ -293,7 +327,8 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
 
    @Override
    public ListContainerOptions clone() {
-      return new ListContainerOptions(getMaxResults(), getMarker(), dir, recursive, detailed, prefix, delimiter);
+      return new ListContainerOptions(getMaxResults(), getMarker(), dir, recursive, detailed, prefix, delimiter,
+               maxConcurrency);
    }
 
    @Override
@@ -301,6 +336,7 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
       return "[dir=" + dir + ", recursive=" + recursive + ", detailed=" + detailed
                + ", prefix=" + prefix + ", marker=" + getMarker()
                + ", delimiter=" + delimiter
+               + ", maxConcurrency=" + maxConcurrency
                + ", maxResults=" + getMaxResults() + "]";
    }
 
@@ -322,6 +358,7 @@ public class ListContainerOptions extends ListOptions implements Cloneable {
                recursive == other.recursive &&
                Objects.equal(dir, other.dir) &&
                Objects.equal(prefix, other.prefix) &&
+               maxConcurrency == other.maxConcurrency &&
                Objects.equal(getMarker(), other.getMarker()) &&
                Objects.equal(getMaxResults(), other.getMaxResults());
    }
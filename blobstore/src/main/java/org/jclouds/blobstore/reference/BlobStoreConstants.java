@@ -53,6 +53,28 @@ public final class BlobStoreConstants {
     */
    public static final String PROPERTY_USER_METADATA_PREFIX = "jclouds.blobstore.metaprefix";
 
+   /**
+    * Maximum number of part-sized buffers held in memory while uploading a non-repeatable payload
+    * with multipart upload.  Parts are uploaded concurrently up to this limit, so memory use is
+    * bounded by this value times the part size.
+    */
+   public static final String PROPERTY_MULTIPART_BUFFERS = "jclouds.mpu.parts.buffers";
+   public static final int DEFAULT_MULTIPART_BUFFERS = 4;
+
+   /**
+    * Maximum number of blobs deleted with a single {@link org.jclouds.blobstore.BlobStore#removeBlobs}
+    * call when clearing a container or directory.  Providers with a multi-object delete API default
+    * this to the number of keys such a request accepts; otherwise blobs are deleted one at a time.
+    */
+   public static final String PROPERTY_MAX_DELETES_PER_REQUEST = "jclouds.blobstore.max-deletes-per-request";
+
+   /**
+    * Number of pages listed ahead while the previous ones are processed, when
+    * {@link org.jclouds.blobstore.strategy.ListContainerStrategy} lists a whole container.  Defaults
+    * to 0, which lists all the pages before processing any.
+    */
+   public static final String PROPERTY_LIST_PREFETCH = "jclouds.blobstore.list-prefetch";
+
    public static final String BLOBSTORE_LOGGER = "jclouds.blobstore";
    public static final String DIRECTORY_BLOB_SUFFIX = "/";
 
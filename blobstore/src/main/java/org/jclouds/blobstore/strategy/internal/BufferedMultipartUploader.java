@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Uploads the parts of a non-repeatable stream concurrently by reading each part into a
+ * buffer from a bounded pool.
+ * <p/>
+ * At most {@code maxBuffers} parts are held in memory: reading the next part blocks until an
+ * in-flight upload completes and returns its buffer to the pool.  An upload returns its buffer
+ * once it has stopped reading it, even if it was cancelled.  Buffered parts are
+ * repeatable, so the HTTP layer can retry them.  Parts too large for a byte array are
+ * uploaded synchronously straight from the stream.
+ */
+@Beta
+public final class BufferedMultipartUploader {
+   @VisibleForTesting
+   static final long MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+   private final BlobStore blobStore;
+   private final ListeningExecutorService executor;
+   private final int maxBuffers;
+
+   public BufferedMultipartUploader(BlobStore blobStore, ExecutorService executor, int maxBuffers) {
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.executor = MoreExecutors.listeningDecorator(checkNotNull(executor, "executor"));
+      checkArgument(maxBuffers > 0, "maxBuffers must be positive");
+      this.maxBuffers = maxBuffers;
+   }
+
+   /**
+    * Reads {@code contentLength} bytes from {@code is}, sliced according to {@code algorithm}, and
+    * uploads them as parts of {@code mpu}.  The caller remains responsible for completing or
+    * aborting the upload.
+    *
+    * @return the uploaded parts in part number order
+    */
+   public List<MultipartPart> upload(MultipartUpload mpu, InputStream is, long contentLength,
+         MultipartUploadSlicingAlgorithm algorithm) {
+      long partSize = algorithm.calculateChunkSize(contentLength);
+      List<Long> partLengths = new ArrayList<Long>();
+      for (int i = 0; i < algorithm.getParts(); i++) {
+         partLengths.add(partSize);
+      }
+      if (algorithm.getRemaining() != 0) {
+         partLengths.add(algorithm.getRemaining());
+      }
+
+      BufferPool pool = new BufferPool((int) Math.min(Math.max(partSize, algorithm.getRemaining()), MAX_BUFFER_SIZE));
+      AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      List<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      boolean success = false;
+      try {
+         int partNumber = 1;
+         for (long length : partLengths) {
+            if (length > MAX_BUFFER_SIZE) {
+               parts.add(Futures.immediateFuture(blobStore.uploadMultipartPart(mpu, partNumber++,
+                     unbufferedSlice(is, length))));
+               continue;
+            }
+            byte[] buffer = pool.acquire();
+            if (failure.get() != null) {
+               break;
+            }
+            int read = ByteStreams.read(is, buffer, 0, (int) length);
+            if (read != length) {
+               throw new EOFException(String.format("expected %d bytes for part %d but stream ended after %d",
+                     length, partNumber, read));
+            }
+            parts.add(executor.submit(new PartUploader(mpu, partNumber++, buffer, (int) length, pool, failure)));
+         }
+         List<MultipartPart> result = Futures.getUnchecked(Futures.allAsList(parts));
+         success = true;
+         return result;
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } finally {
+         if (!success) {
+            for (ListenableFuture<MultipartPart> part : parts) {
+               part.cancel(true);
+            }
+         }
+      }
+   }
+
+   private static Payload unbufferedSlice(InputStream is, long length) {
+      Payload slice = Payloads.newInputStreamPayload(ByteStreams.limit(new FilterInputStream(is) {
+         @Override
+         public void close() throws IOException {
+            // the caller owns the underlying stream
+         }
+      }, length));
+      slice.getContentMetadata().setContentLength(length);
+      return slice;
+   }
+
+   private final class PartUploader implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final byte[] buffer;
+      private final int length;
+      private final BufferPool pool;
+      private final AtomicReference<Throwable> failure;
+
+      PartUploader(MultipartUpload mpu, int partNumber, byte[] buffer, int length, BufferPool pool,
+            AtomicReference<Throwable> failure) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.buffer = buffer;
+         this.length = length;
+         this.pool = pool;
+         this.failure = failure;
+      }
+
+      @Override
+      public MultipartPart call() {
+         // released here rather than when the future completes, as cancelling it does not stop the
+         // upload reading the buffer
+         try {
+            Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(buffer).slice(0, length));
+            payload.getContentMetadata().setContentLength((long) length);
+            return blobStore.uploadMultipartPart(mpu, partNumber, payload);
+         } catch (Throwable t) {
+            // record the failure before waking up the reader
+            failure.compareAndSet(null, t);
+            throw Throwables.propagate(t);
+         } finally {
+            pool.release(buffer);
+         }
+      }
+   }
+
+   /** Lazily allocates up to {@code maxBuffers} equally sized buffers and blocks once all are in use. */
+   private final class BufferPool {
+      private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<byte[]>(maxBuffers);
+      private final int bufferSize;
+      private int allocated;
+
+      BufferPool(int bufferSize) {
+         this.bufferSize = bufferSize;
+      }
+
+      byte[] acquire() throws InterruptedException {
+         byte[] buffer = free.poll();
+         if (buffer != null) {
+            return buffer;
+         }
+         if (allocated < maxBuffers) {
+            allocated++;
+            return new byte[bufferSize];
+         }
+         return free.take();
+      }
+
+      void release(byte[] buffer) {
+         free.add(buffer);
+      }
+   }
+}
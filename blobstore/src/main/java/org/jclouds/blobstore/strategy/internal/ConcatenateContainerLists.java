@@ -18,29 +18,52 @@ package org.jclouds.blobstore.strategy.internal;
 
 import java.util.List;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions.ImmutableListContainerOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
 import org.jclouds.blobstore.strategy.ListContainerStrategy;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.IterableWithMarkers;
+import org.jclouds.collect.PagedIterables;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
 /**
  * Retrieves all metadata in the blobstore by the most efficient means possible.
+ * <p/>
+ * When {@link BlobStoreConstants#PROPERTY_LIST_PREFETCH} is set, the listing returned is lazy: the
+ * first page is listed before returning, and the next pages are listed by the user executor while
+ * the previous ones are iterated.
  */
 @Singleton
 public class ConcatenateContainerLists implements ListContainerStrategy {
 
    protected final BlobStore connection;
 
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_USER_THREADS)
+   @VisibleForTesting
+   ListeningExecutorService userExecutor;
+
+   @Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_LIST_PREFETCH)
+   @VisibleForTesting
+   int prefetch = 0;
+
    @Inject
    public ConcatenateContainerLists(BlobStore connection) {
       this.connection = connection;
@@ -48,6 +71,8 @@ public class ConcatenateContainerLists implements ListContainerStrategy {
 
    @Override
    public Iterable<? extends StorageMetadata> execute(String container, ListContainerOptions options) {
+      if (prefetch > 0 && userExecutor != null)
+         return prefetchPages(container, options);
       try {
          boolean truncated = true;
          List<PageSet<? extends StorageMetadata>> listings = Lists.newArrayList();
@@ -63,9 +88,40 @@ public class ConcatenateContainerLists implements ListContainerStrategy {
          }
          return Iterables.concat(listings);
       } catch (Exception e) {
-         Throwables.propagateIfPossible(e, BlobRuntimeException.class);
-         throw new BlobRuntimeException("Error getting resource metadata in container: "
-                  + container, e);
+         throw propagate(container, e);
+      }
+   }
+
+   private Iterable<? extends StorageMetadata> prefetchPages(final String container,
+         final ListContainerOptions options) {
+      // pages are listed in other threads, so each gets its own options
+      return PagedIterables.prefetch(PagedIterables.advance(list(container, options.clone()),
+            new Function<Object, IterableWithMarker<StorageMetadata>>() {
+               @Override
+               public IterableWithMarker<StorageMetadata> apply(Object marker) {
+                  return list(container, options.clone().afterMarker(marker.toString()));
+               }
+
+               @Override
+               public String toString() {
+                  return "list(" + container + ", " + options + ")";
+               }
+            }), userExecutor, prefetch).concat();
+   }
+
+   private IterableWithMarker<StorageMetadata> list(String container, ListContainerOptions options) {
+      try {
+         PageSet<? extends StorageMetadata> listing = connection.list(container, options);
+         return IterableWithMarkers.from(Iterables.<StorageMetadata> unmodifiableIterable(listing),
+               listing.getNextMarker());
+      } catch (Exception e) {
+         throw propagate(container, e);
       }
    }
+
+   private static RuntimeException propagate(String container, Exception e) {
+      Throwables.propagateIfPossible(e, BlobRuntimeException.class);
+      throw new BlobRuntimeException("Error getting resource metadata in container: "
+               + container, e);
+   }
 }
@@ -18,8 +18,10 @@ package org.jclouds.blobstore.strategy.internal;
 
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Semaphore;
@@ -36,6 +38,7 @@ import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
@@ -76,6 +79,9 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
    /** Maximum parallel deletes. */
    private int maxParallelDeletes;
 
+   /** Maximum blobs deleted by one request. */
+   private int maxDeletesPerRequest = 1;
+
    @Inject
    DeleteAllKeysInList(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executorService,
          BlobStore blobStore, BackoffLimitedRetryHandler retryHandler,
@@ -96,6 +102,12 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       this.maxErrors = maxErrors;
    }
 
+   @Inject(optional = true)
+   void setMaxDeletesPerRequest(
+         @Named(BlobStoreConstants.PROPERTY_MAX_DELETES_PER_REQUEST) int maxDeletesPerRequest) {
+      this.maxDeletesPerRequest = maxDeletesPerRequest;
+   }
+
    public void execute(String containerName) {
       execute(containerName, recursive());
    }
@@ -224,22 +236,26 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          final AtomicBoolean deleteFailure,
          final Set<ListenableFuture<Void>> outstandingFutures)
          throws TimeoutException {
+      List<String> batch = new ArrayList<String>();
       for (final StorageMetadata md : listing) {
          final String fullPath = parentIsFolder(options, md) ? options.getDir()
                + "/" + md.getName() : md.getName();
 
-         // Attempt to acquire a semaphore within the time limit. At least
-         // one outstanding future should complete within this period for the
-         // semaphore to be acquired.
-         try {
-            if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
-               throw new TimeoutException("Timeout waiting for semaphore");
+         // Blobs are deleted maxDeletesPerRequest at a time, each batch
+         // holding a single semaphore permit.
+         if (maxDeletesPerRequest > 1 && md.getType() == StorageType.BLOB) {
+            batch.add(fullPath);
+            if (batch.size() == maxDeletesPerRequest) {
+               acquirePermit(semaphore);
+               track(removeBlobs(containerName, batch), semaphore,
+                     deleteFailure, outstandingFutures);
+               batch = new ArrayList<String>();
             }
-         } catch (InterruptedException ie) {
-            logger.debug("Interrupted while deleting blobs");
-            Thread.currentThread().interrupt();
+            continue;
          }
 
+         acquirePermit(semaphore);
+
          final ListenableFuture<Void> blobDelFuture;
          switch (md.getType()) {
          case FOLDER:
@@ -262,32 +278,8 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
             blobDelFuture = null;
          }
 
-         // If a future to delete a blob/directory actually got created above,
-         // keep a reference of that in the outstandingFutures list. This is
-         // useful in case of a timeout exception. All outstanding futures can
-         // then be cancelled.
          if (blobDelFuture != null) {
-            outstandingFutures.add(blobDelFuture);
-
-            // Add a callback to release the semaphore. This is required for
-            // other threads waiting to acquire a semaphore above to make
-            // progress.
-            Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
-               @Override
-               public void onSuccess(final Object o) {
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
-
-               @Override
-               public void onFailure(final Throwable t) {
-                  // Make a note the fact that some blob/directory could not be
-                  // deleted successfully. This is used for retrying later.
-                  deleteFailure.set(true);
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
-            }, MoreExecutors.directExecutor());
+            track(blobDelFuture, semaphore, deleteFailure, outstandingFutures);
          } else {
             // It is possible above to acquire a semaphore but not submit any
             // task to the executorService. For e.g. if the listing contains
@@ -298,6 +290,83 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
             semaphore.release();
          }
       }
+
+      if (!batch.isEmpty()) {
+         acquirePermit(semaphore);
+         track(removeBlobs(containerName, batch), semaphore, deleteFailure,
+               outstandingFutures);
+      }
+   }
+
+   /**
+    * Attempt to acquire a semaphore within the time limit. At least one
+    * outstanding future should complete within this period for the semaphore
+    * to be acquired.
+    */
+   private void acquirePermit(final Semaphore semaphore)
+         throws TimeoutException {
+      try {
+         if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timeout waiting for semaphore");
+         }
+      } catch (InterruptedException ie) {
+         logger.debug("Interrupted while deleting blobs");
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Removes the blobs with one {@link BlobStore#removeBlobs} call. If it
+    * fails, for instance because the provider has no batch delete or only
+    * deleted some of the blobs, each blob is removed on its own.
+    */
+   private ListenableFuture<Void> removeBlobs(final String containerName,
+         final List<String> names) {
+      return executorService.submit(new Callable<Void>() {
+         @Override
+         public Void call() {
+            try {
+               blobStore.removeBlobs(containerName, names);
+            } catch (RuntimeException e) {
+               logger.debug("Error deleting %d blobs from %s, deleting them one at a time: %s",
+                     names.size(), containerName, e.getMessage());
+               for (String name : names) {
+                  blobStore.removeBlob(containerName, name);
+               }
+            }
+            return null;
+         }
+      });
+   }
+
+   /**
+    * Keeps a reference of the future in the outstandingFutures set, so that
+    * it can be cancelled in case of a timeout, until it completes.
+    */
+   private void track(final ListenableFuture<Void> blobDelFuture,
+         final Semaphore semaphore, final AtomicBoolean deleteFailure,
+         final Set<ListenableFuture<Void>> outstandingFutures) {
+      outstandingFutures.add(blobDelFuture);
+
+      // Add a callback to release the semaphore. This is required for
+      // other threads waiting to acquire a semaphore above to make
+      // progress.
+      Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(final Object o) {
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+
+         @Override
+         public void onFailure(final Throwable t) {
+            // Make a note the fact that some blob/directory could not be
+            // deleted successfully. This is used for retrying later.
+            deleteFailure.set(true);
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+      }, MoreExecutors.directExecutor());
    }
 
    /**
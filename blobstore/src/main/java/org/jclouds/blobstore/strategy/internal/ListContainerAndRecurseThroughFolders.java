@@ -17,29 +17,45 @@
 package org.jclouds.blobstore.strategy.internal;
 
 import static com.google.common.collect.Iterables.concat;
-import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.reverse;
 import static com.google.common.collect.Sets.newLinkedHashSet;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.inject.Singleton;
 
 import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.strategy.ListBlobsInContainer;
 import org.jclouds.blobstore.strategy.ListContainerStrategy;
 
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 
 /**
  * Retrieves all blobs in the blobstore by the most efficient means possible.
+ * <p/>
+ * When listing recursively with {@link ListContainerOptions#maxConcurrency(int)} above 1, up to
+ * that many folders are listed at the same time, by threads of the listing. These are not user
+ * threads, as listing a folder may wait for the user executor, for instance to prefetch its pages.
+ * The blobs are returned in the same order either way.
  */
 @Singleton
 public class ListContainerAndRecurseThroughFolders implements ListBlobsInContainer {
@@ -53,29 +69,101 @@ public class ListContainerAndRecurseThroughFolders implements ListBlobsInContain
 
    @Override
    public Set<? extends BlobMetadata> execute(final String containerName, final ListContainerOptions options) {
+      if (options.isRecursive() && options.getMaxConcurrency() > 1)
+         return executeConcurrently(containerName, options);
+      Folder folder = new Folder(options).list(containerName);
       final List<Iterable<? extends BlobMetadata>> lists = newArrayList();
-      Iterable<? extends StorageMetadata> pwdList = lister.execute(containerName, options);
-      for (StorageMetadata md : filter(pwdList, new Predicate<StorageMetadata>() {
-         @Override
-         public boolean apply(StorageMetadata input) {
-            return (input.getType() == StorageType.FOLDER || input.getType() == StorageType.RELATIVE_PATH)
-                     && options.isRecursive();
+      for (Folder subfolder : folder.subfolders)
+         lists.add(execute(containerName, subfolder.options));
+      lists.add(folder.blobs);
+      return newLinkedHashSet(concat(lists));
+   }
+
+   private Set<? extends BlobMetadata> executeConcurrently(String containerName, ListContainerOptions options) {
+      int maxConcurrency = options.getMaxConcurrency();
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(newFixedThreadPool(maxConcurrency,
+            new ThreadFactoryBuilder().setNameFormat("list " + containerName + " %d").setDaemon(true).build()));
+      BlockingQueue<ListenableFuture<Folder>> listed = new LinkedBlockingQueue<ListenableFuture<Folder>>();
+      List<ListenableFuture<Folder>> running = newArrayList();
+      Deque<Folder> pending = new ArrayDeque<Folder>();
+      Folder root = new Folder(options);
+      pending.add(root);
+      try {
+         while (!pending.isEmpty() || !running.isEmpty()) {
+            while (running.size() < maxConcurrency && !pending.isEmpty())
+               running.add(submit(executor, containerName, pending.poll(), listed));
+            ListenableFuture<Folder> next = listed.take();
+            running.remove(next);
+            // depth first, so that folders listed earlier complete earlier
+            for (Folder subfolder : reverse(next.get().subfolders))
+               pending.push(subfolder);
          }
-      })) {
-         String directory = (options.getDir() != null) ? options.getDir() + "/" + md.getName() : md.getName();
-         lists.add(execute(containerName, options.clone().inDirectory(directory)));
+      } catch (InterruptedException e) {
+         cancel(running);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         cancel(running);
+         Throwables.propagateIfPossible(e.getCause(), BlobRuntimeException.class);
+         throw new BlobRuntimeException("Error listing container: " + containerName, e.getCause());
+      } finally {
+         executor.shutdown();
       }
-      lists.add(transform(filter(pwdList, new Predicate<StorageMetadata>() {
+      Set<BlobMetadata> blobs = newLinkedHashSet();
+      addBlobs(root, blobs);
+      return blobs;
+   }
+
+   private ListenableFuture<Folder> submit(ListeningExecutorService executor, final String containerName,
+         final Folder folder, final BlockingQueue<ListenableFuture<Folder>> listed) {
+      final ListenableFuture<Folder> future = executor.submit(new Callable<Folder>() {
          @Override
-         public boolean apply(StorageMetadata input) {
-            return input.getType() == StorageType.BLOB;
+         public Folder call() {
+            return folder.list(containerName);
          }
-      }), new Function<StorageMetadata, BlobMetadata>() {
+      });
+      future.addListener(new Runnable() {
          @Override
-         public BlobMetadata apply(StorageMetadata from) {
-            return (BlobMetadata) from;
+         public void run() {
+            listed.add(future);
          }
-      }));
-      return newLinkedHashSet(concat(lists));
+      }, MoreExecutors.directExecutor());
+      return future;
+   }
+
+   /** Blobs of the subfolders first, as when listing one folder at a time. */
+   private static void addBlobs(Folder folder, Collection<BlobMetadata> blobs) {
+      for (Folder subfolder : folder.subfolders)
+         addBlobs(subfolder, blobs);
+      blobs.addAll(folder.blobs);
+   }
+
+   private static void cancel(List<ListenableFuture<Folder>> running) {
+      for (ListenableFuture<Folder> future : running)
+         future.cancel(true);
+   }
+
+   private final class Folder {
+      private final ListContainerOptions options;
+      private final List<Folder> subfolders = newArrayList();
+      private final List<BlobMetadata> blobs = newArrayList();
+
+      private Folder(ListContainerOptions options) {
+         this.options = options;
+      }
+
+      private Folder list(String containerName) {
+         // iterate the listing once, as it may list pages lazily
+         for (StorageMetadata md : lister.execute(containerName, options)) {
+            if ((md.getType() == StorageType.FOLDER || md.getType() == StorageType.RELATIVE_PATH)
+                     && options.isRecursive()) {
+               String directory = (options.getDir() != null) ? options.getDir() + "/" + md.getName() : md.getName();
+               subfolders.add(new Folder(options.clone().inDirectory(directory)));
+            } else if (md.getType() == StorageType.BLOB) {
+               blobs.add((BlobMetadata) md);
+            }
+         }
+         return this;
+      }
    }
 }
@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Downloads a blob as a series of ranged GETs issued in parallel on an executor.
+ * <p/>
+ * {@link #download} writes every range at its offset in a preallocated temporary file
+ * which replaces the destination once all ranges succeed.  {@link #stream} returns an
+ * ordered {@link InputStream} which keeps a bounded window of ranges in flight, so memory
+ * use is limited to roughly {@code (prefetchRanges + 1) * rangeSize}.
+ */
+@Beta
+public final class ParallelRangeDownloader {
+   /**
+    * Smallest range requested, so that stores whose minimum part size is a single byte do
+    * not issue one request per byte.
+    */
+   public static final long MINIMUM_RANGE_SIZE = 1024 * 1024;
+   public static final int DEFAULT_PREFETCH_RANGES = 4;
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final BlobStore blobStore;
+   private final ListeningExecutorService executor;
+   private final long rangeSize;
+   private final int maxRetries;
+
+   public ParallelRangeDownloader(BlobStore blobStore, ExecutorService executor, long rangeSize, int maxRetries) {
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.executor = MoreExecutors.listeningDecorator(checkNotNull(executor, "executor"));
+      checkArgument(rangeSize > 0, "rangeSize must be positive");
+      this.rangeSize = Math.max(rangeSize, MINIMUM_RANGE_SIZE);
+      checkArgument(maxRetries >= 0, "maxRetries must not be negative");
+      this.maxRetries = maxRetries;
+   }
+
+   public long getRangeSize() {
+      return rangeSize;
+   }
+
+   public void download(String container, String name, File destination) {
+      long contentLength = getContentLength(container, name);
+      File tempFile = new File(destination + "." + UUID.randomUUID());
+      RandomAccessFile raf = null;
+      List<ListenableFuture<Void>> results = new ArrayList<ListenableFuture<Void>>();
+      try {
+         raf = new RandomAccessFile(tempFile, "rw");
+         // Reserve space up front so that ranges can complete in any order
+         raf.setLength(contentLength);
+         FileChannel channel = raf.getChannel();
+         for (long from = 0; from < contentLength; from += rangeSize) {
+            long to = Math.min(from + rangeSize, contentLength) - 1;
+            results.add(executor.submit(new RangeToFile(container, name, from, to, channel)));
+         }
+         Futures.getUnchecked(Futures.allAsList(results));
+
+         channel.force(true);
+         raf.close();
+         raf = null;
+         Files.move(tempFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         tempFile = null;
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } finally {
+         // no-op on success; stops the remaining ranges when one of them failed
+         for (ListenableFuture<Void> result : results) {
+            result.cancel(true);
+         }
+         Closeables2.closeQuietly(raf);
+         if (tempFile != null) {
+            tempFile.delete();
+         }
+      }
+   }
+
+   public InputStream stream(String container, String name, int prefetchRanges) {
+      checkArgument(prefetchRanges > 0, "prefetchRanges must be positive");
+      checkArgument(rangeSize <= Integer.MAX_VALUE, "rangeSize %s too large to buffer", rangeSize);
+      return new RangeInputStream(container, name, getContentLength(container, name), prefetchRanges);
+   }
+
+   private long getContentLength(String container, String name) {
+      BlobMetadata metadata = blobStore.blobMetadata(container, name);
+      if (metadata == null) {
+         throw new KeyNotFoundException(container, name, "while downloading");
+      }
+      Long contentLength = metadata.getContentMetadata().getContentLength();
+      checkState(contentLength != null, "unknown content length for %s/%s", container, name);
+      return contentLength;
+   }
+
+   /** Fetches the inclusive range [begin, end], retrying I/O errors which occur while reading the body. */
+   private abstract class RangeTask<T> implements Callable<T> {
+      protected final String container;
+      protected final String name;
+      protected final long begin;
+      protected final long end;
+
+      RangeTask(String container, String name, long begin, long end) {
+         this.container = container;
+         this.name = name;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      @Override
+      public T call() throws IOException {
+         IOException lastException = null;
+         for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            Blob blob = blobStore.getBlob(container, name, GetOptions.Builder.range(begin, end));
+            if (blob == null) {
+               throw new KeyNotFoundException(container, name, "while downloading range " + begin + "-" + end);
+            }
+            InputStream is = null;
+            try {
+               is = blob.getPayload().openStream();
+               return read(is);
+            } catch (IOException ioe) {
+               if (Thread.currentThread().isInterrupted()) {
+                  throw ioe;
+               }
+               lastException = ioe;
+            } finally {
+               Closeables2.closeQuietly(is);
+            }
+         }
+         throw lastException;
+      }
+
+      protected abstract T read(InputStream is) throws IOException;
+
+      protected final IOException unexpectedLength(long received) {
+         return new IOException(String.format("expected %d bytes for range %d-%d of %s/%s but received %d",
+               end - begin + 1, begin, end, container, name, received));
+      }
+   }
+
+   private final class RangeToFile extends RangeTask<Void> {
+      private final FileChannel channel;
+
+      RangeToFile(String container, String name, long begin, long end, FileChannel channel) {
+         super(container, name, begin, end);
+         this.channel = channel;
+      }
+
+      @Override
+      protected Void read(InputStream is) throws IOException {
+         byte[] buffer = new byte[BUFFER_SIZE];
+         long position = begin;
+         int read;
+         while ((read = is.read(buffer)) != -1) {
+            if (position + read > end + 1) {
+               throw unexpectedLength(position + read - begin);
+            }
+            // positional writes do not touch the shared channel position
+            ByteBuffer bb = ByteBuffer.wrap(buffer, 0, read);
+            while (bb.hasRemaining()) {
+               position += channel.write(bb, position);
+            }
+         }
+         if (position != end + 1) {
+            throw unexpectedLength(position - begin);
+         }
+         return null;
+      }
+   }
+
+   private final class RangeToArray extends RangeTask<byte[]> {
+      RangeToArray(String container, String name, long begin, long end) {
+         super(container, name, begin, end);
+      }
+
+      @Override
+      protected byte[] read(InputStream is) throws IOException {
+         byte[] buffer = new byte[Ints.checkedCast(end - begin + 1)];
+         int read = ByteStreams.read(is, buffer, 0, buffer.length);
+         if (read != buffer.length || is.read() != -1) {
+            throw unexpectedLength(read);
+         }
+         return buffer;
+      }
+   }
+
+   /** Returns ranges in order while keeping up to {@code prefetchRanges} of the following ranges in flight. */
+   private final class RangeInputStream extends InputStream {
+      private final String container;
+      private final String name;
+      private final long contentLength;
+      private final int prefetchRanges;
+      private final Deque<ListenableFuture<byte[]>> inFlight = new ArrayDeque<ListenableFuture<byte[]>>();
+      private long nextOffset;
+      private byte[] current;
+      private int position;
+      private boolean closed;
+
+      RangeInputStream(String container, String name, long contentLength, int prefetchRanges) {
+         this.container = container;
+         this.name = name;
+         this.contentLength = contentLength;
+         this.prefetchRanges = prefetchRanges;
+         submitRanges();
+      }
+
+      private void submitRanges() {
+         while (inFlight.size() < prefetchRanges && nextOffset < contentLength) {
+            long end = Math.min(nextOffset + rangeSize, contentLength) - 1;
+            inFlight.add(executor.submit(new RangeToArray(container, name, nextOffset, end)));
+            nextOffset = end + 1;
+         }
+      }
+
+      /** @return false at the end of the blob */
+      private boolean ensureCurrent() throws IOException {
+         if (closed) {
+            throw new IOException("stream closed");
+         }
+         while (current == null || position == current.length) {
+            ListenableFuture<byte[]> next = inFlight.poll();
+            if (next == null) {
+               return false;
+            }
+            submitRanges();
+            try {
+               current = next.get();
+            } catch (InterruptedException ie) {
+               Thread.currentThread().interrupt();
+               close();
+               throw new InterruptedIOException("interrupted while downloading " + container + "/" + name);
+            } catch (ExecutionException ee) {
+               close();
+               Throwables.propagateIfPossible(ee.getCause(), IOException.class);
+               throw new IOException(ee.getCause());
+            }
+            position = 0;
+         }
+         return true;
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (!ensureCurrent()) {
+            return -1;
+         }
+         return current[position++] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0) {
+            return 0;
+         }
+         if (!ensureCurrent()) {
+            return -1;
+         }
+         int n = Math.min(len, current.length - position);
+         System.arraycopy(current, position, b, off, n);
+         position += n;
+         return n;
+      }
+
+      @Override
+      public int available() {
+         return current == null ? 0 : current.length - position;
+      }
+
+      @Override
+      public void close() {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         current = null;
+         for (ListenableFuture<byte[]> future : inFlight) {
+            future.cancel(true);
+         }
+         inFlight.clear();
+      }
+   }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.LocalStorageStrategy.SortedKeyIterator;
+import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "TransientStorageStrategyTest")
+public class TransientStorageStrategyTest {
+   private static final String CONTAINER_NAME = "container";
+
+   private BlobStoreContext context;
+   private LocalStorageStrategy storageStrategy;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      storageStrategy = context.utils().injector().getInstance(LocalStorageStrategy.class);
+      BlobStore blobStore = context.getBlobStore();
+      storageStrategy.createContainerInLocation(CONTAINER_NAME, null, CreateContainerOptions.NONE);
+      for (String name : new String[] { "a/b", "a/\uFFFF", "a/\uFFFF/c", "a0", "b\uFFFF\uFFFF", "b\uFFFF\uFFFFc" }) {
+         storageStrategy.putBlob(CONTAINER_NAME, blobStore.blobBuilder(name).payload("").build());
+      }
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      context.close();
+   }
+
+   public void testSkipKeysWithPrefix() throws Exception {
+      SortedKeyIterator keys = storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, null, null);
+      assertEquals(keys.next(), "a/b");
+      keys.skipKeysWithPrefix("a/");
+      assertEquals(keys.next(), "a0");
+      assertEquals(keys.next(), "b\uFFFF\uFFFF");
+      keys.skipKeysWithPrefix("b\uFFFF\uFFFF");
+      assertFalse(keys.hasNext());
+   }
+
+   public void testSkipKeysWithPrefixAfterHasNext() throws Exception {
+      SortedKeyIterator keys = storageStrategy.getSortedBlobKeysInsideContainer(CONTAINER_NAME, "a", null);
+      assertEquals(keys.next(), "a/b");
+      keys.hasNext();
+      keys.skipKeysWithPrefix("a/");
+      assertEquals(keys.next(), "a0");
+      assertFalse(keys.hasNext());
+   }
+}
@@ -18,6 +18,7 @@ package org.jclouds.blobstore.options;
 
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.afterMarker;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.inDirectory;
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.maxConcurrency;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.maxResults;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 import static org.testng.Assert.assertEquals;
@@ -130,4 +131,24 @@ public class ListOptionsTest {
    public void testMaxResultsNegative() {
       maxResults(-1);
    }
+
+   @Test
+   public void testMaxConcurrency() {
+      ListContainerOptions options = new ListContainerOptions();
+      assertEquals(options.getMaxConcurrency(), 1);
+      options.maxConcurrency(8);
+      assertEquals(options.getMaxConcurrency(), 8);
+      assertEquals(options.clone().getMaxConcurrency(), 8);
+   }
+
+   @Test
+   public void testMaxConcurrencyStatic() {
+      ListContainerOptions options = maxConcurrency(8);
+      assertEquals(options.getMaxConcurrency(), 8);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testMaxConcurrencyZero() {
+      maxConcurrency(0);
+   }
 }
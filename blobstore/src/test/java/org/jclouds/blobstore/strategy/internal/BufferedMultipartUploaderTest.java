@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.io.Payload;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(testName = "BufferedMultipartUploaderTest", singleThreaded = true)
+public class BufferedMultipartUploaderTest {
+   private static final String containerName = "container";
+   private static final int partSize = 1000;
+
+   private BlobStore blobstore;
+   private ExecutorService executor;
+
+   @BeforeClass
+   void setupBlobStore() {
+      blobstore = ContextBuilder.newBuilder("transient").buildView(BlobStoreContext.class).getBlobStore();
+      blobstore.createContainerInLocation(null, containerName);
+      executor = Executors.newFixedThreadPool(8);
+   }
+
+   @AfterClass
+   void close() {
+      executor.shutdownNow();
+      if (blobstore != null)
+         Closeables2.closeQuietly(blobstore.getContext());
+   }
+
+   private static MultipartUploadSlicingAlgorithm newAlgorithm() {
+      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(1, 1024 * 1024, 10000);
+      algorithm.defaultPartSize = partSize;
+      return algorithm;
+   }
+
+   private MultipartUpload initiate(BlobStore store, String name) {
+      return store.initiateMultipartUpload(containerName, blobstore.blobBuilder(name).build().getMetadata(),
+            PutOptions.NONE);
+   }
+
+   public void testUploadsAllPartsInOrder() throws IOException {
+      byte[] content = new byte[10 * partSize + 123];
+      new Random(7).nextBytes(content);
+      ConcurrencyTrackingBlobStore store = new ConcurrencyTrackingBlobStore(blobstore, -1);
+      MultipartUpload mpu = initiate(store, "blob");
+
+      List<MultipartPart> parts = new BufferedMultipartUploader(store, executor, 3)
+            .upload(mpu, new ByteArrayInputStream(content), content.length, newAlgorithm());
+      assertEquals(parts.size(), 11);
+      for (int i = 0; i < parts.size(); i++) {
+         assertEquals(parts.get(i).partNumber(), i + 1);
+      }
+      assertTrue(store.maxConcurrent.get() <= 3, "concurrent uploads: " + store.maxConcurrent.get());
+      store.completeMultipartUpload(mpu, parts);
+
+      Blob blob = blobstore.getBlob(containerName, "blob");
+      InputStream is = blob.getPayload().openStream();
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testFailedPartStopsReading() {
+      byte[] content = new byte[100 * partSize];
+      ConcurrencyTrackingBlobStore store = new ConcurrencyTrackingBlobStore(blobstore, 2);
+      ByteArrayInputStream is = new ByteArrayInputStream(content);
+      MultipartUpload mpu = initiate(store, "failed");
+      try {
+         new BufferedMultipartUploader(store, executor, 2).upload(mpu, is, content.length, newAlgorithm());
+         fail("expected failure");
+      } catch (RuntimeException expected) {
+         assertTrue(is.available() > 0, "stream should not have been consumed");
+      } finally {
+         store.abortMultipartUpload(mpu);
+      }
+   }
+
+   @Test(expectedExceptions = RuntimeException.class)
+   public void testShortStream() {
+      MultipartUpload mpu = initiate(blobstore, "short");
+      try {
+         new BufferedMultipartUploader(blobstore, executor, 2).upload(mpu,
+               new ByteArrayInputStream(new byte[partSize]), 2 * partSize + 1, newAlgorithm());
+      } finally {
+         blobstore.abortMultipartUpload(mpu);
+      }
+   }
+
+   private static final class ConcurrencyTrackingBlobStore extends ForwardingBlobStore {
+      private final AtomicInteger concurrent = new AtomicInteger();
+      private final AtomicInteger maxConcurrent = new AtomicInteger();
+      private final int failingPart;
+
+      ConcurrencyTrackingBlobStore(BlobStore blobStore, int failingPart) {
+         super(blobStore);
+         this.failingPart = failingPart;
+      }
+
+      @Override
+      public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+         int current = concurrent.incrementAndGet();
+         try {
+            int max;
+            while ((max = maxConcurrent.get()) < current && !maxConcurrent.compareAndSet(max, current)) {
+               // retry
+            }
+            Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+            if (partNumber == failingPart) {
+               throw new IllegalStateException("failing part " + partNumber);
+            }
+            return super.uploadMultipartPart(mpu, partNumber, payload);
+         } finally {
+            concurrent.decrementAndGet();
+         }
+      }
+   }
+}
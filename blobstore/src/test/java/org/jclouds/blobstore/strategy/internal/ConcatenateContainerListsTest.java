@@ -28,6 +28,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Injector;
 
 @Test(testName = "ConcatenateContainerListsTest", singleThreaded = true)
@@ -67,6 +68,18 @@ public class ConcatenateContainerListsTest {
       assertEquals(Iterables.size(listing), 2002);
    }
 
+   public void testLargerThanOnePagePrefetching() {
+      blobstore.createContainerInLocation(null, "prefetched");
+      for (int i = 0; i < 2501; i++) {
+         blobstore.putBlob("prefetched", blobstore.blobBuilder(i + "").payload(i + "").build());
+      }
+      ConcatenateContainerLists prefetcher = new ConcatenateContainerLists(blobstore);
+      prefetcher.userExecutor = MoreExecutors.newDirectExecutorService();
+      prefetcher.prefetch = 2;
+      Iterable<? extends StorageMetadata> listing = prefetcher.execute("prefetched", new ListContainerOptions());
+      assertEquals(Iterables.size(listing), 2501);
+   }
+
    @AfterClass
    void close() {
       if (blobstore != null)
@@ -33,9 +33,11 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
+import org.jclouds.Constants;
 import org.jclouds.ContextBuilder;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.ContainerNotFoundException;
@@ -44,21 +46,26 @@ import org.jclouds.util.Closeables2;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
 
 @Test(testName = "DeleteAllKeysInListTest", singleThreaded = true)
 public class DeleteAllKeysInListTest {
    private BlobStore blobstore;
    private DeleteAllKeysInList deleter;
    private BackoffLimitedRetryHandler retryHandler;
+   private ListeningExecutorService userExecutor;
    private static final String containerName = "container";
    private static final String directoryName = "directory";
    private static final int maxParallelDeletes = 1024;
@@ -69,6 +76,8 @@ public class DeleteAllKeysInListTest {
             .buildInjector();
       blobstore = injector.getInstance(BlobStore.class);
       deleter = injector.getInstance(DeleteAllKeysInList.class);
+      userExecutor = injector.getInstance(Key.get(ListeningExecutorService.class,
+            Names.named(Constants.PROPERTY_USER_THREADS)));
       retryHandler = injector.getInstance(BackoffLimitedRetryHandler.class);
       createDataSet();
    }
@@ -98,6 +107,40 @@ public class DeleteAllKeysInListTest {
       assertEquals(blobstore.countBlobs(containerName), 1111);
    }
 
+   public void testExecuteInBatches() {
+      final AtomicInteger batches = new AtomicInteger();
+      BlobStore countingBlobStore = new ForwardingBlobStore(blobstore) {
+         @Override
+         public void removeBlobs(String container, Iterable<String> names) {
+            assertTrue(Iterables.size(names) <= 100);
+            batches.incrementAndGet();
+            super.removeBlobs(container, names);
+         }
+      };
+      DeleteAllKeysInList batchDeleter = new DeleteAllKeysInList(userExecutor, countingBlobStore, retryHandler,
+            maxParallelDeletes);
+      batchDeleter.setMaxDeletesPerRequest(100);
+
+      batchDeleter.execute(containerName, ListContainerOptions.Builder.inDirectory(directoryName));
+      assertEquals(blobstore.countBlobs(containerName), 1111);
+      assertEquals(batches.get(), 23);
+   }
+
+   public void testFailedBatchIsDeletedOneBlobAtATime() {
+      BlobStore noBatchBlobStore = new ForwardingBlobStore(blobstore) {
+         @Override
+         public void removeBlobs(String container, Iterable<String> names) {
+            throw new UnsupportedOperationException();
+         }
+      };
+      DeleteAllKeysInList batchDeleter = new DeleteAllKeysInList(userExecutor, noBatchBlobStore, retryHandler,
+            maxParallelDeletes);
+      batchDeleter.setMaxDeletesPerRequest(1000);
+
+      batchDeleter.execute(containerName);
+      assertEquals(blobstore.countBlobs(containerName), 0);
+   }
+
    public void testContainerNotFound() {
       IMocksControl mockControl = createControl();
       BlobStore blobStore = mockControl.createMock(BlobStore.class);
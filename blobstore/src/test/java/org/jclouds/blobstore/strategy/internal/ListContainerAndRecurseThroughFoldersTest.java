@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.strategy.ListContainerStrategy;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "ListContainerAndRecurseThroughFoldersTest")
+public class ListContainerAndRecurseThroughFoldersTest {
+
+   private static final Map<String, List<StorageMetadata>> TREE = ImmutableMap.<String, List<StorageMetadata>> builder()
+         .put("", ImmutableList.of(folder("a"), folder("b"), blob("root")))
+         .put("a", ImmutableList.of(blob("a/1"), folder("x")))
+         .put("a/x", ImmutableList.<StorageMetadata> of(blob("a/x/1")))
+         .put("b", ImmutableList.of(blob("b/1"), blob("b/2")))
+         .build();
+
+   private final ListeningExecutorService userExecutor = MoreExecutors.listeningDecorator(Executors
+         .newSingleThreadExecutor());
+
+   @AfterClass
+   void shutdown() {
+      userExecutor.shutdownNow();
+   }
+
+   public void testListsFoldersOneAfterTheOther() {
+      assertEquals(names(lister().execute("container", recursive())),
+            ImmutableList.of("a/x/1", "a/1", "b/1", "b/2", "root"));
+   }
+
+   public void testListsFoldersConcurrentlyInTheSameOrder() {
+      assertEquals(names(lister().execute("container", recursive().maxConcurrency(3))),
+            ImmutableList.of("a/x/1", "a/1", "b/1", "b/2", "root"));
+   }
+
+   public void testListsConcurrentlyOnlyWhenRecursive() {
+      assertEquals(names(lister().execute("container", new ListContainerOptions().maxConcurrency(3))),
+            ImmutableList.of("root"));
+   }
+
+   public void testConcurrentListingThrowsErrorOfFolder() {
+      ListContainerAndRecurseThroughFolders lister = new ListContainerAndRecurseThroughFolders(
+            new ListContainerStrategy() {
+               @Override
+               public Iterable<? extends StorageMetadata> execute(String containerName,
+                     ListContainerOptions options) {
+                  if ("b".equals(options.getDir()))
+                     throw new ContainerNotFoundException(containerName, "deleted");
+                  return TREE.get(options.getDir() == null ? "" : options.getDir());
+               }
+            });
+      try {
+         lister.execute("container", recursive().maxConcurrency(3));
+         fail();
+      } catch (ContainerNotFoundException e) {
+         assertEquals(e.getContainer(), "container");
+      }
+   }
+
+   @Test(timeOut = 10000)
+   public void testFoldersListedConcurrentlyMayWaitForTheUserExecutor() {
+      ListContainerAndRecurseThroughFolders lister = new ListContainerAndRecurseThroughFolders(
+            new ListContainerStrategy() {
+               @Override
+               public Iterable<? extends StorageMetadata> execute(String containerName,
+                     final ListContainerOptions options) {
+                  // as when prefetching pages
+                  return getUnchecked(userExecutor.submit(new Callable<List<StorageMetadata>>() {
+                     @Override
+                     public List<StorageMetadata> call() {
+                        return TREE.get(options.getDir() == null ? "" : options.getDir());
+                     }
+                  }));
+               }
+            });
+      assertEquals(names(lister.execute("container", recursive().maxConcurrency(3))),
+            ImmutableList.of("a/x/1", "a/1", "b/1", "b/2", "root"));
+   }
+
+   private ListContainerAndRecurseThroughFolders lister() {
+      ListContainerAndRecurseThroughFolders lister = new ListContainerAndRecurseThroughFolders(
+            new ListContainerStrategy() {
+               @Override
+               public Iterable<? extends StorageMetadata> execute(String containerName,
+                     ListContainerOptions options) {
+                  return TREE.get(options.getDir() == null ? "" : options.getDir());
+               }
+            });
+      return lister;
+   }
+
+   private static List<String> names(Iterable<? extends BlobMetadata> blobs) {
+      List<String> names = Lists.newArrayList();
+      for (BlobMetadata blob : blobs)
+         names.add(blob.getName());
+      return names;
+   }
+
+   private static StorageMetadata folder(String name) {
+      MutableStorageMetadataImpl folder = new MutableStorageMetadataImpl();
+      folder.setType(StorageType.FOLDER);
+      folder.setName(name);
+      return folder;
+   }
+
+   private static StorageMetadata blob(String name) {
+      MutableBlobMetadataImpl blob = new MutableBlobMetadataImpl();
+      blob.setName(name);
+      return blob;
+   }
+}
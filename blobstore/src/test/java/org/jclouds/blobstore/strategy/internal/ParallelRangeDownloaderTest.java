@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+@Test(testName = "ParallelRangeDownloaderTest", singleThreaded = true)
+public class ParallelRangeDownloaderTest {
+   private static final String containerName = "container";
+   private static final long rangeSize = ParallelRangeDownloader.MINIMUM_RANGE_SIZE;
+
+   private BlobStore blobstore;
+   private ExecutorService executor;
+   private ParallelRangeDownloader downloader;
+   private byte[] content;
+
+   @BeforeClass
+   void setupBlobStore() {
+      blobstore = ContextBuilder.newBuilder("transient").buildView(org.jclouds.blobstore.BlobStoreContext.class)
+            .getBlobStore();
+      executor = Executors.newFixedThreadPool(4);
+      downloader = new ParallelRangeDownloader(blobstore, executor, 1, 2);
+      blobstore.createContainerInLocation(null, containerName);
+
+      // several full ranges plus a partial one
+      content = new byte[(int) (3 * rangeSize + 12345)];
+      new Random(42).nextBytes(content);
+      blobstore.putBlob(containerName, blobstore.blobBuilder("blob").payload(content).build());
+      blobstore.putBlob(containerName, blobstore.blobBuilder("empty").payload(new byte[0]).build());
+   }
+
+   @AfterClass
+   void close() {
+      executor.shutdownNow();
+      if (blobstore != null)
+         Closeables2.closeQuietly(blobstore.getContext());
+   }
+
+   public void testRangeSizeHasFloor() {
+      assertEquals(downloader.getRangeSize(), rangeSize);
+   }
+
+   public void testDownload() throws IOException {
+      File destination = File.createTempFile("download", ".tmp");
+      try {
+         downloader.download(containerName, "blob", destination);
+         assertEquals(Files.toByteArray(destination), content);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testDownloadEmptyBlob() throws IOException {
+      File destination = File.createTempFile("download", ".tmp");
+      try {
+         Files.write(new byte[] { 1, 2, 3 }, destination);
+         downloader.download(containerName, "empty", destination);
+         assertEquals(destination.length(), 0);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testBlobStoreDownloadBlob() throws IOException {
+      File destination = File.createTempFile("download", ".tmp");
+      try {
+         blobstore.downloadBlob(containerName, "blob", destination);
+         assertEquals(Files.toByteArray(destination), content);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testDownloadMissingBlob() throws IOException {
+      downloader.download(containerName, "missing", new File("missing"));
+   }
+
+   public void testStream() throws IOException {
+      for (int prefetch : new int[] { 1, 2, ParallelRangeDownloader.DEFAULT_PREFETCH_RANGES, 10 }) {
+         InputStream is = downloader.stream(containerName, "blob", prefetch);
+         try {
+            assertEquals(ByteStreams.toByteArray(is), content);
+         } finally {
+            is.close();
+         }
+      }
+   }
+
+   public void testStreamSingleBytes() throws IOException {
+      InputStream is = downloader.stream(containerName, "blob", 2);
+      try {
+         for (int i = 0; i < content.length; i++) {
+            assertEquals(is.read(), content[i] & 0xFF);
+         }
+         assertEquals(is.read(), -1);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testStreamEmptyBlob() throws IOException {
+      InputStream is = blobstore.streamBlob(containerName, "empty");
+      try {
+         assertEquals(is.read(), -1);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testCloseBeforeEnd() throws IOException {
+      InputStream is = blobstore.streamBlob(containerName, "blob", executor);
+      assertEquals(is.read(), content[0] & 0xFF);
+      is.close();
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testStreamMissingBlob() {
+      downloader.stream(containerName, "missing", 1);
+   }
+}
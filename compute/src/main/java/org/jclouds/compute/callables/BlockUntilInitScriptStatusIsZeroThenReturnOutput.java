@@ -22,6 +22,7 @@ import static org.jclouds.util.Predicates2.retry;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -49,6 +50,10 @@ import com.google.inject.name.Named;
 
 /**
  * A future that works in tandem with a task that was invoked by {@link InitScript}
+ * <p/>
+ * When a scheduler is configured, by the
+ * {@link org.jclouds.concurrent.config.ScheduledExecutorServiceModule}, the status of the task is
+ * checked by the scheduler, once per period, instead of a user thread blocking until it completes.
  */
 public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFuture<ExecResponse> implements Runnable {
 
@@ -60,9 +65,16 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFu
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_SCHEDULER_THREADS)
+   @VisibleForTesting
+   ScheduledExecutorService scheduler;
+
    private final ListeningExecutorService userExecutor;
    private final EventBus eventBus;
    private final SudoAwareInitManager commandRunner;
+   private long initialPeriod = 500;
+   private long maxPeriod = 5000;
 
    public SudoAwareInitManager getCommandRunner() {
       return commandRunner;
@@ -75,6 +87,8 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFu
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, EventBus eventBus,
             ComputeServiceConstants.InitStatusProperties properties, @Assisted SudoAwareInitManager commandRunner) {
       this(userExecutor, eventBus, Predicates.<String> alwaysTrue(), commandRunner);
+      this.initialPeriod = properties.initStatusInitialPeriod;
+      this.maxPeriod = properties.initStatusMaxPeriod;
       // this is mutable only until we can determine how to decouple "this" from here
       notRunningAnymore = loopUntilTrueOrThrowCancellationException(new ExitStatusOfCommandGreaterThanZero(
                commandRunner), properties.initStatusMaxPeriod, properties.initStatusInitialPeriod, this);
@@ -121,10 +135,13 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFu
 
    /**
     * Submits a thread that will either set the result of the future or the exception that took
-    * place
+    * place, or schedules the first status check if a scheduler is configured
     */
    public BlockUntilInitScriptStatusIsZeroThenReturnOutput init() {
-      userExecutor.submit(this);
+      if (scheduler != null)
+         scheduler.schedule(new CheckStatus(initialPeriod), initialPeriod, MILLISECONDS);
+      else
+         userExecutor.submit(this);
       return this;
    }
 
@@ -134,19 +151,65 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFu
          ExecResponse exec = null;
          do {
             notRunningAnymore.apply("status");
-            String stdout = commandRunner.runAction("stdout").getOutput();
-            String stderr = commandRunner.runAction("stderr").getOutput();
-            Integer exitStatus = Ints.tryParse(commandRunner.runAction("exitstatus").getOutput().trim());
-            exec = new ExecResponse(stdout, stderr, exitStatus == null ? Integer.valueOf(-1) : exitStatus);
+            exec = output(false);
          } while (!isCancelled() && exec.getExitStatus() == -1);
-         logger.debug("<< complete(%s) status(%s)", commandRunner.getStatement().getInstanceName(), exec
-                  .getExitStatus());
-         set(exec);
+         complete(exec);
       } catch (Exception e) {
          setException(e);
       }
    }
 
+   /**
+    * Checks the status of the task once, then either completes the future or checks again after a
+    * longer period.
+    */
+   private final class CheckStatus implements Runnable {
+      private final long period;
+
+      private CheckStatus(long period) {
+         this.period = period;
+      }
+
+      @Override
+      public void run() {
+         if (isDone())
+            return;
+         try {
+            if (runAction("status", true).getExitStatus() > 0) {
+               ExecResponse exec = output(true);
+               if (exec.getExitStatus() != -1) {
+                  complete(exec);
+                  return;
+               }
+            }
+            long next = Math.min((long) (period * 1.5), maxPeriod);
+            scheduler.schedule(new CheckStatus(next), next, MILLISECONDS);
+         } catch (Exception e) {
+            setException(e);
+         }
+      }
+   }
+
+   private ExecResponse output(boolean reconnect) {
+      String stdout = runAction("stdout", reconnect).getOutput();
+      String stderr = runAction("stderr", reconnect).getOutput();
+      Integer exitStatus = Ints.tryParse(runAction("exitstatus", reconnect).getOutput().trim());
+      return new ExecResponse(stdout, stderr, exitStatus == null ? Integer.valueOf(-1) : exitStatus);
+   }
+
+   /**
+    * Checks on the scheduler reconnect each time, rather than hold a connection open per task.
+    */
+   private ExecResponse runAction(String action, boolean reconnect) {
+      return reconnect ? commandRunner.refreshAndRunAction(action) : commandRunner.runAction(action);
+   }
+
+   private void complete(ExecResponse exec) {
+      logger.debug("<< complete(%s) status(%s)", commandRunner.getStatement().getInstanceName(), exec
+               .getExitStatus());
+      set(exec);
+   }
+
    @Override
    protected boolean set(ExecResponse value) {
       eventBus.post(new StatementOnNodeCompletion(getCommandRunner().getStatement(), getCommandRunner().getNode(),
@@ -17,7 +17,13 @@
 package org.jclouds.compute.callables;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
@@ -33,6 +39,11 @@ import org.jclouds.ssh.SshClient;
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.assistedinject.Assisted;
 
 public class RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete extends RunScriptOnNodeAsInitScriptUsingSsh {
@@ -72,6 +83,66 @@ public class RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete extends Ru
       return statusFactory.create(this).init();
    }
 
+   /**
+    * Like {@link #call()}, but only uses a user thread to start the script: its status is then
+    * checked by the scheduler, reconnecting each time. The future returned fails with a {@link ScriptStillRunningException}
+    * if the script is still running after the script-complete timeout.
+    */
+   public ListenableFuture<ExecResponse> submit(ListeningExecutorService userExecutor,
+         final ScheduledExecutorService scheduler) {
+      final SettableFuture<ExecResponse> result = SettableFuture.create();
+      ListenableFuture<BlockUntilInitScriptStatusIsZeroThenReturnOutput> started = userExecutor
+            .submit(new Callable<BlockUntilInitScriptStatusIsZeroThenReturnOutput>() {
+               @Override
+               public BlockUntilInitScriptStatusIsZeroThenReturnOutput call() {
+                  checkState(ssh != null, "please call init() before invoking call");
+                  try {
+                     ssh.connect();
+                     return future();
+                  } finally {
+                     if (ssh != null)
+                        ssh.disconnect();
+                  }
+               }
+            });
+      Futures.addCallback(started, new FutureCallback<BlockUntilInitScriptStatusIsZeroThenReturnOutput>() {
+         @Override
+         public void onSuccess(final BlockUntilInitScriptStatusIsZeroThenReturnOutput status) {
+            final ScheduledFuture<?> timeout = scheduler.schedule(new Runnable() {
+               @Override
+               public void run() {
+                  fail(result, new ScriptStillRunningException(timeouts.scriptComplete, MILLISECONDS, status));
+               }
+            }, timeouts.scriptComplete, MILLISECONDS);
+            Futures.addCallback(status, new FutureCallback<ExecResponse>() {
+               @Override
+               public void onSuccess(ExecResponse exec) {
+                  timeout.cancel(false);
+                  // the status future already posted the completion event
+                  result.set(exec);
+               }
+
+               @Override
+               public void onFailure(Throwable t) {
+                  timeout.cancel(false);
+                  fail(result, t);
+               }
+            }, directExecutor());
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            fail(result, t);
+         }
+      }, directExecutor());
+      return result;
+   }
+
+   private void fail(SettableFuture<ExecResponse> result, Throwable t) {
+      if (result.setException(t))
+         eventBus.post(new StatementOnNodeFailure(init, node, t));
+   }
+
    @Override
    public RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete init() {
       return RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete.class.cast(super.init());
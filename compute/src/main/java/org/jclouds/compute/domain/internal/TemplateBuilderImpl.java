@@ -43,6 +43,7 @@ import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.predicates.ImagePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.ImageIndex;
 import org.jclouds.domain.Location;
 import org.jclouds.logging.Logger;
 
@@ -62,7 +63,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.find;
-import static com.google.common.collect.Iterables.size;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
 import static com.google.common.collect.Lists.newArrayList;
@@ -703,14 +703,26 @@ public class TemplateBuilderImpl implements TemplateBuilder {
 
    private Iterable<? extends Image> findSupportedImages(Set<? extends Image> images) {
       Predicate<Image> imagePredicate = buildImagePredicate();
-      Iterable<? extends Image> supportedImages = filter(images, imagePredicate);
-      if (size(supportedImages) == 0) {
+      // the predicate is evaluated once, as the result is iterated several times when resolving the template
+      List<Image> supportedImages = ImmutableList.<Image> copyOf(filter(candidateImages(images), imagePredicate));
+      if (supportedImages.isEmpty()) {
          throw throwNoSuchElementExceptionAfterLoggingImageIds(
                format("no image matched predicate: %s", imagePredicate), images);
       }
       return supportedImages;
    }
 
+   /**
+    * Narrows the images to search to the ones of the {@link ImageIndex} which match the requested
+    * operating system family, architecture and location, when searching the cached images.
+    */
+   private Iterable<? extends Image> candidateImages(Set<? extends Image> images) {
+      ImageIndex index = this.images.index();
+      if (index.images() != images)
+         return images;
+      return index.candidates(osFamily, os64Bit, location);
+   }
+
    private Image loadImageWithId(Iterable<? extends Image> images) {
       Optional<? extends Image> image = tryFind(images, ImagePredicates.idEquals(imageId));
       if (!image.isPresent()) {
@@ -749,6 +761,20 @@ public class TemplateBuilderImpl implements TemplateBuilder {
 
    protected Hardware resolveHardware(Set<? extends Hardware> hardwarel, final Iterable<? extends Image> images) {
       Ordering<Hardware> hardwareOrdering = hardwareSorter();
+      Predicate<Hardware> hardwarePredicate = buildHardwarePredicate();
+
+      // check the cheap hardware predicate first, so that only the matching profiles are compared with every image
+      Predicate<Hardware> supportsImagesPredicate = supportsImagesPredicate(images);
+      List<Hardware> hardwareCompatibleWithOurImages = newArrayList();
+      for (Hardware input : filter(hardwarel, hardwarePredicate)) {
+         if (supportsImagesPredicate.apply(input))
+            hardwareCompatibleWithOurImages.add(input);
+      }
+      if (!hardwareCompatibleWithOurImages.isEmpty()) {
+         Hardware hardware = hardwareOrdering.max(hardwareCompatibleWithOurImages);
+         logger.trace("<<   matched hardware(%s)", hardware.getId());
+         return hardware;
+      }
 
       Iterable<Predicate<Image>> supportsImagePredicates = Iterables.transform(hardwarel,
                new Function<Hardware, Predicate<Image>>() {
@@ -767,18 +793,9 @@ public class TemplateBuilderImpl implements TemplateBuilder {
          String message = format("no hardware profiles support images matching params: %s", supportsImagePredicate);
          throw throwNoSuchElementExceptionAfterLoggingHardwareIds(message, hardwarel);
       }
-
-      Iterable<? extends Hardware> hardwareCompatibleWithOurImages = filter(hardwarel, supportsImagesPredicate(images));
-      Predicate<Hardware> hardwarePredicate = buildHardwarePredicate();
-      Hardware hardware;
-      try {
-         hardware = hardwareOrdering.max(filter(hardwareCompatibleWithOurImages, hardwarePredicate));
-      } catch (NoSuchElementException exception) {
-         String message = format("no hardware profiles match params: %s", hardwarePredicate);
-         throw throwNoSuchElementExceptionAfterLoggingHardwareIds(message, hardwareCompatibleWithOurImages);
-      }
-      logger.trace("<<   matched hardware(%s)", hardware.getId());
-      return hardware;
+      String message = format("no hardware profiles match params: %s", hardwarePredicate);
+      throw throwNoSuchElementExceptionAfterLoggingHardwareIds(message,
+            filter(hardwarel, supportsImagesPredicate));
    }
 
    protected Function<Iterable<? extends Image>, Image> imageChooser() {
@@ -19,10 +19,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Predicates.notNull;
+import static com.google.common.base.Throwables.getRootCause;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_SUSPENDED;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_TERMINATED;
@@ -36,6 +38,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -52,6 +55,7 @@ import org.jclouds.compute.ComputeServiceContext;
 import org.jclouds.compute.RunNodesException;
 import org.jclouds.compute.RunScriptOnNodesException;
 import org.jclouds.compute.callables.RunScriptOnNode;
+import org.jclouds.compute.callables.RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.ExecResponse;
@@ -100,6 +104,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.Atomics;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
@@ -137,6 +142,14 @@ public class BaseComputeService implements ComputeService {
    private final Optional<ImageExtension> imageExtension;
    private final Optional<SecurityGroupExtension> securityGroupExtension;
 
+   /**
+    * When the {@link org.jclouds.concurrent.config.ScheduledExecutorServiceModule} is configured,
+    * scripts run on many nodes are polled by the scheduler instead of blocking a user thread each.
+    */
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_SCHEDULER_THREADS)
+   private ScheduledExecutorService scheduler;
+
    @Inject
    protected BaseComputeService(ComputeServiceContext context, Map<String, Credentials> credentialStore,
             @Memoized Supplier<Set<? extends Image>> images,
@@ -571,6 +584,11 @@ public class BaseComputeService implements ComputeService {
             nodesMatchingFilterAndNotTerminatedExceptionIfNotFound(filter), runScript, options, badNodes);
       if (!Iterables.isEmpty(scriptRunners)) {
          for (RunScriptOnNode runner : scriptRunners) {
+            if (scheduler != null && runner instanceof RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete) {
+               responses.put(runner.getNode(), submitAndAddToGoodMapOrPutExceptionIntoBadMap(
+                     RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete.class.cast(runner), goodNodes, badNodes));
+               continue;
+            }
             responses.put(runner.getNode(), userExecutor.submit(new RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap(
                   runner, goodNodes, badNodes)));
          }
@@ -591,6 +609,34 @@ public class BaseComputeService implements ComputeService {
       return goodNodes;
    }
 
+   /**
+    * Runs the script without a user thread blocking until it completes, as
+    * {@link RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap} would.
+    */
+   private ListenableFuture<ExecResponse> submitAndAddToGoodMapOrPutExceptionIntoBadMap(
+         final RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete runner,
+         final Map<NodeMetadata, ExecResponse> goodNodes, final Map<NodeMetadata, Exception> badNodes) {
+      ListenableFuture<ExecResponse> response = Futures.transform(runner.submit(userExecutor, scheduler),
+            new Function<ExecResponse, ExecResponse>() {
+               @Override
+               public ExecResponse apply(ExecResponse exec) {
+                  logger.debug("<< options applied node(%s)", runner.getNode().getId());
+                  logger.trace("<< script output for node(%s): %s", runner.getNode().getId(), exec);
+                  goodNodes.put(runner.getNode(), exec);
+                  return exec;
+               }
+            }, directExecutor());
+      return Futures.catching(response, Exception.class, new Function<Exception, ExecResponse>() {
+         @Override
+         public ExecResponse apply(Exception e) {
+            logger.error(e, "<< problem applying options to node(%s): ", runner.getNode().getId(),
+                  getRootCause(e).getMessage());
+            badNodes.put(runner.getNode(), e);
+            return null;
+         }
+      }, directExecutor());
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -22,6 +22,7 @@ import javax.inject.Singleton;
 import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.predicates.internal.RefreshNodeAndDoubleCheckOnFailUnlessStatusInvalid;
 import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.impl.BatchingNodeStatusPoller;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -32,7 +33,14 @@ import com.google.common.collect.ImmutableSet;
 @Singleton
 public class AtomicNodeSuspended extends RefreshNodeAndDoubleCheckOnFailUnlessStatusInvalid {
 
+   /**
+    * Refreshes the node together with the other nodes being polled.
+    */
    @Inject
+   public AtomicNodeSuspended(BatchingNodeStatusPoller client) {
+      this((GetNodeMetadataStrategy) client);
+   }
+
    public AtomicNodeSuspended(GetNodeMetadataStrategy client) {
       super(Status.SUSPENDED, ImmutableSet.of(Status.ERROR, Status.TERMINATED), client);
    }
@@ -22,6 +22,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.predicates.internal.TrueIfNullOrDeletedRefreshAndDoubleCheckOnFalse;
 import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.impl.BatchingNodeStatusPoller;
 
 import com.google.inject.Inject;
 
@@ -29,7 +30,14 @@ public class AtomicNodeTerminated extends TrueIfNullOrDeletedRefreshAndDoubleChe
 
    private final GetNodeMetadataStrategy client;
 
+   /**
+    * Refreshes the node together with the other nodes being polled.
+    */
    @Inject
+   public AtomicNodeTerminated(BatchingNodeStatusPoller client) {
+      this((GetNodeMetadataStrategy) client);
+   }
+
    public AtomicNodeTerminated(GetNodeMetadataStrategy client) {
       super(Status.TERMINATED);
       this.client = checkNotNull(client, "client");
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Refreshes the metadata of the nodes being waited on with one {@link ListNodesStrategy#listNodesByIds} call per
+ * polling window, instead of one {@link GetNodeMetadataStrategy#getNode} call per node.
+ * <p>
+ * A thread refreshing a node while no poll is in progress polls the provider on behalf of all the nodes pending,
+ * while the threads refreshing nodes in the meantime wait for it, and then one of them polls for the nodes still
+ * pending. No thread is started, as some providers do not allow it. A single pending node is polled immediately;
+ * when several are, the polling thread first waits for the window to elapse, so that the refreshes requested by
+ * other threads in the meantime can be collected. The window starts at the {@link PollPeriod#pollInitialPeriod
+ * initial poll period}; it doubles, up to the {@link PollPeriod#pollMaxPeriod maximum poll period}, every time the
+ * provider fails a poll, and shrinks back as polls succeed.
+ */
+@Beta
+@Singleton
+public class BatchingNodeStatusPoller implements GetNodeMetadataStrategy {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final GetNodeMetadataStrategy getNode;
+   private final ListNodesStrategy listNodes;
+   private final long minWindow;
+   private final long maxWindow;
+
+   private final Object lock = new Object();
+   // guarded by lock
+   private Map<String, SettableFuture<NodeMetadata>> pending = Maps.newLinkedHashMap();
+   // guarded by lock
+   private boolean polling;
+   private volatile long window;
+
+   @Inject
+   BatchingNodeStatusPoller(GetNodeMetadataStrategy getNode, ListNodesStrategy listNodes, PollPeriod period) {
+      this.getNode = checkNotNull(getNode, "getNode");
+      this.listNodes = checkNotNull(listNodes, "listNodes");
+      this.minWindow = Math.max(1, period.pollInitialPeriod);
+      this.maxWindow = Math.max(minWindow, period.pollMaxPeriod);
+      this.window = minWindow;
+   }
+
+   /**
+    * Returns the current metadata of the node, or null if the provider doesn't know it anymore.
+    */
+   @Override
+   public NodeMetadata getNode(String id) {
+      checkNotNull(id, "id");
+      SettableFuture<NodeMetadata> future;
+      synchronized (lock) {
+         future = pending.get(id);
+         if (future == null) {
+            future = SettableFuture.create();
+            pending.put(id, future);
+         }
+      }
+      try {
+         while (!future.isDone()) {
+            synchronized (lock) {
+               if (future.isDone())
+                  break;
+               if (polling) {
+                  lock.wait();
+                  continue;
+               }
+               polling = true;
+            }
+            try {
+               poll();
+            } finally {
+               synchronized (lock) {
+                  polling = false;
+                  lock.notifyAll();
+               }
+            }
+         }
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   private void poll() throws InterruptedException {
+      boolean batching;
+      synchronized (lock) {
+         batching = pending.size() > 1;
+      }
+      if (batching)
+         TimeUnit.MILLISECONDS.sleep(window);
+      Map<String, SettableFuture<NodeMetadata>> batch;
+      synchronized (lock) {
+         batch = pending;
+         pending = Maps.newLinkedHashMap();
+      }
+      Map<String, NodeMetadata> nodes;
+      try {
+         nodes = fetch(batch.keySet());
+      } catch (RuntimeException e) {
+         window = Math.min(maxWindow, window * 2);
+         logger.debug("<< error polling nodes(%s), next window %dms: %s", batch.keySet(), window, e.getMessage());
+         for (SettableFuture<NodeMetadata> future : batch.values())
+            future.setException(e);
+         return;
+      } catch (Error e) {
+         for (SettableFuture<NodeMetadata> future : batch.values())
+            future.setException(e);
+         throw e;
+      }
+      window = Math.max(minWindow, window / 2);
+      for (Map.Entry<String, SettableFuture<NodeMetadata>> entry : batch.entrySet())
+         entry.getValue().set(nodes.get(entry.getKey()));
+   }
+
+   private Map<String, NodeMetadata> fetch(Set<String> ids) {
+      Map<String, NodeMetadata> nodes = Maps.newHashMap();
+      if (ids.size() > 1) {
+         logger.trace(">> polling nodes(%s)", ids);
+         for (NodeMetadata node : listNodes.listNodesByIds(ids))
+            nodes.put(node.getId(), node);
+      }
+      // listing may be eventually consistent or scoped to a location, so only getNode tells a node is gone
+      for (String id : Sets.difference(ids, nodes.keySet()).immutableCopy()) {
+         NodeMetadata node = getNode.getNode(id);
+         if (node != null)
+            nodes.put(id, node);
+      }
+      return nodes;
+   }
+
+   @VisibleForTesting
+   int pending() {
+      synchronized (lock) {
+         return pending.size();
+      }
+   }
+
+   @VisibleForTesting
+   long window() {
+      return window;
+   }
+}
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
@@ -40,7 +41,8 @@ import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Maps;
 import com.google.inject.Provider;
 
@@ -74,6 +76,18 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * and allows to add and remove images at runtime.
     */
    private final LoadingCache<String, Image> imageCache;
+
+   /**
+    * Incremented after every change to the {@link #imageCache}, so the
+    * {@link #index} can tell whether it is still current.
+    */
+   private final AtomicLong generation = new AtomicLong();
+
+   /**
+    * The last snapshot of the {@link #imageCache}. It is rebuilt on the first
+    * read after the cache changes.
+    */
+   private volatile ImageIndex index;
    
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -85,6 +99,12 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       memoizedImageSupplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException,
             imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this);
       imageCache = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, TimeUnit.SECONDS)
+            .removalListener(new RemovalListener<String, Image>() {
+               @Override
+               public void onRemoval(RemovalNotification<String, Image> notification) {
+                  generation.incrementAndGet();
+               }
+            })
             .build(new CacheLoader<String, Image>() {
                @Override
                public Image load(String key) throws Exception {
@@ -104,7 +124,26 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       // individual image additions and deletions (introduced, for example, by
       // the usage of the ImageExtension).
       memoizedImageSupplier.get();
-      return ImmutableSet.copyOf(imageCache.asMap().values());
+      return index().images();
+   }
+
+   /**
+    * Returns the index of the cached images.
+    * <p>
+    * The index is only rebuilt when images have been added, removed or expired
+    * since it was last taken, so repeated lookups against an unchanged cache
+    * don't copy the images again.
+    */
+   public ImageIndex index() {
+      // Evict expired images now, so their removal is reflected in the generation
+      imageCache.cleanUp();
+      long current = generation.get();
+      ImageIndex snapshot = index;
+      if (snapshot == null || snapshot.generation != current) {
+         snapshot = new ImageIndex(current, imageCache.asMap().values());
+         index = snapshot;
+      }
+      return snapshot;
    }
 
    /**
@@ -137,6 +176,7 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
             return input.getId();
          }
       }));
+      generation.incrementAndGet();
    }
    
    /**
@@ -157,7 +197,13 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     */
    public Optional<? extends Image> get(String id) {
       try {
-         return Optional.fromNullable(imageCache.getUnchecked(id));
+         Image cached = imageCache.getIfPresent(id);
+         if (cached != null) {
+            return Optional.of(cached);
+         }
+         Image loaded = imageCache.getUnchecked(id);
+         generation.incrementAndGet();
+         return Optional.fromNullable(loaded);
       } catch (Exception ex) {
          logger.error(ex, "Unexpected error loading image %s", id);
          return Optional.absent();
@@ -180,6 +226,7 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
    public void registerImage(Image image) {
       checkNotNull(image, "image");
       imageCache.put(image.getId(), image);
+      generation.incrementAndGet();
    }
 
    /**
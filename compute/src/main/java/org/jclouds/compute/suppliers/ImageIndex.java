@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * An immutable snapshot of the cached images, indexed by the attributes the
+ * {@link org.jclouds.compute.domain.TemplateBuilder} can match exactly: the
+ * operating system family, whether it is 64-bit, and the location.
+ * <p>
+ * Lookups return the images of the snapshot that may match, in the iteration
+ * order of {@link #images()}. Callers still have to apply their own predicates
+ * to the result, as the index only discards images which cannot match.
+ */
+@Beta
+public final class ImageIndex {
+
+   /** The generation of the {@link ImageCacheSupplier} this snapshot was taken at. */
+   final long generation;
+
+   private final ImmutableSet<Image> images;
+   private final ImmutableList<Image> byPosition;
+   private final Map<OsFamily, BitSet> byFamily = Maps.newEnumMap(OsFamily.class);
+   private final BitSet is64Bit = new BitSet();
+   private final BitSet unknownOs = new BitSet();
+   private final Map<Location, BitSet> byLocation = Maps.newHashMap();
+   private final BitSet anyLocation = new BitSet();
+
+   ImageIndex(long generation, Iterable<? extends Image> images) {
+      this.generation = generation;
+      this.images = ImmutableSet.copyOf(images);
+      this.byPosition = this.images.asList();
+      for (int i = 0; i < byPosition.size(); i++) {
+         Image image = byPosition.get(i);
+         OperatingSystem os = image.getOperatingSystem();
+         if (os == null) {
+            unknownOs.set(i);
+         } else {
+            if (os.getFamily() != null)
+               bitsFor(byFamily, os.getFamily()).set(i);
+            if (os.is64Bit())
+               is64Bit.set(i);
+         }
+         if (image.getLocation() == null)
+            anyLocation.set(i);
+         else
+            bitsFor(byLocation, image.getLocation()).set(i);
+      }
+   }
+
+   private static <K> BitSet bitsFor(Map<K, BitSet> index, K key) {
+      BitSet bits = index.get(key);
+      if (bits == null) {
+         bits = new BitSet();
+         index.put(key, bits);
+      }
+      return bits;
+   }
+
+   /**
+    * All the images of the snapshot. The same instance is returned until the
+    * cache changes.
+    */
+   public Set<? extends Image> images() {
+      return images;
+   }
+
+   /**
+    * Returns the images which may match the given criteria. A {@code null}
+    * criterion matches every image.
+    *
+    * @param family
+    *           the operating system family of the image
+    * @param is64Bit
+    *           whether the operating system of the image is 64-bit
+    * @param location
+    *           the location to launch in; images with no location, or located
+    *           in it, its parent, or its grandparent may match
+    */
+   public List<Image> candidates(@Nullable OsFamily family, @Nullable Boolean is64Bit, @Nullable Location location) {
+      if (family == null && is64Bit == null && location == null)
+         return byPosition;
+      BitSet matches = new BitSet(byPosition.size());
+      matches.set(0, byPosition.size());
+      if (family != null) {
+         BitSet ofFamily = byFamily.get(family);
+         if (ofFamily == null)
+            return ImmutableList.of();
+         matches.and(ofFamily);
+      }
+      if (is64Bit != null) {
+         // images without an operating system cannot match
+         matches.andNot(unknownOs);
+         if (is64Bit)
+            matches.and(this.is64Bit);
+         else
+            matches.andNot(this.is64Bit);
+      }
+      if (location != null) {
+         BitSet inLocation = (BitSet) anyLocation.clone();
+         for (int depth = 0; location != null && depth < 3; depth++, location = location.getParent()) {
+            BitSet inScope = byLocation.get(location);
+            if (inScope != null)
+               inLocation.or(inScope);
+         }
+         matches.and(inLocation);
+      }
+      return new Selection(byPosition, matches);
+   }
+
+   /** A read-only view of the images at the positions set in a {@link BitSet}. */
+   private static final class Selection extends AbstractList<Image> implements RandomAccess {
+      private final int[] positions;
+      private final List<Image> images;
+
+      Selection(List<Image> images, BitSet selected) {
+         this.images = images;
+         this.positions = new int[selected.cardinality()];
+         for (int i = selected.nextSetBit(0), j = 0; i >= 0; i = selected.nextSetBit(i + 1), j++)
+            positions[j] = i;
+      }
+
+      @Override
+      public Image get(int index) {
+         return images.get(positions[index]);
+      }
+
+      @Override
+      public int size() {
+         return positions.length;
+      }
+   }
+}
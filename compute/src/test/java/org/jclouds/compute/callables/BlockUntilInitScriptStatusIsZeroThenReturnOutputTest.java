@@ -15,18 +15,26 @@
  * limitations under the License.
  */
 package org.jclouds.compute.callables;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.createMockBuilder;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.newCapture;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.compute.callables.BlockUntilInitScriptStatusIsZeroThenReturnOutput.loopUntilTrueOrThrowCancellationException;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.fail;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.easymock.Capture;
 import org.jclouds.compute.callables.BlockUntilInitScriptStatusIsZeroThenReturnOutput.ExitStatusOfCommandGreaterThanZero;
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.NodeMetadata;
@@ -272,6 +280,44 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutputTest {
 
    }
 
+   public void testSchedulerChecksStatusUntilNotRunning() throws InterruptedException, ExecutionException {
+      ListeningExecutorService userExecutor = createMock(ListeningExecutorService.class);
+      ScheduledExecutorService scheduler = createMock(ScheduledExecutorService.class);
+      SudoAwareInitManager commandRunner = createMockBuilder(SudoAwareInitManager.class).addMockedMethod("refreshAndRunAction")
+               .addMockedMethod("getStatement").addMockedMethod("getNode").addMockedMethod("toString")
+               .createStrictMock();
+      InitScript initScript = createMockBuilder(InitScript.class).addMockedMethod("getInstanceName").createStrictMock();
+
+      Capture<Runnable> first = newCapture();
+      Capture<Runnable> second = newCapture();
+      expect(scheduler.schedule(capture(first), eq(500L), eq(TimeUnit.MILLISECONDS))).andReturn(null);
+      expect(scheduler.schedule(capture(second), eq(750L), eq(TimeUnit.MILLISECONDS))).andReturn(null);
+
+      // exit status 0 means we are still running
+      expect(commandRunner.refreshAndRunAction("status")).andReturn(new ExecResponse("", "", 0));
+      expect(commandRunner.refreshAndRunAction("status")).andReturn(new ExecResponse("", "", 1));
+      expect(commandRunner.refreshAndRunAction("stdout")).andReturn(new ExecResponse("stdout", "", 0));
+      expect(commandRunner.refreshAndRunAction("stderr")).andReturn(new ExecResponse("stderr", "", 0));
+      expect(commandRunner.refreshAndRunAction("exitstatus")).andReturn(new ExecResponse("444\n", "", 0));
+
+      toStringAndEventBusExpectations(commandRunner, initScript);
+
+      replay(userExecutor, scheduler, commandRunner, initScript);
+
+      BlockUntilInitScriptStatusIsZeroThenReturnOutput future = new BlockUntilInitScriptStatusIsZeroThenReturnOutput(
+               userExecutor, eventBus, Predicates.<String> alwaysFalse(), commandRunner);
+      future.scheduler = scheduler;
+
+      future.init();
+      first.getValue().run();
+      assertFalse(future.isDone());
+      second.getValue().run();
+
+      assertEquals(future.get(), new ExecResponse("stdout", "stderr", 444));
+
+      verify(userExecutor, scheduler, commandRunner, initScript);
+   }
+
    private void toStringAndEventBusExpectations(SudoAwareInitManager commandRunner, InitScript initScript) {
       toStringExpectations(commandRunner, initScript);
       expect(commandRunner.getStatement()).andReturn(initScript);
@@ -27,10 +27,15 @@ import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_SCRIPT
 import static org.jclouds.scriptbuilder.domain.Statements.exec;
 import static org.testng.Assert.assertEquals;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.events.StatementOnNodeCompletion;
 import org.jclouds.compute.options.RunScriptOptions;
 import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
@@ -44,6 +49,7 @@ import org.testng.annotations.Test;
 import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -51,15 +57,16 @@ import com.google.inject.assistedinject.FactoryModuleBuilder;
 
 @Test(groups = "unit", singleThreaded = true, testName = "RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilCompleteTest")
 public class RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilCompleteTest {
+   EventBus eventBus = new EventBus();
    Injector injector = Guice.createInjector(new ExecutorServiceModule(newDirectExecutorService()),
          new AbstractModule() {
             protected void configure() {
+               bind(EventBus.class).toInstance(eventBus);
                bindConstant().annotatedWith(named(PROPERTY_USER_THREADS)).to(1);
                bindConstant().annotatedWith(named(TIMEOUT_SCRIPT_COMPLETE)).to(100);
                install(new FactoryModuleBuilder().build(BlockUntilInitScriptStatusIsZeroThenReturnOutput.Factory.class));
             }
          });
-   EventBus eventBus = new EventBus();
    BlockUntilInitScriptStatusIsZeroThenReturnOutput.Factory statusFactory = injector
          .getInstance(BlockUntilInitScriptStatusIsZeroThenReturnOutput.Factory.class);
 
@@ -134,6 +141,67 @@ public class RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilCompleteTest {
       verify(sshClient);
    }
 
+   public void testSubmitCompletesWithoutCall() throws Exception {
+      Statement command = exec("doFoo");
+      NodeMetadata node = new NodeMetadataBuilder().ids("id").status(Status.RUNNING)
+            .credentials(LoginCredentials.builder().user("tester").password("testpassword!").build()).build();
+
+      SshClient sshClient = createMock(SshClient.class);
+
+      InitScript init = InitScript.builder().name("jclouds-script-0").home("/tmp/jclouds-script-0").run(command)
+            .build();
+
+      sshClient.connect();
+      sshClient.put("/tmp/init-jclouds-script-0", init.render(OsFamily.UNIX));
+      expect(sshClient.getUsername()).andReturn("tester").atLeastOnce();
+      expect(sshClient.getHostAddress()).andReturn("somewhere.example.com").atLeastOnce();
+
+      // setup script as default user
+      expect(sshClient.exec("chmod 755 /tmp/init-jclouds-script-0")).andReturn(new ExecResponse("", "", 0));
+      expect(sshClient.exec("ln -fs /tmp/init-jclouds-script-0 jclouds-script-0")).andReturn(
+               new ExecResponse("", "", 0));
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 init")).andReturn(new ExecResponse("", "", 0));
+
+      // start script as root via sudo, note that since there's no adminPassword we do a straight
+      // sudo
+      expect(sshClient.exec("sudo /tmp/init-jclouds-script-0 start")).andReturn(new ExecResponse("", "", 0));
+
+      // signal the command completed
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 status")).andReturn(new ExecResponse("", "", 1)).times(1);
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 stdout")).andReturn(new ExecResponse("out", "", 0));
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 stderr")).andReturn(new ExecResponse("err", "", 0));
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 exitstatus")).andReturn(new ExecResponse("0", "", 0));
+
+      sshClient.disconnect();
+      replay(sshClient);
+
+      RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete testMe = new RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete(
+               statusFactory, timeouts, Functions.forMap(ImmutableMap.of(node, sshClient)),
+               eventBus, InitScriptConfigurationForTasks.create().appendIncrementingNumberToAnonymousTaskNames(), node, command,
+               new RunScriptOptions());
+
+      final AtomicInteger completions = new AtomicInteger();
+      Object listener = new Object() {
+         @Subscribe
+         public void onCompletion(StatementOnNodeCompletion event) {
+            completions.incrementAndGet();
+         }
+      };
+      eventBus.register(listener);
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+      try {
+         testMe.init();
+
+         assertEquals(testMe.submit(newDirectExecutorService(), scheduler).get(), new ExecResponse("out", "err", 0));
+      } finally {
+         scheduler.shutdownNow();
+         eventBus.unregister(listener);
+      }
+      assertEquals(completions.get(), 1);
+
+      verify(sshClient);
+   }
+
    public void testWithSudoPassword() {
       Statement command = exec("doFoo");
       NodeMetadata node = new NodeMetadataBuilder().ids("id").status(Status.RUNNING).credentials(
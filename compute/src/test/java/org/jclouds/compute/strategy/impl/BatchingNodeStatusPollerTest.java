@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.easymock.IAnswer;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", singleThreaded = true, testName = "BatchingNodeStatusPollerTest")
+public class BatchingNodeStatusPollerTest {
+
+   private final NodeMetadata a = new NodeMetadataBuilder().id("a").status(Status.RUNNING).build();
+   private final NodeMetadata b = new NodeMetadataBuilder().id("b").status(Status.PENDING).build();
+
+   public void testRefreshesRequestedWhilePollingArePolledTogether() throws Exception {
+      GetNodeMetadataStrategy getNode = createMock(GetNodeMetadataStrategy.class);
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      final AtomicReference<BatchingNodeStatusPoller> poller = new AtomicReference<BatchingNodeStatusPoller>();
+      final CountDownLatch polling = new CountDownLatch(1);
+      expect(getNode.getNode("a")).andAnswer(new IAnswer<NodeMetadata>() {
+         @Override
+         public NodeMetadata answer() throws Throwable {
+            polling.countDown();
+            // b and c are requested while a is polled
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (poller.get().pending() < 2) {
+               if (System.nanoTime() > deadline)
+                  throw new AssertionError("b and c were not requested while a was polled");
+               Thread.sleep(1);
+            }
+            return a;
+         }
+      });
+      expect((Iterable<NodeMetadata>) listNodes.listNodesByIds(anyObject(Iterable.class)))
+            .andReturn(ImmutableSet.of(b)).once();
+      // nodes missing from the listing are looked up before they are reported gone
+      expect(getNode.getNode("c")).andReturn(null);
+      replay(getNode, listNodes);
+
+      poller.set(new BatchingNodeStatusPoller(getNode, listNodes, period(10, 20)));
+      // one thread per node, as b and c wait for the poll of a
+      ExecutorService executor = Executors.newFixedThreadPool(3);
+      try {
+         Future<NodeMetadata> first = executor.submit(getNode(poller.get(), "a"));
+         assertTrue(polling.await(10, TimeUnit.SECONDS));
+         List<Future<NodeMetadata>> results = Lists.newArrayList();
+         results.add(executor.submit(getNode(poller.get(), "b")));
+         results.add(executor.submit(getNode(poller.get(), "c")));
+         assertEquals(first.get(10, TimeUnit.SECONDS), a);
+         assertEquals(results.get(0).get(10, TimeUnit.SECONDS), b);
+         assertNull(results.get(1).get(10, TimeUnit.SECONDS));
+      } finally {
+         executor.shutdownNow();
+      }
+      verify(getNode, listNodes);
+   }
+
+   public void testWaitingForAnotherPollIsInterruptible() throws Exception {
+      GetNodeMetadataStrategy getNode = createMock(GetNodeMetadataStrategy.class);
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      final CountDownLatch polling = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      expect(getNode.getNode("a")).andAnswer(new IAnswer<NodeMetadata>() {
+         @Override
+         public NodeMetadata answer() throws Throwable {
+            polling.countDown();
+            release.await();
+            return a;
+         }
+      });
+      replay(getNode, listNodes);
+
+      BatchingNodeStatusPoller poller = new BatchingNodeStatusPoller(getNode, listNodes, period(10, 20));
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<NodeMetadata> first = executor.submit(getNode(poller, "a"));
+         assertTrue(polling.await(10, TimeUnit.SECONDS));
+         Thread.currentThread().interrupt();
+         try {
+            poller.getNode("b");
+            fail("expected the wait to be interrupted");
+         } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InterruptedException, e.toString());
+            assertTrue(Thread.interrupted());
+         }
+         release.countDown();
+         assertEquals(first.get(10, TimeUnit.SECONDS), a);
+      } finally {
+         executor.shutdownNow();
+      }
+      verify(getNode, listNodes);
+   }
+
+   public void testSingleRefreshGetsTheNode() {
+      GetNodeMetadataStrategy getNode = createMock(GetNodeMetadataStrategy.class);
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      expect(getNode.getNode("a")).andReturn(a);
+      replay(getNode, listNodes);
+
+      BatchingNodeStatusPoller poller = new BatchingNodeStatusPoller(getNode, listNodes, period(1, 1));
+      assertEquals(poller.getNode("a"), a);
+      verify(getNode, listNodes);
+   }
+
+   public void testFailedPollsWidenTheWindow() {
+      GetNodeMetadataStrategy getNode = createMock(GetNodeMetadataStrategy.class);
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      IllegalStateException throttled = new IllegalStateException("throttled");
+      expect(getNode.getNode("a")).andThrow(throttled).times(2);
+      expect(getNode.getNode("a")).andReturn(a);
+      replay(getNode, listNodes);
+
+      BatchingNodeStatusPoller poller = new BatchingNodeStatusPoller(getNode, listNodes, period(10, 30));
+      for (int i = 0; i < 2; i++) {
+         try {
+            poller.getNode("a");
+            fail("expected the failure of the poll");
+         } catch (IllegalStateException e) {
+            assertEquals(e, throttled);
+         }
+      }
+      assertEquals(poller.window(), 30);
+
+      assertEquals(poller.getNode("a"), a);
+      assertEquals(poller.window(), 15);
+      verify(getNode, listNodes);
+   }
+
+   private static Callable<NodeMetadata> getNode(final BatchingNodeStatusPoller poller, final String id) {
+      return new Callable<NodeMetadata>() {
+         @Override
+         public NodeMetadata call() {
+            return poller.getNode(id);
+         }
+      };
+   }
+
+   private static PollPeriod period(long initial, long max) {
+      PollPeriod period = new PollPeriod();
+      period.pollInitialPeriod = initial;
+      period.pollMaxPeriod = max;
+      return period;
+   }
+}
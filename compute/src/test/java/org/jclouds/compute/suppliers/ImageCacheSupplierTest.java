@@ -20,6 +20,8 @@ import static com.google.common.collect.Iterables.any;
 import static org.jclouds.compute.predicates.ImagePredicates.idEquals;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Set;
@@ -147,4 +149,21 @@ public class ImageCacheSupplierTest {
       assertEquals(imageCache.get().size(), 1);
       assertFalse(any(imageCache.get(), idEquals("foo")));
    }
+
+   @Test
+   public void testIndexIsReusedUntilTheCacheChanges() {
+      ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images), 60,
+            Atomics.<AuthorizationException> newReference(), Providers.of(getImageStrategy));
+      Set<? extends Image> first = imageCache.get();
+      assertSame(imageCache.get(), first);
+
+      imageCache.registerImage(ImageBuilder.fromImage(image).id("newimage").build());
+      Set<? extends Image> second = imageCache.get();
+      assertNotSame(second, first);
+      assertEquals(second.size(), 2);
+      assertSame(imageCache.index().images(), second);
+
+      imageCache.removeImage("newimage");
+      assertEquals(imageCache.get(), first);
+   }
 }
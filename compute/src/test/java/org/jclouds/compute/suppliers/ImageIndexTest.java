@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ImageIndexTest")
+public class ImageIndexTest {
+
+   private final Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("provider")
+         .description("provider").build();
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("region")
+         .description("region").parent(provider).build();
+   private final Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("zone").description("zone")
+         .parent(region).build();
+   private final Location otherRegion = new LocationBuilder().scope(LocationScope.REGION).id("other")
+         .description("other").parent(provider).build();
+
+   private final Image ubuntu64InRegion = image("ubuntu64", OsFamily.UBUNTU, true, region);
+   private final Image ubuntu32Anywhere = image("ubuntu32", OsFamily.UBUNTU, false, null);
+   private final Image centos64InZone = image("centos64", OsFamily.CENTOS, true, zone);
+   private final Image ubuntu64InOtherRegion = image("ubuntu64other", OsFamily.UBUNTU, true, otherRegion);
+
+   private final ImageIndex index = new ImageIndex(0, ImmutableList.of(ubuntu64InRegion, ubuntu32Anywhere,
+         centos64InZone, ubuntu64InOtherRegion));
+
+   public void testNoCriteriaReturnsAllImages() {
+      assertEquals(index.candidates(null, null, null), ImmutableList.copyOf(index.images()));
+   }
+
+   public void testCandidatesByFamily() {
+      assertEquals(index.candidates(OsFamily.UBUNTU, null, null),
+            ImmutableList.of(ubuntu64InRegion, ubuntu32Anywhere, ubuntu64InOtherRegion));
+      assertEquals(index.candidates(OsFamily.WINDOWS, null, null), ImmutableList.of());
+   }
+
+   public void testCandidatesByArchitecture() {
+      assertEquals(index.candidates(null, false, null), ImmutableList.of(ubuntu32Anywhere));
+      assertEquals(index.candidates(OsFamily.UBUNTU, true, null),
+            ImmutableList.of(ubuntu64InRegion, ubuntu64InOtherRegion));
+   }
+
+   public void testCandidatesIncludeParentLocationsAndUnlocatedImages() {
+      assertEquals(index.candidates(null, null, zone),
+            ImmutableList.of(ubuntu64InRegion, ubuntu32Anywhere, centos64InZone));
+      assertEquals(index.candidates(OsFamily.UBUNTU, true, zone), ImmutableList.of(ubuntu64InRegion));
+      assertEquals(index.candidates(null, null, otherRegion),
+            ImmutableList.of(ubuntu32Anywhere, ubuntu64InOtherRegion));
+   }
+
+   public void testImagesAreDeduplicated() {
+      ImageIndex duplicates = new ImageIndex(0, ImmutableList.of(centos64InZone, centos64InZone));
+      assertEquals(duplicates.images().size(), 1);
+      assertSame(duplicates.candidates(OsFamily.CENTOS, null, null).get(0), centos64InZone);
+   }
+
+   private static Image image(String id, OsFamily family, boolean is64Bit, Location location) {
+      OperatingSystem os = OperatingSystem.builder().family(family).description(id).is64Bit(is64Bit).build();
+      return new ImageBuilder().id(id).providerId(id).name(id).description(id).operatingSystem(os)
+            .status(Image.Status.AVAILABLE).location(location).build();
+   }
+}
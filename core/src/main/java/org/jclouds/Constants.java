@@ -376,6 +376,42 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_RATE_LIMIT_WAIT = "jclouds.max-ratelimit-wait";
 
+   /**
+    * Boolean property. Default (false).
+    * <p/>
+    * When true, the requests in flight to each endpoint are limited adaptively: the limit starts at
+    * {@link #PROPERTY_MAX_CONNECTIONS_PER_HOST}, or {@link #PROPERTY_MAX_CONNECTIONS_PER_CONTEXT} if
+    * unset, is halved when the endpoint throttles requests, and grows back as requests succeed.
+    * Retries of throttled and failed requests are also limited to
+    * {@link #PROPERTY_RETRY_BUDGET_RATIO} of the requests of the context.
+    */
+   public static final String PROPERTY_ADAPTIVE_CONCURRENCY = "jclouds.adaptive-concurrency";
+
+   /**
+    * Float property. Default (0.1).
+    * <p/>
+    * When {@link #PROPERTY_ADAPTIVE_CONCURRENCY} is enabled, the number of retries allowed for each
+    * request sent, on top of a reserve of 10 retries.
+    */
+   public static final String PROPERTY_RETRY_BUDGET_RATIO = "jclouds.retry-budget-ratio";
+
+   /**
+    * Boolean property. Default (true).
+    * <p/>
+    * When true, the delay before a retry is picked at random between zero and the exponential
+    * back-off delay, so that requests which failed together do not retry together. When false, up to
+    * a tenth of the back-off delay is added to it instead.
+    */
+   public static final String PROPERTY_RETRY_FULL_JITTER = "jclouds.retries-full-jitter";
+
+   /**
+    * Boolean property. Default (false).
+    * <p/>
+    * When true, the latencies, retries and status codes of the http commands of the context are
+    * kept in memory, see {@link org.jclouds.rest.Utils#httpMetrics()}.
+    */
+   public static final String PROPERTY_HTTP_METRICS = "jclouds.http-metrics";
+
    private Constants() {
       throw new AssertionError("intentionally unimplemented");
    }
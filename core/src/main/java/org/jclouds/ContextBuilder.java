@@ -57,6 +57,7 @@ import org.jclouds.apis.Apis;
 import org.jclouds.concurrent.SingleThreaded;
 import org.jclouds.concurrent.config.ConfiguresExecutorService;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.concurrent.config.ScheduledExecutorServiceModule;
 import org.jclouds.config.BindApiContextWithWildcardExtendsExplicitAndRawType;
 import org.jclouds.config.BindNameToContext;
 import org.jclouds.domain.Credentials;
@@ -397,6 +398,7 @@ public class ContextBuilder {
       addLoggingModuleIfNotPresent(modules);
       addHttpModuleIfNeededAndNotPresent(modules);
       addExecutorServiceIfNotPresent(modules);
+      addSchedulerIfNotPresent(modules);
       addEventBusIfNotPresent(modules);
       addCredentialStoreIfNotPresent(modules);
       modules.add(new LifeCycleModule());
@@ -554,6 +556,21 @@ public class ContextBuilder {
       }
    }
 
+   /**
+    * Adds the scheduler which times retries and timeouts out, unless the modules are single threaded
+    * because the environment does not allow to spawn threads.
+    */
+   @VisibleForTesting
+   static void addSchedulerIfNotPresent(List<Module> modules) {
+      if (!any(modules, instanceOf(ScheduledExecutorServiceModule.class)) && !any(modules, new Predicate<Module>() {
+         public boolean apply(Module input) {
+            return input.getClass().isAnnotationPresent(SingleThreaded.class);
+         }
+      })) {
+         modules.add(new ScheduledExecutorServiceModule());
+      }
+   }
+
    @VisibleForTesting
    static void addCredentialStoreIfNotPresent(List<Module> modules) {
       if (!any(modules, new Predicate<Module>() {
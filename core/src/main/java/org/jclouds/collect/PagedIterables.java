@@ -16,16 +16,28 @@
  */
 package org.jclouds.collect;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Utilities for using {@link PagedIterable}s.
@@ -137,4 +149,96 @@ public class PagedIterables {
       }
       return new AdvancingIterator<T>(initial, markerToNext);
    }
+
+   /**
+    * Fetches the pages ahead of the caller, so that the next pages are requested while the current
+    * one is processed. Pages are still fetched one after the other, as each request needs the marker
+    * of the previous page, but in the executor, at most {@code lookahead} pages ahead.
+    * <p/>
+    * An error fetching a page is thrown when the caller reaches that page, and pages being fetched
+    * ahead are cancelled when the caller reaches the last page or an error.
+    * 
+    * @param pages
+    *           the pages to fetch ahead
+    * @param executor
+    *           fetches the pages
+    * @param lookahead
+    *           the maximum number of pages fetched ahead of the caller
+    * 
+    * @return iterable over the same pages
+    */
+   public static <T> PagedIterable<T> prefetch(final PagedIterable<T> pages, final ListeningExecutorService executor,
+         final int lookahead) {
+      checkNotNull(pages, "pages");
+      checkNotNull(executor, "executor");
+      checkArgument(lookahead > 0, "lookahead must be positive: %s", lookahead);
+      return new PagedIterable<T>() {
+         public Iterator<IterableWithMarker<T>> iterator() {
+            return new PrefetchingIterator<IterableWithMarker<T>>(pages.iterator(), executor, lookahead);
+         }
+
+         @Override
+         public String toString() {
+            return "prefetch(" + pages + ", " + lookahead + ")";
+         }
+      };
+   }
+
+   private static class PrefetchingIterator<T> extends AbstractIterator<T> {
+
+      private final Iterator<T> delegate;
+      private final ListeningExecutorService executor;
+      private final int lookahead;
+      private final Deque<ListenableFuture<Optional<T>>> fetches = new ArrayDeque<ListenableFuture<Optional<T>>>();
+      private final Callable<Optional<T>> fetch = new Callable<Optional<T>>() {
+         @Override
+         public Optional<T> call() {
+            return delegate.hasNext() ? Optional.of(delegate.next()) : Optional.<T> absent();
+         }
+      };
+
+      private PrefetchingIterator(Iterator<T> delegate, ListeningExecutorService executor, int lookahead) {
+         this.delegate = delegate;
+         this.executor = executor;
+         this.lookahead = lookahead;
+      }
+
+      @Override
+      protected T computeNext() {
+         // each fetch starts when the previous completes, as the delegate is not thread safe
+         while (fetches.size() <= lookahead) {
+            ListenableFuture<Optional<T>> previous = fetches.peekLast();
+            fetches.add(previous == null ? executor.submit(fetch) : Futures.transformAsync(previous,
+                  new AsyncFunction<Optional<T>, Optional<T>>() {
+                     @Override
+                     public ListenableFuture<Optional<T>> apply(Optional<T> input) {
+                        return input.isPresent() ? executor.submit(fetch) : Futures.immediateFuture(input);
+                     }
+                  }, executor));
+         }
+         try {
+            Optional<T> next = fetches.poll().get();
+            if (next.isPresent())
+               return next.get();
+            cancelFetches();
+            return endOfData();
+         } catch (InterruptedException e) {
+            cancelFetches();
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         } catch (ExecutionException e) {
+            cancelFetches();
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new UncheckedExecutionException(e.getCause());
+         } catch (RuntimeException e) {
+            cancelFetches();
+            throw e;
+         }
+      }
+
+      private void cancelFetches() {
+         for (ListenableFuture<Optional<T>> fetch; (fetch = fetches.poll()) != null;)
+            fetch.cancel(true);
+      }
+   }
 }
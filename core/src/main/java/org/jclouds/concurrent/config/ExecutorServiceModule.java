@@ -35,9 +35,7 @@ import org.jclouds.lifecycle.Closer;
 import org.jclouds.logging.Logger;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.google.common.util.concurrent.TimeLimiter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 
@@ -110,12 +108,6 @@ public class ExecutorServiceModule extends AbstractModule {
    protected void configure() { // NO_UCD
    }
 
-   @Provides
-   @Singleton
-   final TimeLimiter timeLimiter(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
-      return SimpleTimeLimiter.create(userExecutor);
-   }
-
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
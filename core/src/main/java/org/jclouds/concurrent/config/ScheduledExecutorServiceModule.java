@@ -37,9 +37,11 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 
 /**
- * Provides an {@link ScheduledExecutorService} to run periodical tasks such as virtual machine monitoring, etc.
+ * Provides an {@link ScheduledExecutorService} to run periodical tasks such as virtual machine monitoring, etc., and
+ * to time retries and timeouts out.
  * <p>
- * This module is not registered by default in the context because some providers do not allow to spawn threads.
+ * This module is registered by default in the context, unless a module is
+ * {@link org.jclouds.concurrent.SingleThreaded}, as some providers do not allow to spawn threads.
  * 
  * 
  * @see ExecutorServiceModule
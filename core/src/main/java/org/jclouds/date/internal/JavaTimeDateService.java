@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import org.jclouds.date.DateService;
+
+/**
+ * Formats and parses dates without locking.
+ * <p/>
+ * The canonical, fixed width forms of the formats, which are the ones sent and received on the wire,
+ * are written and read by hand, and the last text formatted in each format is cached for the second
+ * it represents, as most callers format the current time. Anything else, such as dates before the
+ * Gregorian calendar, unusual time zones or lenient input, is handed to a
+ * {@link SimpleDateFormatDateService}, so the results are the same as with it.
+ */
+public class JavaTimeDateService implements DateService {
+
+   private static final String[] DAYS = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" };
+   private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+         "Nov", "Dec" };
+
+   // SimpleDateFormat uses the Julian calendar before the Gregorian cutover
+   private static final int MIN_YEAR = 1583;
+   private static final int MAX_YEAR = 9999;
+
+   private final SimpleDateFormatDateService fallback = new SimpleDateFormatDateService();
+   private final ZoneId rfc1123Zone = ZoneId.systemDefault();
+
+   private volatile Formatted cDate = Formatted.NONE;
+   private volatile Formatted rfc822 = Formatted.NONE;
+   private volatile Formatted rfc1123 = Formatted.NONE;
+   private volatile Formatted iso8601Seconds = Formatted.NONE;
+   // the text up to and including the decimal point
+   private volatile Formatted iso8601 = Formatted.NONE;
+
+   /** The text of a date, truncated to the second. */
+   private static final class Formatted {
+      static final Formatted NONE = new Formatted(Long.MIN_VALUE, null);
+
+      final long epochSecond;
+      final String text;
+
+      Formatted(long epochSecond, String text) {
+         this.epochSecond = epochSecond;
+         this.text = text;
+      }
+   }
+
+   @Override
+   public final String cDateFormat(Date date) {
+      long epochSecond = epochSecond(date);
+      Formatted cached = cDate;
+      if (cached.epochSecond == epochSecond)
+         return cached.text;
+      LocalDateTime utc = utc(epochSecond);
+      if (utc == null)
+         return fallback.cDateFormat(date);
+      StringBuilder builder = new StringBuilder(30);
+      builder.append(DAYS[utc.getDayOfWeek().ordinal()]).append(' ').append(MONTHS[utc.getMonthValue() - 1]);
+      append2(builder.append(' '), utc.getDayOfMonth());
+      appendTime(builder.append(' '), utc);
+      append4(builder.append(" +0000 "), utc.getYear());
+      String text = builder.toString();
+      cDate = new Formatted(epochSecond, text);
+      return text;
+   }
+
+   @Override
+   public final String cDateFormat() {
+      return cDateFormat(new Date());
+   }
+
+   @Override
+   public final Date cDateParse(String toParse) {
+      // EEE MMM dd HH:mm:ss Z yyyy
+      if (toParse.length() == 30 && is(toParse, 3, ' ') && is(toParse, 7, ' ') && is(toParse, 10, ' ')
+            && is(toParse, 19, ' ') && is(toParse, 25, ' ') && isDay(toParse, 0)) {
+         Date date = parse(number(toParse, 26, 4), month(toParse, 4), number(toParse, 8, 2), toParse, 11, 0,
+               offset(toParse, 20, false));
+         if (date != null)
+            return date;
+      }
+      return fallback.cDateParse(toParse);
+   }
+
+   @Override
+   public final String rfc822DateFormat(Date date) {
+      long epochSecond = epochSecond(date);
+      Formatted cached = rfc822;
+      if (cached.epochSecond == epochSecond)
+         return cached.text;
+      LocalDateTime utc = utc(epochSecond);
+      if (utc == null)
+         return fallback.rfc822DateFormat(date);
+      StringBuilder builder = new StringBuilder(29);
+      appendRfc1123(builder, utc).append(" GMT");
+      String text = builder.toString();
+      rfc822 = new Formatted(epochSecond, text);
+      return text;
+   }
+
+   @Override
+   public final String rfc822DateFormat() {
+      return rfc822DateFormat(new Date());
+   }
+
+   @Override
+   public final Date rfc822DateParse(String toParse) {
+      // EEE, dd MMM yyyy HH:mm:ss 'GMT'
+      if (toParse.length() == 29 && isRfc1123(toParse) && toParse.startsWith(" GMT", 25)) {
+         Date date = parseRfc1123(toParse, 0);
+         if (date != null)
+            return date;
+      }
+      return fallback.rfc822DateParse(toParse);
+   }
+
+   @Override
+   public final String rfc1123DateFormat(Date date) {
+      long epochSecond = epochSecond(date);
+      Formatted cached = rfc1123;
+      if (cached.epochSecond == epochSecond)
+         return cached.text;
+      ZoneOffset offset = rfc1123Zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+      LocalDateTime local = offset.getTotalSeconds() % 60 == 0 ? inRange(LocalDateTime.ofEpochSecond(epochSecond, 0,
+            offset)) : null;
+      if (local == null)
+         return fallback.rfc1123DateFormat(date);
+      StringBuilder builder = new StringBuilder(31);
+      appendOffset(appendRfc1123(builder, local).append(' '), offset.getTotalSeconds(), false);
+      String text = builder.toString();
+      rfc1123 = new Formatted(epochSecond, text);
+      return text;
+   }
+
+   @Override
+   public final String rfc1123DateFormat() {
+      return rfc1123DateFormat(new Date());
+   }
+
+   @Override
+   public final Date rfc1123DateParse(String toParse) {
+      // EEE, dd MMM yyyy HH:mm:ss Z
+      if (toParse.length() == 31 && isRfc1123(toParse) && is(toParse, 25, ' ')) {
+         Date date = parseRfc1123(toParse, offset(toParse, 26, false));
+         if (date != null)
+            return date;
+      }
+      return fallback.rfc1123DateParse(toParse);
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat(Date date) {
+      long epochSecond = epochSecond(date);
+      Formatted cached = iso8601Seconds;
+      if (cached.epochSecond == epochSecond)
+         return cached.text;
+      LocalDateTime utc = utc(epochSecond);
+      if (utc == null)
+         return fallback.iso8601SecondsDateFormat(date);
+      StringBuilder builder = new StringBuilder(20);
+      appendIso8601(builder, utc).append('Z');
+      String text = builder.toString();
+      iso8601Seconds = new Formatted(epochSecond, text);
+      return text;
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat() {
+      return iso8601SecondsDateFormat(new Date());
+   }
+
+   @Override
+   public final String iso8601DateFormat(Date date) {
+      long epochSecond = epochSecond(date);
+      Formatted cached = iso8601;
+      if (cached.epochSecond != epochSecond) {
+         LocalDateTime utc = utc(epochSecond);
+         if (utc == null)
+            return fallback.iso8601DateFormat(date);
+         StringBuilder builder = new StringBuilder(20);
+         appendIso8601(builder, utc).append('.');
+         cached = iso8601 = new Formatted(epochSecond, builder.toString());
+      }
+      StringBuilder builder = new StringBuilder(24).append(cached.text);
+      int millis = (int) Math.floorMod(date.getTime(), 1000L);
+      append2(builder.append(millis / 100), millis % 100);
+      return builder.append('Z').toString();
+   }
+
+   @Override
+   public final String iso8601DateFormat() {
+      return iso8601DateFormat(new Date());
+   }
+
+   @Override
+   public final Date iso8601DateParse(String toParse) {
+      // yyyy-MM-dd'T'HH:mm:ss.SSS followed by Z, +hhmm or +hh:mm
+      if (toParse.length() >= 24 && isIso8601(toParse) && is(toParse, 19, '.')) {
+         int millis = number(toParse, 20, 3);
+         Date date = millis < 0 ? null : parseIso8601(toParse, millis, isoOffset(toParse, 23));
+         if (date != null)
+            return date;
+      }
+      return fallback.iso8601DateParse(toParse);
+   }
+
+   @Override
+   public final Date iso8601SecondsDateParse(String toParse) {
+      // yyyy-MM-dd'T'HH:mm:ss followed by Z, +hhmm or +hh:mm
+      if (toParse.length() >= 20 && isIso8601(toParse)) {
+         Date date = parseIso8601(toParse, 0, isoOffset(toParse, 19));
+         if (date != null)
+            return date;
+      }
+      return fallback.iso8601SecondsDateParse(toParse);
+   }
+
+   @Override
+   @SuppressWarnings("UnusedException")
+   public Date iso8601DateOrSecondsDateParse(String toParse) {
+      try {
+         return iso8601DateParse(toParse);
+      } catch (IllegalArgumentException orig) {
+         try {
+            return iso8601SecondsDateParse(toParse);
+         } catch (IllegalArgumentException ignored) {
+            throw orig;
+         }
+      }
+   }
+
+   private static long epochSecond(Date date) {
+      return Math.floorDiv(date.getTime(), 1000L);
+   }
+
+   private static LocalDateTime utc(long epochSecond) {
+      return inRange(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+   }
+
+   private static LocalDateTime inRange(LocalDateTime dateTime) {
+      return dateTime.getYear() < MIN_YEAR || dateTime.getYear() > MAX_YEAR ? null : dateTime;
+   }
+
+   private static StringBuilder appendRfc1123(StringBuilder builder, LocalDateTime dateTime) {
+      // EEE, dd MMM yyyy HH:mm:ss
+      builder.append(DAYS[dateTime.getDayOfWeek().ordinal()]).append(", ");
+      append2(builder, dateTime.getDayOfMonth());
+      builder.append(' ').append(MONTHS[dateTime.getMonthValue() - 1]).append(' ');
+      append4(builder, dateTime.getYear());
+      return appendTime(builder.append(' '), dateTime);
+   }
+
+   private static StringBuilder appendIso8601(StringBuilder builder, LocalDateTime dateTime) {
+      // yyyy-MM-dd'T'HH:mm:ss
+      append4(builder, dateTime.getYear()).append('-');
+      append2(builder, dateTime.getMonthValue()).append('-');
+      append2(builder, dateTime.getDayOfMonth()).append('T');
+      return appendTime(builder, dateTime);
+   }
+
+   private static StringBuilder appendTime(StringBuilder builder, LocalDateTime dateTime) {
+      append2(builder, dateTime.getHour()).append(':');
+      append2(builder, dateTime.getMinute()).append(':');
+      return append2(builder, dateTime.getSecond());
+   }
+
+   private static StringBuilder appendOffset(StringBuilder builder, int totalSeconds, boolean colon) {
+      int minutes = Math.abs(totalSeconds) / 60;
+      builder.append(totalSeconds < 0 ? '-' : '+');
+      append2(builder, minutes / 60);
+      if (colon)
+         builder.append(':');
+      return append2(builder, minutes % 60);
+   }
+
+   private static StringBuilder append2(StringBuilder builder, int value) {
+      return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+   }
+
+   private static StringBuilder append4(StringBuilder builder, int value) {
+      append2(builder, value / 100);
+      return append2(builder, value % 100);
+   }
+
+   private static boolean isRfc1123(String toParse) {
+      // EEE, dd MMM yyyy HH:mm:ss
+      return is(toParse, 3, ',') && is(toParse, 4, ' ') && is(toParse, 7, ' ') && is(toParse, 11, ' ')
+            && is(toParse, 16, ' ') && isDay(toParse, 0);
+   }
+
+   private static Date parseRfc1123(String toParse, int offsetSeconds) {
+      return parse(number(toParse, 12, 4), month(toParse, 8), number(toParse, 5, 2), toParse, 17, 0, offsetSeconds);
+   }
+
+   private static boolean isIso8601(String toParse) {
+      // yyyy-MM-dd'T'HH:mm:ss, the T may be a space
+      return is(toParse, 4, '-') && is(toParse, 7, '-') && (is(toParse, 10, 'T') || is(toParse, 10, ' '));
+   }
+
+   private static Date parseIso8601(String toParse, int millis, int offsetSeconds) {
+      return parse(number(toParse, 0, 4), number(toParse, 5, 2), number(toParse, 8, 2), toParse, 11, millis,
+            offsetSeconds);
+   }
+
+   /**
+    * Returns the offset at the end of an ISO 8601 date, or {@link Integer#MIN_VALUE} if it is not one
+    * of Z, +hhmm or +hh:mm.
+    */
+   private static int isoOffset(String toParse, int from) {
+      switch (toParse.length() - from) {
+         case 1:
+            return is(toParse, from, 'Z') ? 0 : Integer.MIN_VALUE;
+         case 5:
+            return offset(toParse, from, false);
+         case 6:
+            return offset(toParse, from, true);
+         default:
+            return Integer.MIN_VALUE;
+      }
+   }
+
+   /**
+    * Returns the offset, in seconds, written as +hhmm or +hh:mm at the given position, or
+    * {@link Integer#MIN_VALUE} if it isn't one.
+    */
+   private static int offset(String toParse, int from, boolean colon) {
+      char sign = toParse.charAt(from);
+      if (sign != '+' && sign != '-' || colon && !is(toParse, from + 3, ':'))
+         return Integer.MIN_VALUE;
+      int hours = number(toParse, from + 1, 2);
+      int minutes = number(toParse, colon ? from + 4 : from + 3, 2);
+      if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59)
+         return Integer.MIN_VALUE;
+      int seconds = (hours * 60 + minutes) * 60;
+      return sign == '-' ? -seconds : seconds;
+   }
+
+   /**
+    * Returns the date, or null if any field is missing or out of range, in which case the lenient
+    * parsing of {@link SimpleDateFormatDateService} decides what the text means.
+    */
+   private static Date parse(int year, int month, int day, String toParse, int time, int millis, int offsetSeconds) {
+      // HH:mm:ss
+      if (!is(toParse, time + 2, ':') || !is(toParse, time + 5, ':'))
+         return null;
+      int hour = number(toParse, time, 2);
+      int minute = number(toParse, time + 3, 2);
+      int second = number(toParse, time + 6, 2);
+      if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1
+            || day > Month.of(month).length(Year.isLeap(year)) || hour < 0 || hour > 23 || minute < 0 || minute > 59
+            || second < 0 || second > 59 || offsetSeconds == Integer.MIN_VALUE)
+         return null;
+      long epochSecond = LocalDateTime.of(year, month, day, hour, minute, second).toEpochSecond(ZoneOffset.UTC)
+            - offsetSeconds;
+      return new Date(epochSecond * 1000 + millis);
+   }
+
+   private static boolean is(String toParse, int index, char expected) {
+      return toParse.charAt(index) == expected;
+   }
+
+   private static boolean isDay(String toParse, int from) {
+      for (String day : DAYS) {
+         if (toParse.startsWith(day, from))
+            return true;
+      }
+      return false;
+   }
+
+   /** Returns the month, from 1 to 12, abbreviated at the given position, or -1. */
+   private static int month(String toParse, int from) {
+      for (int i = 0; i < MONTHS.length; i++) {
+         if (toParse.startsWith(MONTHS[i], from))
+            return i + 1;
+      }
+      return -1;
+   }
+
+   /** Returns the number written with the given count of digits at the given position, or -1. */
+   private static int number(String toParse, int from, int count) {
+      int value = 0;
+      for (int i = from; i < from + count; i++) {
+         char c = toParse.charAt(i);
+         if (c < '0' || c > '9')
+            return -1;
+         value = value * 10 + c - '0';
+      }
+      return value;
+   }
+}
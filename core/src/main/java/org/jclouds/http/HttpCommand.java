@@ -18,6 +18,7 @@ package org.jclouds.http;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import com.google.common.base.Objects;
@@ -28,17 +29,36 @@ import com.google.common.base.Objects;
 //TODO: get rid of all the mock tests so that this can be made final
 public class HttpCommand {
 
+   private final String name;
    private volatile HttpRequest request;
    private volatile int failureCount;
    private volatile int redirectCount;
    private volatile Exception exception;
 
    public HttpCommand(HttpRequest request) {
+      this(request, null);
+   }
+
+   /**
+    * @param name
+    *           the name of the api method sending the request, see {@link #getName()}
+    */
+   public HttpCommand(HttpRequest request, @Nullable String name) {
       this.request = checkNotNull(request, "request");
+      this.name = name != null ? name : request.getMethod();
       this.failureCount = 0;
       this.redirectCount = 0;
    }
 
+   /**
+    * The name of the command, used to report metrics about it: the value of the {@code @Named}
+    * annotation of the api method sending it, or the method of its request if it was not sent by an
+    * api method.
+    */
+   public String getName() {
+      return name;
+   }
+
    /**
     * This displays the current number of error retries for this command.
     * 
@@ -16,6 +16,8 @@
  */
 package org.jclouds.http;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Capable of invoking http commands.
  */
@@ -26,4 +28,22 @@ public interface HttpCommandExecutorService {
     * {@code command}.
     */
    HttpResponse invoke(HttpCommand command);
+
+   /**
+    * Returns a future {@code HttpResponse} from the server which responded to the
+    * {@code command}. The future fails with the exception {@link #invoke(HttpCommand)} would have
+    * thrown.
+    * <p/>
+    * Implementations which can wait for responses without holding a thread should override this.
+    * The default calls {@link #invoke(HttpCommand)} in the calling thread.
+    */
+   default CompletableFuture<HttpResponse> invokeAsync(HttpCommand command) {
+      CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+      try {
+         future.complete(invoke(command));
+      } catch (RuntimeException e) {
+         future.completeExceptionally(e);
+      }
+      return future;
+   }
 }
@@ -48,4 +48,13 @@ public interface HttpRetryHandler {
     * response has failed with a HTTP 5xx error indicating a server-side error.
     */
    boolean shouldRetryRequest(HttpCommand command, HttpResponse response);
+
+   /**
+    * Returns how many milliseconds to wait before the command is retried, or a negative value if it
+    * should not be retried. Handlers that back off override this to return the delay instead of
+    * sleeping, so that the retry can be scheduled without blocking a thread.
+    */
+   default long retryDelay(HttpCommand command, HttpResponse response) {
+      return shouldRetryRequest(command, response) ? 0 : -1;
+   }
 }
@@ -48,4 +48,14 @@ public interface IOExceptionRetryHandler {
    };
 
    boolean shouldRetryRequest(HttpCommand command, IOException error);
+
+   /**
+    * Returns how many milliseconds to wait before the command is retried, or a negative value if it
+    * should not be retried.
+    *
+    * @see HttpRetryHandler#retryDelay(HttpCommand, HttpResponse)
+    */
+   default long retryDelay(HttpCommand command, IOException error) {
+      return shouldRetryRequest(command, error) ? 0 : -1;
+   }
 }
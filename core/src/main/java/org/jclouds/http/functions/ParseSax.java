@@ -18,10 +18,9 @@ package org.jclouds.http.functions;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
 import static org.jclouds.util.Closeables2.closeQuietly;
 
-import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -35,6 +34,7 @@ import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.InvocationContext;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
@@ -42,6 +42,8 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
 import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
 import org.jclouds.util.Closeables2;
 
@@ -54,7 +56,13 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    @Resource
    private Logger logger = Logger.NULL;
 
-   private final XMLReader parser;
+   /** How much of the end of a document to keep for error messages when streaming it. */
+   private static final int DIAGNOSTIC_TAIL_BYTES = 8 * 1024;
+
+   /** Content handler of readers which are not parsing a document. */
+   private static final ContentHandler IDLE = new DefaultHandler();
+
+   private final Supplier<XMLReader> parser;
    private final HandlerWithResult<T> handler;
    private HttpRequest request;
 
@@ -63,6 +71,15 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    }
 
    public ParseSax(XMLReader parser, HandlerWithResult<T> handler) {
+      this(Suppliers.ofInstance(checkNotNull(parser, "parser")), handler);
+   }
+
+   /**
+    * @param parser
+    *           supplies the reader to parse each document with, which may be shared with other
+    *           instances in the same thread
+    */
+   public ParseSax(Supplier<XMLReader> parser, HandlerWithResult<T> handler) {
       this.parser = checkNotNull(parser, "parser");
       this.handler = checkNotNull(handler, "handler");
    }
@@ -75,34 +92,22 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
          return addDetailsAndPropagate(from, e);
       }
       InputStream is = null;
+      TailInputStream tail = null;
       try {
+         is = from.getPayload().openStream();
          // debug is more normally set, so trace is more appropriate for
          // something heavy like this
          if (from.getStatusCode() >= 300 || logger.isTraceEnabled())
-            return convertStreamToStringAndParse(from);
-         is = from.getPayload().getInput();
-         return parse(new InputSource(is));
-      } catch (RuntimeException e) {
-         return addDetailsAndPropagate(from, e);
+            is = tail = new TailInputStream(is, DIAGNOSTIC_TAIL_BYTES);
+         return doParse(new InputSource(is));
+      } catch (Exception e) {
+         return addDetailsAndPropagate(from, e, tail != null ? tail.toString() : null);
       } finally {
          Closeables2.closeQuietly(is);
          from.getPayload().release();
       }
    }
 
-   private T convertStreamToStringAndParse(HttpResponse response) {
-      String from = null;
-      try {
-         byte[] fromBytes = closeClientButKeepContentStream(response);
-         from = new String(fromBytes, StandardCharsets.UTF_8);
-         validateXml(from);
-         // Use InputStream to skip over byte order mark.
-         return doParse(new InputSource(new ByteArrayInputStream(fromBytes)));
-      } catch (Exception e) {
-         return addDetailsAndPropagate(response, e, from);
-      }
-   }
-
    public T parse(String from) {
       try {
          validateXml(from);
@@ -136,9 +141,15 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    protected T doParse(InputSource from) throws IOException, SAXException {
       checkNotNull(from, "xml inputsource");
       from.setEncoding(StandardCharsets.UTF_8.name());
+      XMLReader parser = this.parser.get();
       parser.setContentHandler(getHandler());
-      // This method should accept documents with a BOM (Byte-order mark)
-      parser.parse(from);
+      try {
+         // This method should accept documents with a BOM (Byte-order mark)
+         parser.parse(from);
+      } finally {
+         // marks a shared reader as free and lets go of the handler
+         parser.setContentHandler(IDLE);
+      }
       return getHandler().getResult();
    }
 
@@ -224,4 +235,64 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
       this.request = request;
       return this;
    }
+
+   /**
+    * Remembers the last bytes read from a stream, so that error messages can show where parsing
+    * stopped without buffering the whole document.
+    */
+   static final class TailInputStream extends FilterInputStream {
+      private final byte[] tail;
+      private long count;
+
+      TailInputStream(InputStream in, int size) {
+         super(in);
+         this.tail = new byte[size];
+      }
+
+      @Override
+      public int read() throws IOException {
+         int b = super.read();
+         if (b != -1)
+            tail[(int) (count++ % tail.length)] = (byte) b;
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int read = super.read(b, off, len);
+         if (read > 0)
+            remember(b, off, read);
+         return read;
+      }
+
+      private void remember(byte[] b, int off, int len) {
+         if (len >= tail.length) {
+            off += len - tail.length;
+            count += len - tail.length;
+            len = tail.length;
+         }
+         int start = (int) (count % tail.length);
+         int first = Math.min(len, tail.length - start);
+         System.arraycopy(b, off, tail, start, first);
+         System.arraycopy(b, off + first, tail, 0, len - first);
+         count += len;
+      }
+
+      @Override
+      public boolean markSupported() {
+         return false;
+      }
+
+      /** @return the remembered bytes, decoded as UTF-8 */
+      @Override
+      public String toString() {
+         if (count <= tail.length)
+            return new String(tail, 0, (int) count, StandardCharsets.UTF_8);
+         int start = (int) (count % tail.length);
+         byte[] ordered = new byte[tail.length];
+         System.arraycopy(tail, start, ordered, 0, tail.length - start);
+         System.arraycopy(tail, 0, ordered, tail.length - start, start);
+         return "..." + new String(ordered, StandardCharsets.UTF_8);
+      }
+   }
 }
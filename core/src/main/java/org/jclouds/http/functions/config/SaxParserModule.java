@@ -25,6 +25,7 @@ import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ParseSax.HandlerWithResult;
 import org.xml.sax.XMLReader;
 
+import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
@@ -41,28 +42,54 @@ public class SaxParserModule extends AbstractModule {
    }
 
    static class Factory implements ParseSax.Factory {
-      private final SAXParserFactory factory;
+      private final Supplier<XMLReader> readers;
       private final Injector i;
 
       @Inject
       Factory(SAXParserFactory factory, Injector i) {
-         this.factory = factory;
+         this.readers = new PerThreadXMLReader(factory);
          this.i = i;
       }
 
       public <T> ParseSax<T> create(HandlerWithResult<T> handler) {
-         SAXParser saxParser;
+         // TODO: switch to @AssistedInject
+         ParseSax<T> returnVal = new ParseSax<T>(readers, handler);
+         i.injectMembers(returnVal);
+         return returnVal;
+      }
+   }
+
+   /**
+    * Creating a {@link SAXParser} costs more than parsing most responses, so each thread keeps one
+    * reader. A reader which is still parsing, as when a handler parses another document, is not
+    * handed out again; a new one is created for the nested document instead.
+    */
+   static final class PerThreadXMLReader implements Supplier<XMLReader> {
+      private final SAXParserFactory factory;
+      private final ThreadLocal<XMLReader> readers = new ThreadLocal<XMLReader>();
+
+      PerThreadXMLReader(SAXParserFactory factory) {
+         this.factory = factory;
+      }
+
+      @Override
+      public XMLReader get() {
+         XMLReader reader = readers.get();
+         if (reader == null) {
+            reader = newReader();
+            readers.set(reader);
+         } else if (reader.getContentHandler() instanceof HandlerWithResult) {
+            reader = newReader();
+         }
+         return reader;
+      }
+
+      private XMLReader newReader() {
          try {
-            saxParser = factory.newSAXParser();
-            XMLReader parser = saxParser.getXMLReader();
-            // TODO: switch to @AssistedInject
-            ParseSax<T> returnVal = new ParseSax<T>(parser, handler);
-            i.injectMembers(returnVal);
-            return returnVal;
+            return factory.newSAXParser().getXMLReader();
          } catch (Exception e) {
             throw Throwables.propagate(e);
          }
-
       }
    }
 
@@ -20,6 +20,8 @@ import static java.lang.Math.max;
 
 import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -68,6 +70,13 @@ import com.google.inject.Inject;
  * </tr>
  * </table>
  * <p>
+ * The delay actually waited is picked at random between zero and the value above, unless
+ * {@link Constants#PROPERTY_RETRY_FULL_JITTER} is turned off, in which case up to a tenth of it is
+ * added instead.
+ * <p>
+ * When asked for the {@link #retryDelay(HttpCommand, HttpResponse) retry delay}, this handler returns
+ * the delay instead of sleeping, so that the caller can schedule the retry.
+ * <p>
  * This implementation has two side-effects. It increments the command's failure count with
  * {@link TransformingHttpCommand#incrementFailureCount()}, because this failure count value is used
  * to determine how many times the command has already been tried. It also closes the response's
@@ -86,6 +95,10 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
    @Named(Constants.PROPERTY_RETRY_DELAY_START)
    private long delayStart = 50L;
 
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_RETRY_FULL_JITTER)
+   private boolean fullJitter = true;
+
    @Resource
    protected Logger logger = Logger.NULL;
 
@@ -97,6 +110,26 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
       return ifReplayableBackoffAndReturnTrue(command);
    }
 
+   @Override
+   public long retryDelay(final HttpCommand command, final IOException error) {
+      return DeferredDelay.collect(new LongSupplier() {
+         @Override
+         public long getAsLong() {
+            return shouldRetryRequest(command, error) ? 0 : -1;
+         }
+      });
+   }
+
+   @Override
+   public long retryDelay(final HttpCommand command, final HttpResponse response) {
+      return DeferredDelay.collect(new LongSupplier() {
+         @Override
+         public long getAsLong() {
+            return shouldRetryRequest(command, response) ? 0 : -1;
+         }
+      });
+   }
+
    private boolean ifReplayableBackoffAndReturnTrue(HttpCommand command) {
       command.incrementFailureCount();
 
@@ -129,15 +162,22 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
          return;
       }
       long delayMs = (long) (period * Math.pow(failureCount, pow));
-      // Add random delay to avoid thundering herd problem when multiple
-      // simultaneous failed requests retry after sleeping for the same delay.
-      // Throws an exception for a value of 0
-      delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
-      delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
+      if (fullJitter) {
+         // Spread the retries over the whole back-off period, as requests failing together, for example
+         // when throttled, would otherwise retry together and be throttled again.
+         delayMs = (long) (ThreadLocalRandom.current().nextDouble() * Math.min(delayMs, maxPeriod));
+      } else {
+         // Add random delay to avoid thundering herd problem when multiple
+         // simultaneous failed requests retry after sleeping for the same delay.
+         // Throws an exception for a value of 0
+         delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
+         delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
+      }
       logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, delayMs, commandDescription);
       try {
-         Thread.sleep(delayMs);
+         DeferredDelay.delay(delayMs);
       } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
          Throwables.propagate(e);
       }
    }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the back-off delays that retry handlers impose while deciding whether to retry, so that
+ * the caller can schedule the retry instead of sleeping. Outside of {@link #collect} the delays are
+ * slept as before, which keeps handlers that call each other, or that are called directly, working
+ * unchanged.
+ */
+final class DeferredDelay {
+
+   private static final ThreadLocal<long[]> COLLECTED = new ThreadLocal<long[]>();
+
+   private DeferredDelay() {
+   }
+
+   /**
+    * Runs the retry decision, adding to the delay it returns the delays it imposed meanwhile.
+    *
+    * @return a negative value if the decision is not to retry
+    */
+   static long collect(LongSupplier decision) {
+      long[] previous = COLLECTED.get();
+      long[] collected = { 0 };
+      COLLECTED.set(collected);
+      try {
+         long delay = decision.getAsLong();
+         return delay < 0 ? delay : delay + collected[0];
+      } finally {
+         if (previous != null)
+            COLLECTED.set(previous);
+         else
+            COLLECTED.remove();
+      }
+   }
+
+   /**
+    * Adds the delay to the one being collected, or sleeps for it.
+    */
+   static void delay(long millis) throws InterruptedException {
+      long[] collected = COLLECTED.get();
+      if (collected != null)
+         collected[0] += millis;
+      else
+         Thread.sleep(millis);
+   }
+}
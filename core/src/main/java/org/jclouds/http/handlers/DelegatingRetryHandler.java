@@ -16,6 +16,8 @@
  */
 package org.jclouds.http.handlers;
 
+import java.util.function.LongSupplier;
+
 import javax.inject.Singleton;
 
 import org.jclouds.http.HttpCommand;
@@ -71,6 +73,28 @@ public class DelegatingRetryHandler implements HttpRetryHandler {
       return retryRequest;
    }
 
+   @Override
+   public long retryDelay(final HttpCommand command, final HttpResponse response) {
+      int statusCode = response.getStatusCode();
+      final HttpRetryHandler handler;
+      if (statusCode >= 300 && statusCode < 400) {
+         handler = redirectionRetryHandler;
+      } else if (statusCode >= 400 && statusCode < 500) {
+         handler = clientErrorRetryHandler;
+      } else if (statusCode >= 500) {
+         handler = serverErrorRetryHandler;
+      } else {
+         return -1;
+      }
+      // handlers that do not override retryDelay may still back off through another handler
+      return DeferredDelay.collect(new LongSupplier() {
+         @Override
+         public long getAsLong() {
+            return handler.retryDelay(command, response);
+         }
+      });
+   }
+
    public HttpRetryHandler getRedirectionRetryHandler() {
       return redirectionRetryHandler;
    }
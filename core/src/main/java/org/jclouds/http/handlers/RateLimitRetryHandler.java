@@ -19,6 +19,8 @@ package org.jclouds.http.handlers;
 import static org.jclouds.Constants.PROPERTY_MAX_RATE_LIMIT_WAIT;
 import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 
+import java.util.function.LongSupplier;
+
 import javax.annotation.Resource;
 import javax.inject.Named;
 
@@ -68,6 +70,19 @@ public abstract class RateLimitRetryHandler implements HttpRetryHandler {
     */
    protected abstract Optional<Long> millisToNextAvailableRequest(final HttpCommand command, final HttpResponse response);
 
+   /**
+    * Returns the time to wait until a request can be performed, instead of sleeping for it.
+    */
+   @Override
+   public long retryDelay(final HttpCommand command, final HttpResponse response) {
+      return DeferredDelay.collect(new LongSupplier() {
+         @Override
+         public long getAsLong() {
+            return shouldRetryRequest(command, response) ? 0 : -1;
+         }
+      });
+   }
+
    @Override
    public boolean shouldRetryRequest(final HttpCommand command, final HttpResponse response) {
       command.incrementFailureCount();
@@ -106,7 +121,7 @@ public abstract class RateLimitRetryHandler implements HttpRetryHandler {
             logger.debug("Waiting %sms before retrying, as defined by the rate limit", waitPeriod);
             // Do not use Uninterrumpibles or similar, to let the jclouds
             // tiemout configuration interrupt this thread
-            Thread.sleep(waitPeriod);
+            DeferredDelay.delay(waitPeriod);
          } catch (InterruptedException ex) {
             // If the request is being executed and has a timeout configured,
             // the thread may be interrupted when the timeout is reached.
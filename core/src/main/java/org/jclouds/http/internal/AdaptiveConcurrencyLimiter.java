@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.jclouds.Constants.PROPERTY_ADAPTIVE_CONCURRENCY;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_RETRY_BUDGET_RATIO;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+
+/**
+ * Limits the requests in flight to each endpoint, and the retries of the context, so that the
+ * throughput under throttling converges instead of collapsing in waves of retries.
+ * <p>
+ * The limit of an endpoint follows an additive increase, multiplicative decrease algorithm: it starts
+ * at the configured connection limit, is halved when the endpoint throttles a request, at most once
+ * per round trip, and grows by one request per limit of successful requests. Retries of throttled
+ * and failed requests withdraw from a budget which every request sent refills by
+ * {@link org.jclouds.Constants#PROPERTY_RETRY_BUDGET_RATIO}.
+ * <p>
+ * Disabled unless {@link org.jclouds.Constants#PROPERTY_ADAPTIVE_CONCURRENCY} is set.
+ */
+@Beta
+@Singleton
+public class AdaptiveConcurrencyLimiter {
+
+   /** Retries which can be made before any request refilled the budget. */
+   private static final double RETRY_RESERVE = 10;
+   /** The most retries the budget can bank. */
+   private static final double MAX_RETRY_BALANCE = 100;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_ADAPTIVE_CONCURRENCY)
+   private boolean enabled = false;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT)
+   private int maxConnectionsPerContext = 20;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MAX_CONNECTIONS_PER_HOST)
+   private int maxConnectionsPerHost = 0;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RETRY_BUDGET_RATIO)
+   private float retryBudgetRatio = 0.1f;
+
+   private final LoadingCache<String, Limit> limits = CacheBuilder.newBuilder().build(
+         new CacheLoader<String, Limit>() {
+            @Override
+            public Limit load(String endpoint) {
+               return new Limit(endpoint, maxConnectionsPerHost > 0 ? maxConnectionsPerHost
+                     : Math.max(1, maxConnectionsPerContext));
+            }
+         });
+
+   private final Object budgetLock = new Object();
+   // guarded by budgetLock
+   private double retryBalance = RETRY_RESERVE;
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Waits until a request can be sent to the endpoint.
+    *
+    * @return the permit to release once the response is received, or null if the limiter is disabled
+    */
+   @Nullable
+   public Permit acquire(URI endpoint) throws InterruptedException {
+      CompletableFuture<Permit> permit = acquireAsync(endpoint);
+      try {
+         return permit.get();
+      } catch (InterruptedException e) {
+         if (!permit.cancel(false)) {
+            // given the permit while being interrupted
+            permit.join().cancel();
+         }
+         throw e;
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Returns a future permit to send a request to the endpoint, which completes once the request can
+    * be sent, in the thread releasing the previous permit. Cancelling the future gives up waiting.
+    *
+    * @return the future permit, or null if the limiter is disabled
+    */
+   public CompletableFuture<Permit> acquireAsync(URI endpoint) {
+      if (!enabled) {
+         return CompletableFuture.completedFuture(null);
+      }
+      Limit limit = limits.getUnchecked(endpoint.getScheme() + "://" + endpoint.getHost() + ":" + endpoint.getPort());
+      return limit.acquire();
+   }
+
+   /**
+    * Refills the retry budget for a request about to be sent for the first time.
+    */
+   public void requested() {
+      if (!enabled) {
+         return;
+      }
+      synchronized (budgetLock) {
+         retryBalance = Math.min(MAX_RETRY_BALANCE, retryBalance + retryBudgetRatio);
+      }
+   }
+
+   /**
+    * Withdraws a retry from the budget.
+    *
+    * @return false if the budget is exhausted and the request should not be retried
+    */
+   public boolean tryRetry() {
+      if (!enabled) {
+         return true;
+      }
+      synchronized (budgetLock) {
+         if (retryBalance < 1) {
+            logger.debug("Retry budget exhausted");
+            return false;
+         }
+         retryBalance -= 1;
+         return true;
+      }
+   }
+
+   /**
+    * Gives back a retry withdrawn with {@link #tryRetry()} which was not used.
+    */
+   public void refundRetry() {
+      if (!enabled) {
+         return;
+      }
+      synchronized (budgetLock) {
+         retryBalance = Math.min(MAX_RETRY_BALANCE, retryBalance + 1);
+      }
+   }
+
+   /**
+    * Whether the status code means the endpoint is overloaded or throttling requests.
+    */
+   public static boolean isThrottled(int statusCode) {
+      return statusCode == 429 || statusCode == 503;
+   }
+
+   @VisibleForTesting
+   int limit(URI endpoint) {
+      return (int) limits.getUnchecked(endpoint.getScheme() + "://" + endpoint.getHost() + ":" + endpoint.getPort())
+            .limit();
+   }
+
+   /** The right to have one request in flight to an endpoint. */
+   public static final class Permit {
+      private final Limit limit;
+      // the sequence number of the request, in the order permits were given
+      private final long sentAt;
+      // guarded by limit
+      private boolean released;
+
+      private Permit(Limit limit, long sentAt) {
+         this.limit = limit;
+         this.sentAt = sentAt;
+      }
+
+      /**
+       * Gives the permit back, adjusting the limit of the endpoint according to the response.
+       */
+      public void release(int statusCode) {
+         release(isThrottled(statusCode) ? Outcome.THROTTLED : Outcome.SUCCEEDED);
+      }
+
+      /**
+       * Gives the permit back without adjusting the limit, as no response was received.
+       */
+      public void cancel() {
+         release(Outcome.UNKNOWN);
+      }
+
+      private void release(Outcome outcome) {
+         synchronized (limit) {
+            if (released) {
+               return;
+            }
+            released = true;
+         }
+         limit.release(sentAt, outcome);
+      }
+   }
+
+   private enum Outcome {
+      SUCCEEDED, THROTTLED, UNKNOWN;
+   }
+
+   private final class Limit {
+      private final String endpoint;
+      private final int max;
+      // guarded by this
+      private double limit;
+      private int inFlight;
+      private long decreasedAt = Long.MIN_VALUE;
+      private long sequence;
+      private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<CompletableFuture<Permit>>();
+
+      Limit(String endpoint, int max) {
+         this.endpoint = endpoint;
+         this.max = max;
+         this.limit = max;
+      }
+
+      synchronized double limit() {
+         return limit;
+      }
+
+      synchronized CompletableFuture<Permit> acquire() {
+         if (waiters.isEmpty() && inFlight < (int) limit) {
+            inFlight++;
+            return CompletableFuture.completedFuture(new Permit(this, sequence++));
+         }
+         CompletableFuture<Permit> waiter = new CompletableFuture<Permit>();
+         waiters.add(waiter);
+         return waiter;
+      }
+
+      void release(long sentAt, Outcome outcome) {
+         Map<CompletableFuture<Permit>, Permit> granted;
+         synchronized (this) {
+            adjust(sentAt, outcome);
+            granted = grant();
+         }
+         // waiters continue in this thread, so complete them outside of the lock
+         for (Map.Entry<CompletableFuture<Permit>, Permit> entry : granted.entrySet()) {
+            if (!entry.getKey().complete(entry.getValue())) {
+               entry.getValue().cancel();
+            }
+         }
+      }
+
+      // guarded by this
+      private Map<CompletableFuture<Permit>, Permit> grant() {
+         Map<CompletableFuture<Permit>, Permit> granted = new LinkedHashMap<CompletableFuture<Permit>, Permit>();
+         while (inFlight < (int) limit && !waiters.isEmpty()) {
+            CompletableFuture<Permit> waiter = waiters.poll();
+            if (!waiter.isDone()) {
+               inFlight++;
+               granted.put(waiter, new Permit(this, sequence++));
+            }
+         }
+         return granted;
+      }
+
+      // guarded by this
+      private void adjust(long sentAt, Outcome outcome) {
+         inFlight--;
+         switch (outcome) {
+            case THROTTLED:
+               // requests sent before the last decrease were throttled under the previous limit
+               if (sentAt >= decreasedAt) {
+                  limit = Math.max(1, Math.floor(limit / 2));
+                  decreasedAt = sequence;
+                  logger.debug("%s throttled a request, limiting to %d requests in flight", endpoint, (int) limit);
+               }
+               break;
+            case SUCCEEDED:
+               limit = Math.min(max, limit + 1 / limit);
+               break;
+            default:
+               break;
+         }
+      }
+   }
+}
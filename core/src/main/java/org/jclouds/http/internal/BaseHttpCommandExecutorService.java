@@ -18,6 +18,7 @@ package org.jclouds.http.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
 import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
 import static org.jclouds.http.HttpUtils.releasePayload;
@@ -27,6 +28,16 @@ import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -42,11 +53,16 @@ import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.AdaptiveConcurrencyLimiter.Permit;
+import org.jclouds.http.metrics.HttpMetricsListener;
 import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
    protected final HttpUtils utils;
@@ -66,6 +82,20 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    private final Set<String> idempotentMethods;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_USER_THREADS)
+   private ListeningExecutorService userExecutor;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_SCHEDULER_THREADS)
+   private ScheduledExecutorService scheduler;
+
+   @com.google.inject.Inject(optional = true)
+   private AdaptiveConcurrencyLimiter limiter;
+
+   @com.google.inject.Inject(optional = true)
+   private HttpMetricsListener metrics = HttpMetricsListener.NULL;
+
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
          DelegatingErrorHandler errorHandler, HttpWire wire,
@@ -79,71 +109,327 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       this.idempotentMethods = ImmutableSet.copyOf(idempotentMethods.split(","));
    }
 
+   /**
+    * Sends the {@code command} and waits for its response. The request is sent, and the retry and
+    * error handlers are run, in the calling thread.
+    */
    @Override
    public HttpResponse invoke(HttpCommand command) {
-      HttpResponse response = null;
-      for (;;) {
-         HttpRequest request = command.getCurrentRequest();
-         Q nativeRequest = null;
+      CallingThreadExecutor callingThread = new CallingThreadExecutor();
+      CompletableFuture<HttpResponse> response = invokeAsync(command, callingThread);
+      try {
+         callingThread.runUntilDone(response);
+         return response.join();
+      } catch (InterruptedException e) {
+         response.cancel(true);
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (CompletionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Sends the {@code command} without waiting for the response, following the same retry and error
+    * handling rules as {@link #invoke(HttpCommand)}. Retry and error handlers may block, so they are
+    * run in the user executor rather than in the thread which completed the response.
+    */
+   @Override
+   public CompletableFuture<HttpResponse> invokeAsync(HttpCommand command) {
+      return invokeAsync(command, userExecutor != null ? userExecutor : MoreExecutors.directExecutor());
+   }
+
+   /**
+    * @param executor
+    *           runs the tasks of the command which may block
+    */
+   private CompletableFuture<HttpResponse> invokeAsync(HttpCommand command, Executor executor) {
+      CompletableFuture<HttpResponse> result = new CompletableFuture<HttpResponse>();
+      if (limiter != null)
+         limiter.requested();
+      sendAsync(command, result, executor);
+      return result;
+   }
+
+   private void sendAsync(final HttpCommand command, final CompletableFuture<HttpResponse> result,
+         final Executor executor) {
+      if (result.isDone()) {
+         return; // cancelled or timed out while retrying
+      }
+      Q nativeRequest = null;
+      final HttpRequest request;
+      try {
+         long start = System.nanoTime();
+         request = filter(command.getCurrentRequest());
+         nativeRequest = convert(request);
+         metrics.onFiltered(command, System.nanoTime() - start);
+      } catch (Exception e) {
+         cleanup(nativeRequest);
+         onException(command, e, result, executor);
+         return;
+      }
+      final Q nativeRequestToSend = nativeRequest;
+      final CompletableFuture<Permit> permit = acquireAsync(request);
+      result.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+         @Override
+         public void accept(HttpResponse response, Throwable error) {
+            if (error != null) {
+               permit.cancel(false);
+            }
+         }
+      });
+      BiConsumer<Permit, Throwable> sendWithPermit = new BiConsumer<Permit, Throwable>() {
+         @Override
+         public void accept(Permit granted, Throwable error) {
+            if (error != null || result.isDone()) {
+               // cancelled while waiting for the permit
+               cancel(granted);
+               cleanup(nativeRequestToSend);
+               return;
+            }
+            send(command, request, nativeRequestToSend, granted, result, executor);
+         }
+      };
+      if (executor instanceof CallingThreadExecutor) {
+         // the request is sent by the calling thread, even if another thread releases the permit
+         permit.whenCompleteAsync(sendWithPermit, executor);
+      } else {
+         // rather than waiting for a permit, send the request in the thread releasing it
+         permit.whenComplete(sendWithPermit);
+      }
+   }
+
+   private void send(final HttpCommand command, final HttpRequest request, final Q nativeRequest,
+         @Nullable final Permit permit, final CompletableFuture<HttpResponse> result, final Executor executor) {
+      final long sent = System.nanoTime();
+      final CompletableFuture<HttpResponse> pending;
+      if (executor instanceof CallingThreadExecutor) {
+         pending = new CompletableFuture<HttpResponse>();
+         try {
+            pending.complete(invoke(nativeRequest));
+         } catch (Throwable t) {
+            pending.completeExceptionally(t);
+         }
+      } else {
          try {
-            for (HttpRequestFilter filter : request.getFilters()) {
-               request = filter.filter(request);
+            pending = invokeAsync(nativeRequest);
+         } catch (RuntimeException e) {
+            cancel(permit);
+            cleanup(nativeRequest);
+            onException(command, e, result, executor);
+            return;
+         }
+         result.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(HttpResponse response, Throwable error) {
+               if (error != null) {
+                  pending.cancel(true);
+               }
             }
-            checkRequestHasContentLengthOrChunkedEncoding(request,
-                  "After filtering, the request has neither chunked encoding nor content length: " + request);
-            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
-            utils.logRequest(headerLog, request, ">>");
-            nativeRequest = convert(request);
-            response = invoke(nativeRequest);
-
-            logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
-            utils.logResponse(headerLog, response, "<<");
-            if (response.getPayload() != null && wire.enabled())
-               wire.input(response);
-            nativeRequest = null; // response took ownership of streams
-            int statusCode = response.getStatusCode();
-            if (statusCode >= 300) {
-               if (shouldContinue(command, response))
-                  continue;
-               else
-                  break;
+         });
+      }
+      pending.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+         @Override
+         public void accept(HttpResponse response, Throwable error) {
+            if (error != null) {
+               cancel(permit);
+               metrics.onFailure(command, error, System.nanoTime() - sent);
+               cleanup(nativeRequest);
+               onException(command, error instanceof CompletionException && error.getCause() != null
+                     ? error.getCause() : error, result, executor);
             } else {
-               break;
+               release(permit, response);
+               metrics.onResponse(command, response, System.nanoTime() - sent);
+               onResponse(command, request, response, result, executor);
             }
-         } catch (Exception e) {
-            IOException ioe = getFirstThrowableOfType(e, IOException.class);
-            if (ioe != null && shouldContinue(command, ioe)) {
-               continue;
+         }
+      });
+   }
+
+   private void onResponse(final HttpCommand command, HttpRequest request, final HttpResponse response,
+         final CompletableFuture<HttpResponse> result, final Executor executor) {
+      try {
+         received(request, response);
+      } catch (Exception e) {
+         releasePayload(response);
+         onException(command, e, result, executor);
+         return;
+      }
+      if (response.getStatusCode() < 300) {
+         complete(command, response, result);
+         return;
+      }
+      runMayBlock(executor, new Runnable() {
+         @Override
+         public void run() {
+            try {
+               long delay = retryDelay(command, response);
+               if (delay >= 0)
+                  resend(command, result, executor, delay);
+               else
+                  complete(command, response, result);
+            } catch (RuntimeException e) {
+               onException(command, e, result, executor);
             }
-            command.setException(new HttpResponseException(e.getMessage() + " connecting to "
-                  + command.getCurrentRequest().getRequestLine(), command, null, e));
-            break;
+         }
+      });
+   }
 
-         } finally {
-            cleanup(nativeRequest);
+   private void onException(final HttpCommand command, final Throwable e, final CompletableFuture<HttpResponse> result,
+         final Executor executor) {
+      final IOException ioe = getFirstThrowableOfType(e, IOException.class);
+      if (ioe == null) {
+         fail(command, e, result);
+         return;
+      }
+      runMayBlock(executor, new Runnable() {
+         @Override
+         public void run() {
+            long delay = retryDelay(command, ioe);
+            if (delay >= 0)
+               resend(command, result, executor, delay);
+            else
+               fail(command, e, result);
          }
+      });
+   }
+
+   /**
+    * Sends the command again once the retry delay has passed. The delay is timed on the shared
+    * scheduler, so that no thread is blocked while backing off.
+    */
+   private void resend(final HttpCommand command, final CompletableFuture<HttpResponse> result,
+         final Executor executor, long delayMillis) {
+      if (delayMillis <= 0) {
+         sendAsync(command, result, executor);
+         return;
+      }
+      if (scheduler != null) {
+         try {
+            final ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+               @Override
+               public void run() {
+                  runMayBlock(executor, new Runnable() {
+                     @Override
+                     public void run() {
+                        sendAsync(command, result, executor);
+                     }
+                  });
+               }
+            }, delayMillis, MILLISECONDS);
+            result.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+               @Override
+               public void accept(HttpResponse response, Throwable error) {
+                  // the call timed out or was cancelled while backing off
+                  timer.cancel(false);
+               }
+            });
+            return;
+         } catch (RejectedExecutionException e) {
+            // shutting down, back off in this thread
+         }
+      }
+      try {
+         Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         fail(command, e, result);
+         return;
       }
-      if (command.getException() != null)
-         throw propagate(command.getException());
-      return response;
+      sendAsync(command, result, executor);
    }
 
+   private static void fail(HttpCommand command, Throwable e, CompletableFuture<HttpResponse> result) {
+      command.setException(new HttpResponseException(e.getMessage() + " connecting to "
+            + command.getCurrentRequest().getRequestLine(), command, null, e));
+      result.completeExceptionally(command.getException());
+   }
+
+   private static void complete(HttpCommand command, HttpResponse response, CompletableFuture<HttpResponse> result) {
+      if (command.getException() != null) {
+         result.completeExceptionally(command.getException());
+      } else if (!result.complete(response)) {
+         // nobody is waiting for the response anymore
+         releasePayload(response);
+      }
+   }
+
+   private static void runMayBlock(Executor executor, Runnable task) {
+      try {
+         executor.execute(task);
+      } catch (RejectedExecutionException e) {
+         // shutting down, finish in this thread
+         task.run();
+      }
+   }
+
+   /**
+    * Returns the future permit of the {@link AdaptiveConcurrencyLimiter} to send the request, which
+    * completes with null if it is disabled.
+    */
+   private CompletableFuture<Permit> acquireAsync(HttpRequest request) {
+      return limiter == null ? CompletableFuture.<Permit>completedFuture(null)
+            : limiter.acquireAsync(request.getEndpoint());
+   }
+
+   private static void release(@Nullable Permit permit, HttpResponse response) {
+      if (permit != null)
+         permit.release(response.getStatusCode());
+   }
+
+   private static void cancel(@Nullable Permit permit) {
+      if (permit != null)
+         permit.cancel();
+   }
+
+   private HttpRequest filter(HttpRequest request) {
+      for (HttpRequestFilter filter : request.getFilters()) {
+         request = filter.filter(request);
+      }
+      checkRequestHasContentLengthOrChunkedEncoding(request,
+            "After filtering, the request has neither chunked encoding nor content length: " + request);
+      logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+      wirePayloadIfEnabled(wire, request);
+      utils.logRequest(headerLog, request, ">>");
+      return request;
+   }
+
+   private void received(HttpRequest request, HttpResponse response) {
+      logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+      utils.logResponse(headerLog, response, "<<");
+      if (response.getPayload() != null && wire.enabled())
+         wire.input(response);
+   }
+
+   /**
+    * Returns how many milliseconds to wait before retrying the command, or a negative value if the
+    * error handler has handled the response and the command should not be retried.
+    */
    @VisibleForTesting
-   boolean shouldContinue(HttpCommand command, HttpResponse response) {
-      boolean shouldContinue = false;
-      if (retryHandler.shouldRetryRequest(command, response)) {
-         shouldContinue = true;
-      } else {
-         errorHandler.handleError(command, response);
+   long retryDelay(HttpCommand command, HttpResponse response) {
+      long delay = -1;
+      int statusCode = response.getStatusCode();
+      boolean budgeted = statusCode >= 500 || AdaptiveConcurrencyLimiter.isThrottled(statusCode);
+      // reserve the retry before asking the handler, so that concurrent failures cannot all take the
+      // last one, and give it back if the handler does not retry
+      if (!budgeted || withdrawRetry()) {
+         try {
+            delay = retryHandler.retryDelay(command, response);
+         } finally {
+            if (budgeted && delay < 0)
+               refundRetry();
+         }
       }
+      if (delay < 0)
+         errorHandler.handleError(command, response);
       // At this point we are going to send a new request or we have just handled the error, so
       // we should make sure that any open stream is closed.
       releasePayload(response);
-      return shouldContinue;
+      return delay;
    }
 
-   boolean shouldContinue(HttpCommand command, IOException response) {
+   @VisibleForTesting
+   long retryDelay(HttpCommand command, IOException response) {
       // Even though Java does not want to handle it this way,
       // treat a Protocol Exception on PUT with 100-Continue as a case of Unauthorized (and attempt to retry)
       if (command.getCurrentRequest().getMethod().equals("PUT")
@@ -152,9 +438,29 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             && response.getMessage().equals("Server rejected operation")
             ) {
          logger.debug("Caught a protocol exception on a 100-continue PUT request. Attempting to retry.");
-         return isIdempotent(command) && retryHandler.shouldRetryRequest(command, HttpResponse.builder().statusCode(401).message("Unauthorized").build());
+         return isIdempotent(command)
+               ? retryHandler.retryDelay(command, HttpResponse.builder().statusCode(401).message("Unauthorized").build())
+               : -1;
       }
-      return isIdempotent(command) && ioRetryHandler.shouldRetryRequest(command, response);
+      if (!isIdempotent(command) || !withdrawRetry())
+         return -1;
+      long delay = -1;
+      try {
+         delay = ioRetryHandler.retryDelay(command, response);
+      } finally {
+         if (delay < 0)
+            refundRetry();
+      }
+      return delay;
+   }
+
+   private boolean withdrawRetry() {
+      return limiter == null || limiter.tryRetry();
+   }
+
+   private void refundRetry() {
+      if (limiter != null)
+         limiter.refundRetry();
    }
 
    private boolean isIdempotent(HttpCommand command) {
@@ -171,6 +477,70 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    protected abstract HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException;
 
+   /**
+    * Sends the {@code nativeRequest} without waiting for the response. Drivers whose client is
+    * asynchronous should override this; by default {@link #invoke(Object)} is called in the user
+    * executor.
+    */
+   protected CompletableFuture<HttpResponse> invokeAsync(final Q nativeRequest) {
+      final CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+      Runnable call = new Runnable() {
+         @Override
+         public void run() {
+            try {
+               HttpResponse response = invoke(nativeRequest);
+               if (!future.complete(response))
+                  releasePayload(response);
+            } catch (Throwable t) {
+               future.completeExceptionally(t);
+            }
+         }
+      };
+      if (userExecutor == null) {
+         call.run();
+         return future;
+      }
+      final Future<?> task = userExecutor.submit(call);
+      future.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+         @Override
+         public void accept(HttpResponse response, Throwable error) {
+            if (future.isCancelled())
+               task.cancel(true);
+         }
+      });
+      return future;
+   }
+
    protected abstract void cleanup(Q nativeRequest);
 
+   /**
+    * Runs the tasks of a command invoked synchronously in the thread waiting for its response, so
+    * that it needs no other thread.
+    */
+   private static final class CallingThreadExecutor implements Executor {
+      private static final Runnable WAKE_UP = new Runnable() {
+         @Override
+         public void run() {
+         }
+      };
+
+      private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<Runnable>();
+
+      @Override
+      public void execute(Runnable task) {
+         tasks.add(task);
+      }
+
+      void runUntilDone(CompletableFuture<?> future) throws InterruptedException {
+         future.whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object result, Throwable error) {
+               execute(WAKE_UP);
+            }
+         });
+         while (!future.isDone()) {
+            tasks.take().run();
+         }
+      }
+   }
 }
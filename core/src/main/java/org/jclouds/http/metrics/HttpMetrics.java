@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps the metrics of the http commands of a context in memory, by command name.
+ * <p/>
+ * Available from {@link org.jclouds.rest.Utils#httpMetrics()} when
+ * {@link org.jclouds.Constants#PROPERTY_HTTP_METRICS} is set, unless another
+ * {@link HttpMetricsListener} is bound.
+ */
+@Beta
+@Singleton
+public class HttpMetrics implements HttpMetricsListener {
+
+   /** The phases of a command whose durations are recorded. */
+   public enum Phase {
+      /** Filtering and signing each request sent. */
+      FILTER,
+      /** From sending each request to receiving the headers of its response. */
+      RESPONSE,
+      /** Reading and parsing the payload of the final response. */
+      PARSE,
+      /** The whole api method call, retries included. */
+      INVOCATION;
+   }
+
+   /**
+    * Metrics which record nothing, returned by {@link org.jclouds.rest.Utils#httpMetrics()} when they
+    * are not kept.
+    */
+   public static final HttpMetrics NONE = new HttpMetrics() {
+      @Override
+      public void onFiltered(HttpCommand command, long nanos) {
+      }
+
+      @Override
+      public void onResponse(HttpCommand command, HttpResponse response, long nanos) {
+      }
+
+      @Override
+      public void onFailure(HttpCommand command, Throwable error, long nanos) {
+      }
+
+      @Override
+      public void onParsed(HttpCommand command, long nanos) {
+      }
+
+      @Override
+      public void onInvoked(HttpCommand command, @Nullable HttpResponse response, @Nullable Throwable error,
+            long nanos) {
+      }
+
+      @Override
+      public String toString() {
+         return "NONE";
+      }
+   };
+
+   private final ConcurrentMap<String, CommandMetrics> commands = Maps.newConcurrentMap();
+
+   @Override
+   public void onFiltered(HttpCommand command, long nanos) {
+      metrics(command).latency(Phase.FILTER).record(nanos);
+   }
+
+   @Override
+   public void onResponse(HttpCommand command, HttpResponse response, long nanos) {
+      metrics(command).latency(Phase.RESPONSE).record(nanos);
+   }
+
+   @Override
+   public void onFailure(HttpCommand command, Throwable error, long nanos) {
+      CommandMetrics metrics = metrics(command);
+      metrics.latency(Phase.RESPONSE).record(nanos);
+      metrics.connectionFailures.incrementAndGet();
+   }
+
+   @Override
+   public void onParsed(HttpCommand command, long nanos) {
+      metrics(command).latency(Phase.PARSE).record(nanos);
+   }
+
+   @Override
+   public void onInvoked(HttpCommand command, @Nullable HttpResponse response, @Nullable Throwable error,
+         long nanos) {
+      CommandMetrics metrics = metrics(command);
+      metrics.latency(Phase.INVOCATION).record(nanos);
+      metrics.invocations.incrementAndGet();
+      metrics.retries.addAndGet(command.getFailureCount());
+      if (response == null && error != null) {
+         HttpResponseException failed = getFirstThrowableOfType(error, HttpResponseException.class);
+         response = failed != null ? failed.getResponse() : null;
+      }
+      if (response != null)
+         metrics.countStatus(response.getStatusCode());
+   }
+
+   /**
+    * The names of the commands sent so far.
+    */
+   public Set<String> commandNames() {
+      return ImmutableSet.copyOf(commands.keySet());
+   }
+
+   /**
+    * Returns the metrics of the command, or null if none was sent with this name.
+    */
+   @Nullable
+   public CommandMetrics get(String commandName) {
+      return commands.get(commandName);
+   }
+
+   private CommandMetrics metrics(HttpCommand command) {
+      String name = command.getName();
+      CommandMetrics metrics = commands.get(name);
+      if (metrics == null) {
+         CommandMetrics created = new CommandMetrics(name);
+         metrics = commands.putIfAbsent(name, created);
+         if (metrics == null)
+            metrics = created;
+      }
+      return metrics;
+   }
+
+   /** The metrics of the commands sharing a name. */
+   public static final class CommandMetrics {
+      private final String name;
+      private final Map<Phase, LatencyHistogram> latencies;
+      private final AtomicLong invocations = new AtomicLong();
+      private final AtomicLong retries = new AtomicLong();
+      private final AtomicLong connectionFailures = new AtomicLong();
+      private final ConcurrentMap<Integer, AtomicLong> statusCodes = Maps.newConcurrentMap();
+
+      private CommandMetrics(String name) {
+         this.name = name;
+         ImmutableMap.Builder<Phase, LatencyHistogram> latencies = ImmutableMap.builder();
+         for (Phase phase : Phase.values())
+            latencies.put(phase, new LatencyHistogram());
+         this.latencies = Maps.immutableEnumMap(latencies.build());
+      }
+
+      public String getName() {
+         return name;
+      }
+
+      public LatencyHistogram latency(Phase phase) {
+         return latencies.get(phase);
+      }
+
+      /** The number of api method calls which sent the command. */
+      public long getInvocations() {
+         return invocations.get();
+      }
+
+      /** The number of retries of the invocations. */
+      public long getRetries() {
+         return retries.get();
+      }
+
+      /** The number of requests which got no response. */
+      public long getConnectionFailures() {
+         return connectionFailures.get();
+      }
+
+      /** The number of invocations by status code of their final response. */
+      public Map<Integer, Long> getStatusCodes() {
+         ImmutableMap.Builder<Integer, Long> counts = ImmutableMap.builder();
+         for (Map.Entry<Integer, AtomicLong> entry : statusCodes.entrySet())
+            counts.put(entry.getKey(), entry.getValue().get());
+         return counts.build();
+      }
+
+      private void countStatus(int statusCode) {
+         AtomicLong count = statusCodes.get(statusCode);
+         if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = statusCodes.putIfAbsent(statusCode, created);
+            if (count == null)
+               count = created;
+         }
+         count.incrementAndGet();
+      }
+
+      @Override
+      public String toString() {
+         return MoreObjects.toStringHelper(this).add("name", name).add("invocations", getInvocations())
+               .add("retries", getRetries()).add("connectionFailures", getConnectionFailures())
+               .add("statusCodes", getStatusCodes()).add("latencies", latencies).toString();
+      }
+   }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.ProvidedBy;
+
+/**
+ * Notified of the phases of the http commands of a context, to collect metrics about them.
+ * <p/>
+ * Commands sent by api methods are named after their {@link javax.inject.Named} annotation, see
+ * {@link HttpCommand#getName()}. A command is sent once, plus once per retry; each attempt is
+ * filtered, then either responded to or failed. Commands sent by api methods are then parsed and
+ * invoked.
+ * <p/>
+ * Listeners are called in the threads sending the requests, so they must be fast and thread safe.
+ * When {@link org.jclouds.Constants#PROPERTY_HTTP_METRICS} is set, metrics are kept in memory by
+ * {@link HttpMetrics}; otherwise no listener is notified, unless one is bound.
+ */
+@Beta
+@ProvidedBy(HttpMetricsListenerProvider.class)
+public interface HttpMetricsListener {
+
+   /**
+    * Assign to member to avoid NPE when no listener is configured.
+    */
+   HttpMetricsListener NULL = new NullHttpMetricsListener();
+
+   /**
+    * The current request of the command was filtered, which includes signing it, and is about to
+    * be sent.
+    */
+   void onFiltered(HttpCommand command, long nanos);
+
+   /**
+    * The status line and headers of a response were received, which includes connecting to the
+    * endpoint, {@code nanos} after the request was sent.
+    */
+   void onResponse(HttpCommand command, HttpResponse response, long nanos);
+
+   /**
+    * No response was received, {@code nanos} after the request was sent.
+    */
+   void onFailure(HttpCommand command, Throwable error, long nanos);
+
+   /**
+    * The payload of the final response was read and parsed into the result of the api method.
+    */
+   void onParsed(HttpCommand command, long nanos);
+
+   /**
+    * The api method which sent the command returned or threw, {@code nanos} after it was called.
+    *
+    * @param response
+    *           the final response, if one was received
+    * @param error
+    *           the error, if the method threw
+    */
+   void onInvoked(HttpCommand command, @Nullable HttpResponse response, @Nullable Throwable error, long nanos);
+}
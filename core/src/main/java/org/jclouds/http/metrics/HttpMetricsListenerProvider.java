@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static org.jclouds.Constants.PROPERTY_HTTP_METRICS;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Provides {@link HttpMetrics} when {@link org.jclouds.Constants#PROPERTY_HTTP_METRICS} is set, and
+ * {@link HttpMetricsListener#NULL} otherwise, unless another listener is bound.
+ */
+@Singleton
+class HttpMetricsListenerProvider implements Provider<HttpMetricsListener> {
+
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_HTTP_METRICS)
+   private boolean enabled = false;
+
+   private final Provider<HttpMetrics> metrics;
+
+   @Inject
+   HttpMetricsListenerProvider(Provider<HttpMetrics> metrics) {
+      this.metrics = metrics;
+   }
+
+   @Override
+   public HttpMetricsListener get() {
+      return enabled ? metrics.get() : HttpMetricsListener.NULL;
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+
+/**
+ * A histogram of durations which records without locking or allocating.
+ * <p/>
+ * Durations are counted in microsecond buckets whose width grows with the duration, eight buckets
+ * per power of two, so percentiles are accurate to 12.5%. Durations over 2<sup>36</sup>
+ * microseconds, about 19 hours, are counted in the last bucket.
+ */
+@Beta
+public final class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   private static final int MAX_EXPONENT = 36;
+   private static final int BUCKETS = index((1L << MAX_EXPONENT) - 1) + 1;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong totalNanos = new AtomicLong();
+   private final AtomicLong maxNanos = new AtomicLong();
+
+   /**
+    * Records a duration. Negative durations, which a clock change may cause, are recorded as 0.
+    */
+   public void record(long nanos) {
+      nanos = Math.max(0, nanos);
+      counts.incrementAndGet(index(Math.min(nanos / 1000, (1L << MAX_EXPONENT) - 1)));
+      count.incrementAndGet();
+      totalNanos.addAndGet(nanos);
+      for (long max = maxNanos.get(); nanos > max; max = maxNanos.get()) {
+         if (maxNanos.compareAndSet(max, nanos))
+            break;
+      }
+   }
+
+   /** The number of durations recorded. */
+   public long count() {
+      return count.get();
+   }
+
+   /** The longest duration recorded, in nanoseconds. */
+   public long maxNanos() {
+      return maxNanos.get();
+   }
+
+   /** The mean of the durations recorded, in nanoseconds, or 0 if none was. */
+   public long meanNanos() {
+      long count = count();
+      return count == 0 ? 0 : totalNanos.get() / count;
+   }
+
+   /**
+    * Returns the duration, in nanoseconds, under which the given percentage of the recorded durations
+    * are, or 0 if none was recorded.
+    *
+    * @param percentile
+    *           between 0 and 100
+    */
+   public long percentileNanos(double percentile) {
+      checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100: %s", percentile);
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++)
+         total += counts.get(i);
+      if (total == 0)
+         return 0;
+      long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += counts.get(i);
+         if (seen >= rank)
+            return i == BUCKETS - 1 ? maxNanos() : Math.min(maxNanos(), upperBound(i) * 1000);
+      }
+      return maxNanos();
+   }
+
+   @VisibleForTesting
+   static int index(long micros) {
+      if (micros < SUB_BUCKETS)
+         return (int) micros;
+      int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+      return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+   }
+
+   /** The largest value, in microseconds, counted in the bucket. */
+   @VisibleForTesting
+   static long upperBound(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+      int shift = index / SUB_BUCKETS - 1;
+      long first = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+      return first + (1L << shift) - 1;
+   }
+
+   @Override
+   public String toString() {
+      return MoreObjects.toStringHelper(this).add("count", count()).add("meanNanos", meanNanos())
+            .add("p50Nanos", percentileNanos(50)).add("p99Nanos", percentileNanos(99)).add("maxNanos", maxNanos())
+            .toString();
+   }
+}
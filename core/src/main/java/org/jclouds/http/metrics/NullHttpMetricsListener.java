@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpResponse;
+
+/**
+ * <tt>HttpMetricsListener</tt> which does nothing.
+ */
+final class NullHttpMetricsListener implements HttpMetricsListener {
+
+   @Override
+   public void onFiltered(HttpCommand command, long nanos) {
+   }
+
+   @Override
+   public void onResponse(HttpCommand command, HttpResponse response, long nanos) {
+   }
+
+   @Override
+   public void onFailure(HttpCommand command, Throwable error, long nanos) {
+   }
+
+   @Override
+   public void onParsed(HttpCommand command, long nanos) {
+   }
+
+   @Override
+   public void onInvoked(HttpCommand command, HttpResponse response, Throwable error, long nanos) {
+   }
+}
@@ -34,13 +34,14 @@ import org.jclouds.io.Payloads;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.io.payloads.FileRegionPayload;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.hash.HashCode;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
-import com.google.common.io.Files;
 
 @Singleton
 public class BasePayloadSlicer implements PayloadSlicer {
@@ -209,6 +210,44 @@ public class BasePayloadSlicer implements PayloadSlicer {
       }
    }
 
+   private static final class FileRegionPayloadIterable implements Iterable<Payload> {
+      private final File file;
+      private final long start;
+      private final long end;
+      private final ContentMetadata metaData;
+
+      FileRegionPayloadIterable(File file, long start, long end, ContentMetadata metaData) {
+         this.file = checkNotNull(file, "file");
+         this.start = start;
+         this.end = end;
+         this.metaData = checkNotNull(metaData, "metaData");
+      }
+
+      @Override
+      public Iterator<Payload> iterator() {
+         final long readLen = checkNotNull(metaData.getContentLength(), "content-length").longValue();
+         return new AbstractIterator<Payload>() {
+            private long offset = start;
+
+            @Override
+            protected Payload computeNext() {
+               if (offset >= end) {
+                  return endOfData();
+               }
+               long length = Math.min(readLen, end - offset);
+               Payload nextPayload = new FileRegionPayload(file, offset, length);
+               ContentMetadata cm = metaData.toBuilder()
+                     .contentLength(length)
+                     .contentMD5((HashCode) null)
+                     .build();
+               nextPayload.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(cm));
+               offset += length;
+               return nextPayload;
+            }
+         };
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -218,7 +257,9 @@ public class BasePayloadSlicer implements PayloadSlicer {
       checkArgument(offset >= 0, "offset is negative");
       checkArgument(length >= 0, "length is negative");
       Payload returnVal;
-      if (input.getRawContent() instanceof File) {
+      if (input instanceof FileRegionPayload) {
+         returnVal = doSlice((FileRegionPayload) input, offset, length);
+      } else if (input.getRawContent() instanceof File) {
          returnVal = doSlice((File) input.getRawContent(), offset, length);
       } else if (input.getRawContent() instanceof String) {
          returnVal = doSlice((String) input.getRawContent(), offset, length);
@@ -243,7 +284,13 @@ public class BasePayloadSlicer implements PayloadSlicer {
    }
 
    protected Payload doSlice(File content, long offset, long length) {
-      return doSlice(Files.asByteSource(content), offset, length);
+      return new FileRegionPayload(content, offset, length);
+   }
+
+   protected Payload doSlice(FileRegionPayload content, long offset, long length) {
+      long start = Math.min(content.getOffset() + offset, content.getOffset() + content.getLength());
+      return new FileRegionPayload(content.getFile(), start,
+            Math.min(length, content.getOffset() + content.getLength() - start));
    }
 
    protected Payload doSlice(InputStream content, long offset, long length) {
@@ -283,7 +330,9 @@ public class BasePayloadSlicer implements PayloadSlicer {
                                                        .contentMD5((HashCode) null)
                                                        .build();
       Object rawContent = input.getRawContent();
-      if (rawContent instanceof File) {
+      if (input instanceof FileRegionPayload) {
+         return doSlice((FileRegionPayload) input, meta);
+      } else if (rawContent instanceof File) {
          return doSlice((File) rawContent, meta);
       } else if (rawContent instanceof String) {
          return doSlice((String) rawContent, meta);
@@ -312,7 +361,12 @@ public class BasePayloadSlicer implements PayloadSlicer {
    }
 
    protected Iterable<Payload> doSlice(File rawContent, ContentMetadata meta) {
-      return doSlice(Files.asByteSource(rawContent), meta);
+      return new FileRegionPayloadIterable(rawContent, 0, rawContent.length(), meta);
+   }
+
+   protected Iterable<Payload> doSlice(FileRegionPayload rawContent, ContentMetadata meta) {
+      return new FileRegionPayloadIterable(rawContent.getFile(), rawContent.getOffset(),
+            rawContent.getOffset() + rawContent.getLength(), meta);
    }
 
    protected Iterable<Payload> doSlice(InputStream rawContent, ContentMetadata meta) {
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.io.Files;
+
+/**
+ * A repeatable payload of part of a file, such as a part of a multipart upload.
+ * <p/>
+ * Besides streaming, the region can be transferred to a channel with
+ * {@link FileChannel#transferTo}, which the operating system may do without copying the bytes
+ * through the heap, and hashed through a memory mapping.
+ */
+public class FileRegionPayload extends ByteSourcePayload {
+   private static final long MAX_MAPPING = 64 * 1024 * 1024;
+
+   private final File file;
+   private final long offset;
+   private final long length;
+
+   public FileRegionPayload(File file, long offset, long length) {
+      super(Files.asByteSource(checkNotNull(file, "file")).slice(offset, length));
+      checkArgument(offset >= 0, "offset is negative");
+      checkArgument(length >= 0, "length is negative");
+      this.file = file;
+      this.offset = offset;
+      // like the byte source, the region ends at the end of the file
+      this.length = Math.max(0, Math.min(length, file.length() - offset));
+      getContentMetadata().setContentLength(this.length);
+   }
+
+   public File getFile() {
+      return file;
+   }
+
+   public long getOffset() {
+      return offset;
+   }
+
+   public long getLength() {
+      return length;
+   }
+
+   /**
+    * Transfers the region to the channel.
+    *
+    * @return the number of bytes transferred, less than the length if the file was truncated
+    */
+   public long transferTo(WritableByteChannel target) throws IOException {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try {
+         long position = offset;
+         long end = offset + length;
+         while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0)
+               break;
+            position += transferred;
+         }
+         return position - offset;
+      } finally {
+         channel.close();
+      }
+   }
+
+   /**
+    * Hashes the region, reading it through a memory mapping rather than a stream.
+    */
+   public HashCode hash(HashFunction hashFunction) throws IOException {
+      Hasher hasher = hashFunction.newHasher();
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try {
+         long end = Math.min(offset + length, channel.size());
+         for (long position = offset; position < end; position += MAX_MAPPING) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                  Math.min(MAX_MAPPING, end - position));
+            hasher.putBytes(mapped);
+         }
+         return hasher.hash();
+      } finally {
+         channel.close();
+      }
+   }
+}
@@ -37,6 +37,8 @@ import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.Parameter;
 import com.google.gson.FieldNamingStrategy;
@@ -58,7 +60,9 @@ import com.google.gson.stream.JsonWriter;
  * parameter annotations. Otherwise, use {@link ConstructorConstructor}, and set fields via reflection.
  * <p/>
  * Notes: primitive constructor params are set to the Java defaults (0 or false) if not present; and the empty object
- * ({}) is treated as a null if the constructor for the object throws an NPE.
+ * ({}) is treated as a null if the constructor for the object throws an NPE. The parameters, their names, adapters
+ * and defaults are resolved once, when the adapter of a type is created, so that reading an object only looks up
+ * the readers of its fields and invokes the constructor.
  * <li>Serialization</li> Serialize based on reflective access to fields, delegating to ReflectiveTypeAdaptor.
  * </ul>
  * <h3>Example: Using javax inject to select a constructor and corresponding named parameters</h3>
@@ -147,12 +151,29 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactory imp
       private final TypeAdapter<T> serializer;
       private final Invokable<T, T> parameterizedCtor;
       private final Map<String, ParameterReader<?>> parameterReaders;
+      // resolved once, as Invokable.getParameters() reflects on every call
+      private final Object[] defaults;
+      private final int[] optionalPositions;
 
       private DeserializeIntoParameterizedConstructor(TypeAdapter<T> serializer, Invokable<T, T> deserializationCtor,
             Map<String, ParameterReader<?>> parameterReaders) {
          this.serializer = serializer;
          this.parameterizedCtor = deserializationCtor;
          this.parameterReaders = parameterReaders;
+         List<Parameter> params = deserializationCtor.getParameters();
+         this.defaults = new Object[params.size()];
+         List<Integer> optionalPositions = Lists.newArrayList();
+         for (Parameter param : params) {
+            // Set all primitive constructor params to defaults
+            if (param.getType().getRawType() == boolean.class) {
+               defaults[param.hashCode()] = Boolean.FALSE;
+            } else if (param.getType().getRawType().isPrimitive()) {
+               defaults[param.hashCode()] = 0;
+            } else if (param.getType().getRawType() == Optional.class) {
+               optionalPositions.add(param.hashCode());
+            }
+         }
+         this.optionalPositions = Ints.toArray(optionalPositions);
       }
 
       @Override
@@ -162,19 +183,9 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactory imp
             return null;
          }
 
-         List<Parameter> params = parameterizedCtor.getParameters();
-         Object[] values = new Object[params.size()];
+         Object[] values = defaults.clone();
          boolean empty = true;
 
-         // Set all primitive constructor params to defaults
-         for (Parameter param : params) {
-            if (param.getType().getRawType() == boolean.class) {
-               values[param.hashCode()] = Boolean.FALSE;
-            } else if (param.getType().getRawType().isPrimitive()) {
-               values[param.hashCode()] = 0;
-            }
-         }
-
          try {
             in.beginObject();
             while (in.hasNext()) {
@@ -193,13 +204,10 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactory imp
             throw new JsonSyntaxException(e);
          }
 
-         for (Parameter param : params) {
-            if (param.getType().getRawType().isPrimitive()) {
-               checkArgument(values[param.hashCode()] != null,
-                  "Primitive param[%s] in constructor %s cannot be absent!", param.hashCode(), parameterizedCtor);
-            } else if (param.getType().getRawType() == Optional.class && values[param.hashCode()] == null) {
-               values[param.hashCode()] = Optional.absent();
-            }
+         // primitive params always have a value, as absent and null values leave the default in place
+         for (int position : optionalPositions) {
+            if (values[position] == null)
+               values[position] = Optional.absent();
          }
          in.endObject();
 
@@ -21,6 +21,7 @@ import java.util.Map;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Credentials;
+import org.jclouds.http.metrics.HttpMetrics;
 import org.jclouds.json.Json;
 import org.jclouds.logging.Logger.LoggerFactory;
 import org.jclouds.rest.internal.UtilsImpl;
@@ -69,4 +70,15 @@ public interface Utils {
    Injector injector();
 
    XMLParser xml();
+
+   /**
+    * The metrics of the http commands of this context, by command name.
+    *
+    * @return {@link HttpMetrics#NONE} unless {@link org.jclouds.Constants#PROPERTY_HTTP_METRICS} is
+    *         set, or if another {@link org.jclouds.http.metrics.HttpMetricsListener} is bound
+    */
+   @Beta
+   default HttpMetrics httpMetrics() {
+      return HttpMetrics.NONE;
+   }
 }
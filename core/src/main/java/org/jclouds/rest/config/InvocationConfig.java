@@ -31,8 +31,9 @@ import com.google.inject.ImplementedBy;
 public interface InvocationConfig {
 
    /**
-    * If this is present, Sync method calls will block up to the specified nanos
-    * and throw an {@linkplain UncheckedTimeoutException}. If this is not
+    * If this is present, Sync method calls are sent through
+    * {@linkplain HttpCommandExecutorService#invokeAsync}, block up to the
+    * specified nanos and fail with a {@linkplain java.util.concurrent.TimeoutException}. If this is not
     * present, Sync method calls will be invoked directly, typically through
     * {@linkplain HttpCommandExecutorService#invoke}.
     */
@@ -17,19 +17,27 @@
 package org.jclouds.rest.internal;
 
 import static com.google.common.base.Objects.equal;
-import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Throwables.propagate;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.jclouds.Constants;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.metrics.HttpMetricsListener;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.InvocationContext;
@@ -40,16 +48,21 @@ import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
-import com.google.common.util.concurrent.TimeLimiter;
 
 public class InvokeHttpMethod implements Function<Invocation, Object> {
 
    @Resource
    private Logger logger = Logger.NULL;
 
+   @com.google.inject.Inject(optional = true)
+   private HttpMetricsListener metrics = HttpMetricsListener.NULL;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_SCHEDULER_THREADS)
+   private ScheduledExecutorService scheduler;
+
    private final Function<Invocation, HttpRequest> annotationProcessor;
    private final HttpCommandExecutorService http;
-   private final TimeLimiter timeLimiter;
    private final Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest;
    private final InvocationConfig config;
 
@@ -57,10 +70,9 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
    @VisibleForTesting
    InvokeHttpMethod(Function<Invocation, HttpRequest> annotationProcessor,
          HttpCommandExecutorService http, Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest,
-         TimeLimiter timeLimiter, InvocationConfig config) {
+         InvocationConfig config) {
       this.annotationProcessor = annotationProcessor;
       this.http = http;
-      this.timeLimiter = timeLimiter;
       this.transformerForRequest = transformerForRequest;
       this.config = config;
    }
@@ -81,15 +93,21 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
     * if a {@code Throwable} is encountered.
     */
    public Object invoke(Invocation invocation) {
+      long start = System.nanoTime();
       String commandName = config.getCommandName(invocation);
       HttpCommand command = toCommand(commandName, invocation);
       Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> invoking %s", commandName);
+      HttpResponse response = null;
       try {
-         return transformer.apply(http.invoke(command));
+         response = http.invoke(command);
+         Object result = parse(command, transformer, response);
+         metrics.onInvoked(command, response, null, System.nanoTime() - start);
+         return result;
       } catch (Throwable t) {
+         metrics.onInvoked(command, response, t, System.nanoTime() - start);
          try {
             return fallback.createOrPropagate(t);
          } catch (Exception e) {
@@ -99,42 +117,89 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
    }
 
    /**
-    * calls {@link #invoke(Invocation)}, timing out after the specified time
-    * limit. If the target method call finished before the limit is reached, the
-    * return value or exception is propagated to the caller exactly as-is. If,
-    * on the other hand, the time limit is reached, we attempt to abort the call
-    * to the target, and throw an {@link UncheckedTimeoutException} to the
-    * caller.
+    * invokes the {@linkplain HttpCommand} associated with {@code invocation}
+    * {@link HttpCommandExecutorService#invokeAsync(HttpCommand) asynchronously}
+    * and waits at most the specified time for its response. If the response
+    * arrives before the limit is reached, it is parsed and returned, or its
+    * exception passed to the fallback, exactly as in
+    * {@link #invoke(Invocation)}. If, on the other hand, the time limit is
+    * reached, the call is cancelled and a {@link TimeoutException} passed to
+    * the fallback.
+    * <p/>
+    * The response fails with the {@code TimeoutException} when the time limit
+    * is reached, on the shared scheduler if configured, which cancels the call
+    * even when nobody is waiting for it anymore. Unlike a
+    * {@link com.google.common.util.concurrent.TimeLimiter}, this does not need
+    * a second thread for the call when the driver sends requests
+    * asynchronously.
     * 
     * @param invocation
-    *           the Invocation to invoke via {@link #invoke(Invocation)}
+    *           the Invocation to invoke
     * @param limitNanos
-    *           with timeoutUnit, the maximum length of time to wait in
-    *           nanoseconds
-    * @throws InterruptedException
-    *            if our thread is interrupted during execution
-    * @throws UncheckedTimeoutException
-    *            if the time limit is reached
-    * @see TimeLimiter#callWithTimeout(Callable, long, TimeUnit)
+    *           the maximum length of time to wait in nanoseconds
     */
    public Object invokeWithTimeout(final Invocation invocation, final long limitNanos) {
+      long start = System.nanoTime();
       String commandName = config.getCommandName(invocation);
       HttpCommand command = toCommand(commandName, invocation);
+      Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> blocking on %s for %s", invocation, limitNanos);
+      CompletableFuture<HttpResponse> response = http.invokeAsync(command);
+      ScheduledFuture<?> timeout = failAfter(response, limitNanos);
+      HttpResponse received = null;
       try {
-         return timeLimiter
-               .callWithTimeout(new InvokeAndTransform(commandName, command), limitNanos, NANOSECONDS);
+         received = timeout != null ? response.get() : response.get(limitNanos, NANOSECONDS);
+         Object result = parse(command, transformer, received);
+         metrics.onInvoked(command, received, null, System.nanoTime() - start);
+         return result;
       } catch (Throwable t) {
+         metrics.onInvoked(command, received, t, System.nanoTime() - start);
+         response.cancel(true);
+         if (t instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+         } else if (t instanceof ExecutionException && t.getCause() != null) {
+            t = t.getCause();
+         }
          try {
             return fallback.createOrPropagate(t);
          } catch (Exception e) {
             throw propagate(e);
          }
+      } finally {
+         if (timeout != null)
+            timeout.cancel(false);
+      }
+   }
+
+   /**
+    * Fails the response with a {@link TimeoutException} after the time limit, or returns null if no
+    * scheduler is configured.
+    */
+   @Nullable
+   private ScheduledFuture<?> failAfter(final CompletableFuture<HttpResponse> response, final long limitNanos) {
+      if (scheduler == null)
+         return null;
+      try {
+         return scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+               response.completeExceptionally(new TimeoutException("no response within " + limitNanos + "ns"));
+            }
+         }, limitNanos, NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+         return null; // shutting down
       }
    }
 
+   private Object parse(HttpCommand command, Function<HttpResponse, ?> transformer, HttpResponse response) {
+      long start = System.nanoTime();
+      Object result = transformer.apply(response);
+      metrics.onParsed(command, System.nanoTime() - start);
+      return result;
+   }
+
    private org.jclouds.Fallback<?> getFallback(String commandName, Invocation invocation, HttpCommand command) {
       HttpRequest request = command.getCurrentRequest();
       org.jclouds.Fallback<?> fallback = config.getFallback(invocation);
@@ -144,51 +209,11 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       return fallback;
    }
 
-   @VisibleForTesting
-   final class InvokeAndTransform implements Callable<Object> {
-      private final String commandName;
-      private final HttpCommand command;
-      private final Function<HttpResponse, ?> transformer;
-
-      InvokeAndTransform(String commandName, HttpCommand command) {
-         this.commandName = commandName;
-         this.command = command;
-         this.transformer = getTransformer(commandName, command);
-      }
-
-      @Override
-      public Object call() throws Exception {
-         return transformer.apply(http.invoke(command));
-      }
-
-      @Override
-      public int hashCode() {
-         return Objects.hashCode(commandName, command, transformer);
-      }
-
-      @Override
-      public boolean equals(Object obj) {
-         if (this == obj)
-            return true;
-         if (obj == null || getClass() != obj.getClass())
-            return false;
-         InvokeAndTransform that = InvokeAndTransform.class.cast(obj);
-         return equal(this.commandName, that.commandName) && equal(this.command, that.command)
-               && equal(this.transformer, that.transformer);
-      }
-
-      @Override
-      public String toString() {
-         return toStringHelper(this).add("commandName", commandName).add("command", command)
-               .add("transformer", transformer).toString();
-      }
-   }
-
    private HttpCommand toCommand(String commandName, Invocation invocation) {
       logger.trace(">> converting %s", commandName);
       HttpRequest request = annotationProcessor.apply(invocation);
       logger.trace("<< converted %s to %s", commandName, request.getRequestLine());
-      return new HttpCommand(request);
+      return new HttpCommand(request, commandName);
    }
 
    private Function<HttpResponse, ?> getTransformer(String commandName, HttpCommand command) {
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.http.HttpUtils.tryFindHttpMethod;
+import static org.jclouds.reflect.Reflection2.getInvokableParameters;
+import static org.jclouds.util.Strings2.urlEncode;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.List;
+
+import javax.ws.rs.Encoded;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.EndpointParam;
+import org.jclouds.rest.annotations.FormParams;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.PartParam;
+import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.jclouds.rest.annotations.WrapWith;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Chars;
+import com.google.common.reflect.Invokable;
+import com.google.common.reflect.Parameter;
+
+/**
+ * The parts of a request which only depend on the annotations of an {@link Invokable} and its
+ * declaring type, resolved once per invokable so that {@link RestAnnotationProcessor} only has to
+ * bind the arguments of each invocation.
+ */
+final class RequestTemplate {
+
+   private static final LoadingCache<Invokable<?, ?>, RequestTemplate> templates = CacheBuilder.newBuilder().build(
+         new CacheLoader<Invokable<?, ?>, RequestTemplate>() {
+            @Override
+            public RequestTemplate load(Invokable<?, ?> invokable) {
+               return new RequestTemplate(invokable);
+            }
+         });
+
+   static RequestTemplate forInvokable(Invokable<?, ?> invokable) {
+      return templates.getUnchecked(invokable);
+   }
+
+   private final Invokable<?, ?> invokable;
+   @Nullable
+   private final String httpMethod;
+   final List<Class<? extends HttpRequestFilter>> filters;
+   @Nullable
+   final List<Character> skipPathEncoding;
+   final List<String> paths;
+   final List<FormParams> formParams;
+   final List<QueryParams> queryParams;
+   final List<Headers> headers;
+   @Nullable
+   final List<String> contentType;
+   final boolean virtualHost;
+   final boolean encodedUsed;
+
+   final List<Parameter> pathParamParameters;
+   final List<Parameter> formParamParameters;
+   final List<Parameter> queryParamParameters;
+   /** {@link QueryParam} names of {@link #queryParamParameters}, already url encoded. */
+   final List<String> queryParamKeys;
+   final List<Parameter> headerParamParameters;
+   final List<Parameter> payloadParamParameters;
+   final List<Parameter> partParamParameters;
+   final List<Parameter> endpointParamParameters;
+   final List<Parameter> binderParameters;
+   final List<Integer> optionsIndexes;
+
+   private RequestTemplate(Invokable<?, ?> invokable) {
+      this.invokable = invokable;
+      Class<?> type = invokable.getOwnerType().getRawType();
+      this.httpMethod = findHttpMethodOrNull(invokable);
+      this.filters = filters(type, invokable);
+
+      SkipEncoding skipEncoding = annotationOrNull(invokable, type, SkipEncoding.class);
+      this.skipPathEncoding = skipEncoding != null ? ImmutableList.copyOf(Chars.asList(skipEncoding.value())) : null;
+      Produces produces = annotationOrNull(invokable, type, Produces.class);
+      this.contentType = produces != null ? ImmutableList.copyOf(produces.value()) : null;
+
+      ImmutableList.Builder<String> paths = ImmutableList.builder();
+      for (Path path : typeThenMethod(type, invokable, Path.class))
+         paths.add(path.value());
+      this.paths = paths.build();
+      this.formParams = typeThenMethod(type, invokable, FormParams.class);
+      this.queryParams = typeThenMethod(type, invokable, QueryParams.class);
+      this.headers = typeThenMethod(type, invokable, Headers.class);
+      this.virtualHost = type.isAnnotationPresent(VirtualHost.class) || invokable.isAnnotationPresent(VirtualHost.class);
+
+      this.encodedUsed = !parametersWithAnnotation(invokable, Encoded.class).isEmpty();
+      this.pathParamParameters = parametersWithAnnotation(invokable, PathParam.class);
+      this.formParamParameters = parametersWithAnnotation(invokable, FormParam.class);
+      this.queryParamParameters = parametersWithAnnotation(invokable, QueryParam.class);
+      ImmutableList.Builder<String> queryParamKeys = ImmutableList.builder();
+      for (Parameter param : queryParamParameters)
+         queryParamKeys.add(urlEncode(param.getAnnotation(QueryParam.class).value(), '/', ','));
+      this.queryParamKeys = queryParamKeys.build();
+      this.headerParamParameters = parametersWithAnnotation(invokable, HeaderParam.class);
+      this.payloadParamParameters = parametersWithAnnotation(invokable, PayloadParam.class);
+      this.partParamParameters = parametersWithAnnotation(invokable, PartParam.class);
+      this.endpointParamParameters = parametersWithAnnotation(invokable, EndpointParam.class);
+      this.binderParameters = ImmutableSet.<Parameter> builder()
+            .addAll(parametersWithAnnotation(invokable, BinderParam.class))
+            .addAll(parametersWithAnnotation(invokable, WrapWith.class)).build().asList();
+
+      ImmutableList.Builder<Integer> optionsIndexes = ImmutableList.builder();
+      for (Parameter param : getInvokableParameters(invokable)) {
+         Class<?> paramType = param.getType().getRawType();
+         if (HttpRequestOptions.class.isAssignableFrom(paramType)
+               || HttpRequestOptions[].class.isAssignableFrom(paramType))
+            optionsIndexes.add(param.hashCode());
+      }
+      this.optionsIndexes = optionsIndexes.build();
+   }
+
+   /**
+    * @throws IllegalStateException
+    *            if the invokable has none or more than one http method annotation
+    */
+   String getHttpMethod() {
+      // the lookup is repeated on failure only, so that callers see the original exception
+      return httpMethod != null ? httpMethod : tryFindHttpMethod(invokable).get();
+   }
+
+   private static String findHttpMethodOrNull(Invokable<?, ?> invokable) {
+      try {
+         return tryFindHttpMethod(invokable).orNull();
+      } catch (IllegalStateException e) {
+         return null;
+      }
+   }
+
+   private static List<Class<? extends HttpRequestFilter>> filters(Class<?> type, Invokable<?, ?> invokable) {
+      ImmutableList.Builder<Class<? extends HttpRequestFilter>> filters = ImmutableList.builder();
+      RequestFilters onMethod = invokable.getAnnotation(RequestFilters.class);
+      if (type.isAnnotationPresent(RequestFilters.class)
+            && (onMethod == null || !invokable.isAnnotationPresent(OverrideRequestFilters.class)))
+         filters.add(type.getAnnotation(RequestFilters.class).value());
+      if (onMethod != null)
+         filters.add(onMethod.value());
+      return filters.build();
+   }
+
+   /** @return the annotation on the method, falling back to the one on its type */
+   @Nullable
+   private static <A extends Annotation> A annotationOrNull(Invokable<?, ?> invokable, AnnotatedElement type,
+         Class<A> annotationType) {
+      A annotation = invokable.getAnnotation(annotationType);
+      return annotation != null ? annotation : type.getAnnotation(annotationType);
+   }
+
+   private static <A extends Annotation> List<A> typeThenMethod(AnnotatedElement type, Invokable<?, ?> invokable,
+         Class<A> annotationType) {
+      ImmutableList.Builder<A> annotations = ImmutableList.builder();
+      if (type.isAnnotationPresent(annotationType))
+         annotations.add(type.getAnnotation(annotationType));
+      if (invokable.isAnnotationPresent(annotationType))
+         annotations.add(invokable.getAnnotation(annotationType));
+      return annotations.build();
+   }
+
+   private static List<Parameter> parametersWithAnnotation(Invokable<?, ?> invokable,
+         Class<? extends Annotation> annotationType) {
+      ImmutableList.Builder<Parameter> parameters = ImmutableList.builder();
+      for (Parameter param : getInvokableParameters(invokable)) {
+         if (param.isAnnotationPresent(annotationType))
+            parameters.add(param);
+      }
+      return parameters.build();
+   }
+}
@@ -23,6 +23,8 @@ import javax.inject.Inject;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Credentials;
+import org.jclouds.http.metrics.HttpMetrics;
+import org.jclouds.http.metrics.HttpMetricsListener;
 import org.jclouds.json.Json;
 import org.jclouds.logging.Logger.LoggerFactory;
 import org.jclouds.rest.HttpClient;
@@ -47,6 +49,9 @@ public class UtilsImpl implements Utils {
    private Injector injector;
    private XMLParser xml;
 
+   @com.google.inject.Inject(optional = true)
+   private HttpMetricsListener metrics = HttpMetricsListener.NULL;
+
    @Inject
    protected UtilsImpl(Injector injector, Json json, XMLParser xml, HttpClient simpleClient, Crypto encryption,
          DateService date, EventBus eventBus, Map<String, Credentials> credentialStore, LoggerFactory loggerFactory) {
@@ -107,4 +112,10 @@ public class UtilsImpl implements Utils {
       return credentialStore;
    }
 
+   @Override
+   @Beta
+   public HttpMetrics httpMetrics() {
+      return metrics instanceof HttpMetrics ? (HttpMetrics) metrics : HttpMetrics.NONE;
+   }
+
 }
@@ -19,6 +19,7 @@ package org.jclouds;
 import static com.google.common.base.Suppliers.ofInstance;
 import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.net.URI;
 import java.util.Arrays;
@@ -26,7 +27,9 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
+import org.jclouds.concurrent.SingleThreaded;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.concurrent.config.ScheduledExecutorServiceModule;
 import org.jclouds.domain.Credentials;
 import org.jclouds.events.config.EventBusModule;
 import org.jclouds.http.IntegrationTestClient;
@@ -191,6 +194,32 @@ public class ContextBuilderTest {
       assertEquals(modules.remove(0), module);
    }
 
+   @Test
+   public void testAddSchedulerModuleIfNotPresent() {
+      List<Module> modules = Lists.newArrayList();
+      ContextBuilder.addSchedulerIfNotPresent(modules);
+      assertEquals(modules.size(), 1);
+      assertTrue(modules.get(0) instanceof ScheduledExecutorServiceModule);
+
+      ContextBuilder.addSchedulerIfNotPresent(modules);
+      assertEquals(modules.size(), 1);
+   }
+
+   @Test
+   public void testAddSchedulerModuleNotWhenSingleThreaded() {
+      List<Module> modules = Lists.newArrayList();
+      modules.add(new SingleThreadedModule());
+      ContextBuilder.addSchedulerIfNotPresent(modules);
+      assertEquals(modules.size(), 1);
+   }
+
+   @SingleThreaded
+   private static final class SingleThreadedModule extends AbstractModule {
+      @Override
+      protected void configure() {
+      }
+   }
+
    @Test
    public void testAddCredentialStoreModuleIfNotPresent() {
       List<Module> modules = Lists.newArrayList();
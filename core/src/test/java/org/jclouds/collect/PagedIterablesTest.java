@@ -18,13 +18,20 @@ package org.jclouds.collect;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Tests behavior of {@code IterableWithMarkers}.
@@ -70,4 +77,53 @@ public class PagedIterablesTest {
       EasyMock.verify(markerToNext);
 
    }
+
+   @Test
+   public void testPrefetchFetchesAtMostLookaheadPagesAhead() {
+      final AtomicInteger fetched = new AtomicInteger();
+      PagedIterable<String> pages = PagedIterables.advance(IterableWithMarkers.from(ImmutableSet.of("0"), "1"),
+            new Function<Object, IterableWithMarker<String>>() {
+               @Override
+               public IterableWithMarker<String> apply(Object input) {
+                  int page = Integer.parseInt(input.toString());
+                  fetched.incrementAndGet();
+                  return IterableWithMarkers.from(ImmutableSet.of(input.toString()), page < 4 ? page + 1 : null);
+               }
+            });
+
+      Iterator<IterableWithMarker<String>> iterator = PagedIterables.prefetch(pages,
+            MoreExecutors.newDirectExecutorService(), 2).iterator();
+
+      assertEquals(iterator.next().toList(), ImmutableList.of("0"));
+      assertEquals(fetched.get(), 2);
+      assertEquals(iterator.next().toList(), ImmutableList.of("1"));
+      assertEquals(fetched.get(), 3);
+      assertEquals(ImmutableList.copyOf(iterator).size(), 3);
+      assertEquals(fetched.get(), 4);
+   }
+
+   @Test
+   public void testPrefetchThrowsErrorAtPageWhichFailed() {
+      PagedIterable<String> pages = PagedIterables.advance(IterableWithMarkers.from(ImmutableSet.of("foo"), "MARKER1"),
+            new Function<Object, IterableWithMarker<String>>() {
+               @Override
+               public IterableWithMarker<String> apply(Object input) {
+                  if ("MARKER1".equals(input))
+                     return IterableWithMarkers.from(ImmutableSet.of("bar"), "MARKER2");
+                  throw new IllegalStateException("listing " + input);
+               }
+            });
+
+      Iterator<String> iterator = PagedIterables.prefetch(pages, MoreExecutors.newDirectExecutorService(), 3).concat()
+            .iterator();
+
+      assertEquals(iterator.next(), "foo");
+      assertEquals(iterator.next(), "bar");
+      try {
+         iterator.next();
+         fail();
+      } catch (IllegalStateException e) {
+         assertEquals(e.getMessage(), "listing MARKER2");
+      }
+   }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.jclouds.date.DateService;
+import org.testng.annotations.Test;
+
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "JavaTimeDateServiceTest")
+public class JavaTimeDateServiceTest {
+
+   private final DateService dateService = new JavaTimeDateService();
+   private final DateService expected = new SimpleDateFormatDateService();
+
+   public void testIsTheDefault() {
+      assertTrue(Guice.createInjector().getInstance(DateService.class) instanceof JavaTimeDateService);
+   }
+
+   public void testFormatsLikeSimpleDateFormat() {
+      Random random = new Random(0);
+      long[] times = { 0, -1, 1236823207000L, 1236823207999L, 951782400000L, 253402300799999L, -12219292800000L,
+            -62135596800000L, 253402300800000L };
+      for (long time : times)
+         assertFormatsLikeSimpleDateFormat(new Date(time));
+      for (int i = 0; i < 1000; i++)
+         assertFormatsLikeSimpleDateFormat(new Date(random.nextLong() % 4102444800000L));
+   }
+
+   private void assertFormatsLikeSimpleDateFormat(Date date) {
+      assertEquals(dateService.cDateFormat(date), expected.cDateFormat(date));
+      assertEquals(dateService.rfc822DateFormat(date), expected.rfc822DateFormat(date));
+      assertEquals(dateService.rfc1123DateFormat(date), expected.rfc1123DateFormat(date));
+      assertEquals(dateService.iso8601DateFormat(date), expected.iso8601DateFormat(date));
+      assertEquals(dateService.iso8601SecondsDateFormat(date), expected.iso8601SecondsDateFormat(date));
+
+      assertEquals(dateService.cDateParse(dateService.cDateFormat(date)),
+            expected.cDateParse(expected.cDateFormat(date)));
+      assertEquals(dateService.rfc822DateParse(dateService.rfc822DateFormat(date)),
+            expected.rfc822DateParse(expected.rfc822DateFormat(date)));
+      assertEquals(dateService.rfc1123DateParse(dateService.rfc1123DateFormat(date)),
+            expected.rfc1123DateParse(expected.rfc1123DateFormat(date)));
+      assertEquals(dateService.iso8601DateParse(dateService.iso8601DateFormat(date)),
+            expected.iso8601DateParse(expected.iso8601DateFormat(date)));
+      assertEquals(dateService.iso8601SecondsDateParse(dateService.iso8601SecondsDateFormat(date)),
+            expected.iso8601SecondsDateParse(expected.iso8601SecondsDateFormat(date)));
+   }
+
+   public void testFormattedTextIsReusedWithinTheSecond() {
+      String text = dateService.rfc822DateFormat(new Date(1236823207000L));
+      assertSame(dateService.rfc822DateFormat(new Date(1236823207999L)), text);
+      assertEquals(dateService.iso8601DateFormat(new Date(1236823207000L)), "2009-03-12T02:00:07.000Z");
+      assertEquals(dateService.iso8601DateFormat(new Date(1236823207042L)), "2009-03-12T02:00:07.042Z");
+   }
+
+   public void testParsesLikeSimpleDateFormat() {
+      String[] iso8601 = { "2009-03-12T02:00:07.000Z", "2009-03-12T06:00:07.000+0400", "2009-03-12T06:00:07.000+04:00",
+            "2011-05-25 16:12:21.656+0000", "2011-11-07T11:19:13.38225Z", "2009-02-31T02:00:07.000Z",
+            "2009-03-12T25:00:07.000Z", "2009-03-12T02:00:07.000-0130" };
+      for (String text : iso8601)
+         assertEquals(dateService.iso8601DateParse(text), expected.iso8601DateParse(text), text);
+
+      String[] iso8601Seconds = { "2009-03-12T02:00:07Z", "2009-03-12T06:00:07+0400", "2011-05-26T02:14:13-04:00",
+            "2012-11-26T17:32:31UTC+0000", "2009-03-12T02:00:07", "2009-03-12 02:00:07Z" };
+      for (String text : iso8601Seconds)
+         assertEquals(dateService.iso8601SecondsDateParse(text), expected.iso8601SecondsDateParse(text), text);
+
+      String[] rfc822 = { "Thu, 12 Mar 2009 02:00:07 GMT", "Mon, 12 Mar 2009 02:00:07 GMT",
+            "Thu, 32 Mar 2009 02:00:07 GMT", "Thu, 1 Mar 2009 02:00:07 GMT", "Thursday, 12 Mar 2009 02:00:07 GMT" };
+      for (String text : rfc822)
+         assertEquals(dateService.rfc822DateParse(text), expected.rfc822DateParse(text), text);
+
+      String[] rfc1123 = { "Thu, 12 Mar 2009 02:00:07 +0000", "Thu, 12 Mar 2009 02:00:07 -0500",
+            "Thu, 12 Mar 2009 02:00:07 GMT" };
+      for (String text : rfc1123)
+         assertEquals(dateService.rfc1123DateParse(text), expected.rfc1123DateParse(text), text);
+
+      assertEquals(dateService.cDateParse("Thu Mar 12 02:00:07 +0000 2009"),
+            expected.cDateParse("Thu Mar 12 02:00:07 +0000 2009"));
+      assertEquals(dateService.cDateParse("Thu Mar 12 02:00:07 +0130 2009"),
+            expected.cDateParse("Thu Mar 12 02:00:07 +0130 2009"));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testIso8601DateParseIllegal() {
+      dateService.iso8601DateParse("2009-03-12T02:00:07Z");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRfc822DateParseIllegal() {
+      dateService.rfc822DateParse("Thu, 12 Foo 2009 02:00:07 GMT");
+   }
+}
@@ -38,6 +38,7 @@ import org.jclouds.providers.AnonymousProviderMetadata;
 import org.testng.annotations.BeforeClass;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
 import com.google.inject.Module;
 
 
@@ -99,12 +100,23 @@ public abstract class BaseMockWebServerTest {
     * Creates a test api for the given class, URI and Module.
     */
    protected <T extends Closeable> T api(Class<T> apiClass, String url, Module... connectionModules) {
+      return contextBuilder(apiClass, url, connectionModules).buildApi(apiClass);
+   }
+
+   /**
+    * Creates the injector of a test api for the given class and URL.
+    */
+   protected Injector injector(Class<? extends Closeable> apiClass, String url) {
+      return contextBuilder(apiClass, url, createConnectionModule()).buildInjector();
+   }
+
+   private ContextBuilder contextBuilder(Class<? extends Closeable> apiClass, String url, Module... connectionModules) {
       Properties properties = new Properties();
       properties.setProperty(PROPERTY_TRUST_ALL_CERTS, "true");
       properties.setProperty(PROPERTY_RELAX_HOSTNAME, "true");
       addOverrideProperties(properties);
       return ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(apiClass, url))
-            .modules(ImmutableSet.copyOf(connectionModules)).overrides(properties).buildApi(apiClass);
+            .modules(ImmutableSet.copyOf(connectionModules)).overrides(properties);
    }
 
    protected SSLSocketFactory sslSocketFactory() {
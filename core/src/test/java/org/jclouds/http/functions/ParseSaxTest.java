@@ -21,6 +21,12 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
@@ -29,6 +35,8 @@ import org.testng.annotations.Test;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXParseException;
 
+import com.google.common.io.ByteStreams;
+
 /**
  * Tests behavior of {@code ParseSax}
  */
@@ -131,4 +139,63 @@ public class ParseSaxTest extends BaseHandlerTest {
          assertEquals(e.getCause(), input);
       }
    }
+
+   public void testErrorResponseIsStreamedAndTailIsReported() {
+      ParseSax<String> parser = createParser();
+      HttpResponse response = HttpResponse.builder().statusCode(500).message("Server Error")
+            .payload("<Error><Code>InternalError</Code><broken").build();
+
+      try {
+         parser.apply(response);
+         fail("expected a parse failure");
+      } catch (RuntimeException e) {
+         assertTrue(e.getMessage().contains("response: HTTP/1.1 500 Server Error"), e.getMessage());
+         assertTrue(e.getMessage().contains("source:\n<Error><Code>InternalError</Code><broken"), e.getMessage());
+      }
+   }
+
+   public void testTailInputStreamKeepsLastBytes() throws IOException {
+      byte[] document = new byte[100];
+      for (int i = 0; i < document.length; i++) {
+         document[i] = (byte) ('a' + i % 26);
+      }
+      ParseSax.TailInputStream tail = new ParseSax.TailInputStream(new ByteArrayInputStream(document), 16);
+      assertEquals(tail.read(), 'a');
+      ByteStreams.exhaust(tail);
+      assertEquals(tail.toString(), "..." + new String(document, 84, 16, StandardCharsets.UTF_8));
+
+      tail = new ParseSax.TailInputStream(new ByteArrayInputStream(document, 0, 10), 16);
+      ByteStreams.exhaust(tail);
+      assertEquals(tail.toString(), "abcdefghij");
+   }
+
+   public void testHandlerCanParseNestedDocument() {
+      final ParseSax<String> inner = factory.create(new TextHandler());
+      ParseSax<String> outer = factory.create(new TextHandler() {
+         @Override
+         public void endElement(String uri, String localName, String qName) {
+            if (qName.equals("outer"))
+               result = super.getResult() + inner.parse("<inner>world</inner>");
+         }
+      });
+
+      assertEquals(outer.parse("<outer>hello </outer>"), "hello world");
+      // the shared reader is usable again afterwards
+      assertEquals(factory.create(new TextHandler()).parse("<inner>again</inner>"), "again");
+   }
+
+   private static class TextHandler extends ParseSax.HandlerWithResult<String> {
+      private final StringBuilder text = new StringBuilder();
+      protected String result;
+
+      @Override
+      public void characters(char[] ch, int start, int length) {
+         text.append(ch, start, length);
+      }
+
+      @Override
+      public String getResult() {
+         return result != null ? result : text.toString();
+      }
+   }
 }
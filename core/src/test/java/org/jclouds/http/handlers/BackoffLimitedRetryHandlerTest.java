@@ -24,6 +24,7 @@ import static org.testng.Assert.fail;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.jclouds.Constants;
 import org.jclouds.ContextBuilder;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpRequest;
@@ -38,11 +39,23 @@ import org.testng.annotations.Test;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.reflect.Invokable;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
 
 @Test(groups = "unit", testName = "BackoffLimitedRetryHandlerTest")
 public class BackoffLimitedRetryHandlerTest {
 
-   BackoffLimitedRetryHandler handler = new BackoffLimitedRetryHandler();
+   BackoffLimitedRetryHandler handler = withFullJitter(false);
+
+   private static BackoffLimitedRetryHandler withFullJitter(final boolean fullJitter) {
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(Constants.PROPERTY_RETRY_FULL_JITTER)).to(fullJitter);
+         }
+      }).getInstance(BackoffLimitedRetryHandler.class);
+   }
 
    @Test
    void testExponentialBackoffDelayDefaultMaxInterval500() throws InterruptedException {
@@ -111,6 +124,33 @@ public class BackoffLimitedRetryHandlerTest {
       assertThat(elapsedTime).isBetween(period, period + acceptableDelay);
    }
 
+   @Test
+   void testFullJitterDelayIsAtMostTheBackoffPeriod() throws InterruptedException {
+      BackoffLimitedRetryHandler jittered = new BackoffLimitedRetryHandler();
+      long period = 100;
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < 5; i++)
+         jittered.imposeBackoffExponentialDelay(period, 2, 2, 5, "TEST FAILURE: 2");
+      long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+      // without jitter, each delay is at least period * 4
+      assertThat(elapsedTime).isLessThan(period * 4 * 5);
+   }
+
+   @Test
+   void testRetryDelayIsReturnedInsteadOfSlept() throws SecurityException, NoSuchMethodException {
+      HttpCommand command = createCommand();
+      HttpResponse response = HttpResponse.builder().statusCode(500).build();
+
+      long startTime = System.nanoTime();
+      long delay = handler.retryDelay(command, response);
+      long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+      // the first back-off is 50ms plus up to a tenth of it
+      assertThat(delay).isBetween(50L, 55L);
+      assertThat(elapsedTime).isLessThan(50L);
+      assertEquals(command.getFailureCount(), 1);
+   }
+
    @Test
    void testInputStreamIsNotClosed() throws SecurityException, NoSuchMethodException, IOException {
       HttpCommand command = createCommand();
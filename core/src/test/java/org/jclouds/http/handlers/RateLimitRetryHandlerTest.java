@@ -104,6 +104,17 @@ public class RateLimitRetryHandlerTest {
       assertTrue(System.currentTimeMillis() - start > 2500);
    }
 
+   @Test(timeOut = TEST_SAFE_TIMEOUT)
+   public void testRetryDelayIsReturnedInsteadOfWaited() {
+      HttpCommand command = new HttpCommand(HttpRequest.builder().method("GET").endpoint("http://localhost").build());
+      HttpResponse response = HttpResponse.builder().statusCode(429).addHeader(RETRY_AFTER, "5").build();
+
+      long start = System.currentTimeMillis();
+
+      assertEquals(rateLimitRetryHandler.retryDelay(command, response), 5000L);
+      assertTrue(System.currentTimeMillis() - start < 2500);
+   }
+
    @Test(timeOut = TEST_SAFE_TIMEOUT)
    public void testDoNotRetryIfRequestIsAborted() throws Exception {
       final HttpCommand command = new HttpCommand(HttpRequest.builder().method("GET").endpoint("http://localhost")
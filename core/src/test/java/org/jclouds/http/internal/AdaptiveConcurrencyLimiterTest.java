@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.jclouds.Constants.PROPERTY_ADAPTIVE_CONCURRENCY;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_RETRY_BUDGET_RATIO;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.http.internal.AdaptiveConcurrencyLimiter.Permit;
+import org.testng.annotations.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", testName = "AdaptiveConcurrencyLimiterTest")
+public class AdaptiveConcurrencyLimiterTest {
+
+   private final URI endpoint = URI.create("https://bucket.s3.amazonaws.com/key");
+
+   public void testDisabledByDefault() throws InterruptedException {
+      AdaptiveConcurrencyLimiter limiter = limiter(new Properties());
+      assertFalse(limiter.isEnabled());
+      assertNull(limiter.acquire(endpoint));
+      for (int i = 0; i < 100; i++)
+         assertTrue(limiter.tryRetry());
+   }
+
+   public void testThrottlingHalvesTheLimitOncePerRoundTrip() throws InterruptedException {
+      AdaptiveConcurrencyLimiter limiter = limiter(enabled(4, 0.1f));
+      Permit first = limiter.acquire(endpoint);
+      Permit second = limiter.acquire(endpoint);
+      assertEquals(limiter.limit(endpoint), 4);
+
+      first.release(503);
+      assertEquals(limiter.limit(endpoint), 2);
+      // sent before the limit was lowered
+      second.release(503);
+      assertEquals(limiter.limit(endpoint), 2);
+
+      limiter.acquire(endpoint).release(429);
+      assertEquals(limiter.limit(endpoint), 1);
+      limiter.acquire(endpoint).release(503);
+      assertEquals(limiter.limit(endpoint), 1);
+   }
+
+   public void testSuccessesRaiseTheLimitUpToTheMaximum() throws InterruptedException {
+      AdaptiveConcurrencyLimiter limiter = limiter(enabled(2, 0.1f));
+      limiter.acquire(endpoint).release(503);
+      assertEquals(limiter.limit(endpoint), 1);
+
+      limiter.acquire(endpoint).release(200);
+      assertEquals(limiter.limit(endpoint), 2);
+      for (int i = 0; i < 10; i++)
+         limiter.acquire(endpoint).release(404);
+      assertEquals(limiter.limit(endpoint), 2);
+   }
+
+   public void testCancelledPermitsDoNotChangeTheLimit() throws InterruptedException {
+      AdaptiveConcurrencyLimiter limiter = limiter(enabled(2, 0.1f));
+      Permit permit = limiter.acquire(endpoint);
+      permit.cancel();
+      permit.release(503);
+      assertEquals(limiter.limit(endpoint), 2);
+   }
+
+   public void testRequestsWaitForAPermit() throws Exception {
+      final AdaptiveConcurrencyLimiter limiter = limiter(enabled(1, 0.1f));
+      Permit permit = limiter.acquire(endpoint);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<Permit> waiting = executor.submit(new Callable<Permit>() {
+            @Override
+            public Permit call() throws InterruptedException {
+               return limiter.acquire(endpoint);
+            }
+         });
+         try {
+            waiting.get(100, TimeUnit.MILLISECONDS);
+            throw new AssertionError("the limit should have been reached");
+         } catch (TimeoutException expected) {
+         }
+         // another endpoint has its own limit
+         limiter.acquire(URI.create("https://other.s3.amazonaws.com")).release(200);
+
+         permit.release(200);
+         waiting.get(1, TimeUnit.SECONDS).release(200);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testAsyncRequestsAreGivenPermitsInOrder() throws Exception {
+      AdaptiveConcurrencyLimiter limiter = limiter(enabled(1, 0.1f));
+      Permit permit = limiter.acquireAsync(endpoint).get(0, TimeUnit.SECONDS);
+      CompletableFuture<Permit> cancelled = limiter.acquireAsync(endpoint);
+      CompletableFuture<Permit> waiting = limiter.acquireAsync(endpoint);
+      assertFalse(waiting.isDone());
+
+      // a cancelled waiter is skipped rather than given the permit
+      cancelled.cancel(false);
+      permit.release(200);
+      assertTrue(waiting.isDone());
+      assertFalse(limiter.acquireAsync(endpoint).isDone());
+      waiting.get().release(200);
+   }
+
+   public void testRetriesAreLimitedByTheBudget() {
+      AdaptiveConcurrencyLimiter limiter = limiter(enabled(2, 0.5f));
+      for (int i = 0; i < 10; i++)
+         assertTrue(limiter.tryRetry());
+      assertFalse(limiter.tryRetry());
+
+      limiter.requested();
+      assertFalse(limiter.tryRetry());
+      limiter.requested();
+      assertTrue(limiter.tryRetry());
+      assertFalse(limiter.tryRetry());
+   }
+
+   private static Properties enabled(int maxConnectionsPerHost, float retryBudgetRatio) {
+      Properties properties = new Properties();
+      properties.setProperty(PROPERTY_ADAPTIVE_CONCURRENCY, "true");
+      properties.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, maxConnectionsPerHost + "");
+      properties.setProperty(PROPERTY_RETRY_BUDGET_RATIO, retryBudgetRatio + "");
+      return properties;
+   }
+
+   private static AdaptiveConcurrencyLimiter limiter(final Properties properties) {
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), properties);
+         }
+      }).getInstance(AdaptiveConcurrencyLimiter.class);
+   }
+}
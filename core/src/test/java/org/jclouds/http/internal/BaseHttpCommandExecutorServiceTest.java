@@ -16,12 +16,15 @@
  */
 package org.jclouds.http.internal;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.Constants.PROPERTY_ADAPTIVE_CONCURRENCY;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
 import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.io.Payloads.newInputStreamPayload;
@@ -32,6 +35,10 @@ import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -68,7 +75,7 @@ public class BaseHttpCommandExecutorServiceTest {
       DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
       DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
 
-      expect(retryHandler.shouldRetryRequest(command, response)).andReturn(true);
+      expect(retryHandler.retryDelay(command, response)).andReturn(0L);
       replay(retryHandler, errorHandler);
 
       // Verify the stream is open. This consumes one byte.
@@ -76,7 +83,7 @@ public class BaseHttpCommandExecutorServiceTest {
       assertEquals(response.getPayload().openStream().read(), 1);
 
       BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(retryHandler, errorHandler);
-      assertTrue(service.shouldContinue(command, response));
+      assertEquals(service.retryDelay(command, response), 0L);
 
       verify(retryHandler, errorHandler);
 
@@ -98,7 +105,7 @@ public class BaseHttpCommandExecutorServiceTest {
 
       errorHandler.handleError(command, response);
       expectLastCall();
-      expect(retryHandler.shouldRetryRequest(command, response)).andReturn(false);
+      expect(retryHandler.retryDelay(command, response)).andReturn(-1L);
       replay(retryHandler, errorHandler);
 
       // Verify the stream is open. This consumes one byte.
@@ -106,7 +113,7 @@ public class BaseHttpCommandExecutorServiceTest {
       assertEquals(response.getPayload().openStream().read(), 1);
 
       BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(retryHandler, errorHandler);
-      assertFalse(service.shouldContinue(command, response));
+      assertEquals(service.retryDelay(command, response), -1L);
 
       verify(retryHandler, errorHandler);
 
@@ -137,7 +144,7 @@ public class BaseHttpCommandExecutorServiceTest {
          }
       });
 
-      expect(retryHandler.shouldRetryRequest(command, response)).andReturn(false);
+      expect(retryHandler.retryDelay(command, response)).andReturn(-1L);
       replay(retryHandler, errorHandler);
 
       // Verify the stream is open. This consumes one byte.
@@ -145,7 +152,7 @@ public class BaseHttpCommandExecutorServiceTest {
       assertEquals(response.getPayload().openStream().read(), 1);
 
       BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(retryHandler, errorHandler);
-      assertFalse(service.shouldContinue(command, response));
+      assertEquals(service.retryDelay(command, response), -1L);
 
       verify(retryHandler, errorHandler);
 
@@ -181,7 +188,7 @@ public class BaseHttpCommandExecutorServiceTest {
          }
       });
 
-      expect(retryHandler.shouldRetryRequest(command, response)).andReturn(false);
+      expect(retryHandler.retryDelay(command, response)).andReturn(-1L);
       replay(retryHandler, errorHandler);
 
       // Verify the stream is open. This consumes one byte.
@@ -189,7 +196,7 @@ public class BaseHttpCommandExecutorServiceTest {
       assertEquals(response.getPayload().openStream().read(), 1);
 
       BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(retryHandler, errorHandler);
-      assertFalse(service.shouldContinue(command, response));
+      assertEquals(service.retryDelay(command, response), -1L);
 
       verify(retryHandler, errorHandler);
 
@@ -201,6 +208,97 @@ public class BaseHttpCommandExecutorServiceTest {
       assertEquals(response.getPayload().openStream().read(), -1);
    }
 
+   public void testRetryBudgetIsOnlyWithdrawnByRetries() {
+      HttpCommand command = mockHttpCommand();
+      DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
+      DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
+
+      expect(retryHandler.retryDelay(EasyMock.eq(command), EasyMock.<HttpResponse> anyObject()))
+            .andReturn(-1L).times(20);
+      errorHandler.handleError(EasyMock.eq(command), EasyMock.<HttpResponse> anyObject());
+      expectLastCall().times(20);
+      replay(retryHandler, errorHandler);
+
+      Properties properties = BaseHttpApiMetadata.defaultProperties();
+      properties.setProperty(PROPERTY_ADAPTIVE_CONCURRENCY, "true");
+      Injector injector = injector(retryHandler, errorHandler, properties);
+      BaseHttpCommandExecutorService<?> service = injector.getInstance(BaseHttpCommandExecutorService.class);
+      for (int i = 0; i < 20; i++)
+         assertEquals(service.retryDelay(command, HttpResponse.builder().statusCode(500).build()), -1L);
+
+      verify(retryHandler, errorHandler);
+      // the handler never retried, so the budget is untouched
+      assertTrue(injector.getInstance(AdaptiveConcurrencyLimiter.class).tryRetry());
+   }
+
+   public void testRetryBudgetIsReservedBeforeTheHandler() {
+      HttpCommand command = mockHttpCommand();
+      DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
+      DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
+
+      errorHandler.handleError(EasyMock.eq(command), EasyMock.<HttpResponse> anyObject());
+      expectLastCall();
+      // no call to the retry handler is expected
+      replay(retryHandler, errorHandler);
+
+      Properties properties = BaseHttpApiMetadata.defaultProperties();
+      properties.setProperty(PROPERTY_ADAPTIVE_CONCURRENCY, "true");
+      Injector injector = injector(retryHandler, errorHandler, properties);
+      AdaptiveConcurrencyLimiter limiter = injector.getInstance(AdaptiveConcurrencyLimiter.class);
+      while (limiter.tryRetry()) {
+      }
+      BaseHttpCommandExecutorService<?> service = injector.getInstance(BaseHttpCommandExecutorService.class);
+      assertEquals(service.retryDelay(command, HttpResponse.builder().statusCode(503).build()), -1L);
+
+      verify(retryHandler, errorHandler);
+   }
+
+   public void testRetryIsScheduledAfterTheDelay() {
+      final IOException error = new IOException("test exception");
+      final AtomicInteger attempts = new AtomicInteger();
+      HttpRequestFilter failOnceFilter = new HttpRequestFilter() {
+         @Override
+         public HttpRequest filter(HttpRequest request) throws HttpException {
+            if (attempts.incrementAndGet() == 1)
+               throw new HttpException(error);
+            return request;
+         }
+      };
+      HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET")
+            .filter(failOnceFilter).build());
+
+      final IOExceptionRetryHandler ioRetryHandler = EasyMock.createMock(IOExceptionRetryHandler.class);
+      final ScheduledExecutorService scheduler = EasyMock.createMock(ScheduledExecutorService.class);
+      final ScheduledFuture<?> timer = EasyMock.createNiceMock(ScheduledFuture.class);
+      expect(ioRetryHandler.retryDelay(command, error)).andReturn(100L);
+      EasyMock.<ScheduledFuture<?>> expect(
+            scheduler.schedule(EasyMock.<Runnable> anyObject(), EasyMock.eq(100L), EasyMock.eq(MILLISECONDS)))
+            .andAnswer(new IAnswer<ScheduledFuture<?>>() {
+               @Override
+               public ScheduledFuture<?> answer() throws Throwable {
+                  // the delay has passed
+                  ((Runnable) getCurrentArguments()[0]).run();
+                  return timer;
+               }
+            });
+      replay(ioRetryHandler, scheduler, timer);
+
+      BaseHttpCommandExecutorService<?> service = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(IOExceptionRetryHandler.class).toInstance(ioRetryHandler);
+            bind(ScheduledExecutorService.class).annotatedWith(Names.named(PROPERTY_SCHEDULER_THREADS))
+                  .toInstance(scheduler);
+            bind(BaseHttpCommandExecutorService.class).to(MockHttpCommandExecutorService.class);
+         }
+      }).getInstance(BaseHttpCommandExecutorService.class);
+
+      assertEquals(service.invoke(command).getStatusCode(), 200);
+      assertEquals(attempts.get(), 2);
+      verify(ioRetryHandler, scheduler);
+   }
+
    public void testDoNotRetryPostOnException() throws IOException {
       helperRetryOnlyIdempotent("POST");
    }
@@ -222,8 +320,8 @@ public class BaseHttpCommandExecutorServiceTest {
       IOExceptionRetryHandler ioRetryHandler = EasyMock.createMock(IOExceptionRetryHandler.class);
 
       if ("GET".equals(method)) {
-         expect(ioRetryHandler.shouldRetryRequest(command, error)).andReturn(true);
-         expect(ioRetryHandler.shouldRetryRequest(command, error)).andReturn(false);
+         expect(ioRetryHandler.retryDelay(command, error)).andReturn(0L);
+         expect(ioRetryHandler.retryDelay(command, error)).andReturn(-1L);
       }
       replay(ioRetryHandler);
 
@@ -242,17 +340,21 @@ public class BaseHttpCommandExecutorServiceTest {
    
    private BaseHttpCommandExecutorService<?> mockHttpCommandExecutorService(final DelegatingRetryHandler retryHandler,
          final DelegatingErrorHandler errorHandler) {
-      Injector injector = Guice.createInjector(new AbstractModule() {
+      return injector(retryHandler, errorHandler, BaseHttpApiMetadata.defaultProperties())
+            .getInstance(BaseHttpCommandExecutorService.class);
+   }
+
+   private Injector injector(final DelegatingRetryHandler retryHandler, final DelegatingErrorHandler errorHandler,
+         final Properties properties) {
+      return Guice.createInjector(new AbstractModule() {
          @Override
          protected void configure() {
-            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            Names.bindProperties(binder(), properties);
             bind(DelegatingRetryHandler.class).toInstance(retryHandler);
             bind(DelegatingErrorHandler.class).toInstance(errorHandler);
             bind(BaseHttpCommandExecutorService.class).to(MockHttpCommandExecutorService.class);
          }
       });
-
-      return injector.getInstance(BaseHttpCommandExecutorService.class);
    }
 
    private BaseHttpCommandExecutorService<?> mockHttpCommandExecutorService(final IOExceptionRetryHandler ioRetryHandler) {
@@ -321,7 +423,7 @@ public class BaseHttpCommandExecutorServiceTest {
 
       @Override
       protected HttpResponse invoke(Object nativeRequest) throws IOException, InterruptedException {
-         return null;
+         return HttpResponse.builder().statusCode(200).build();
       }
 
       @Override
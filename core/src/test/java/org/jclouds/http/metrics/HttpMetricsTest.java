@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static org.jclouds.Constants.PROPERTY_HTTP_METRICS;
+import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.http.metrics.HttpMetrics.CommandMetrics;
+import org.jclouds.http.metrics.HttpMetrics.Phase;
+import org.jclouds.rest.AuthorizationException;
+import org.jclouds.rest.Utils;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", testName = "HttpMetricsTest")
+public class HttpMetricsTest {
+
+   private final HttpRequest request = HttpRequest.builder().method("PUT").endpoint("http://bucket/key").build();
+
+   public void testIsNotBoundByDefault() {
+      assertSame(Guice.createInjector().getInstance(HttpMetricsListener.class), HttpMetricsListener.NULL);
+   }
+
+   public void testIsTheListenerWhenEnabled() {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(PROPERTY_HTTP_METRICS)).to(true);
+         }
+      });
+      assertSame(injector.getInstance(HttpMetricsListener.class), injector.getInstance(HttpMetrics.class));
+   }
+
+   public void testUtilsReturnNoneUnlessKept() {
+      Utils utils = ContextBuilder.newBuilder(forApiOnEndpoint(IntegrationTestClient.class, "http://localhost"))
+            .buildInjector().getInstance(Utils.class);
+      assertSame(utils.httpMetrics(), HttpMetrics.NONE);
+   }
+
+   public void testNoneRecordsNothing() {
+      HttpCommand put = new HttpCommand(request, "ObjectApi.put");
+      HttpMetrics.NONE.onFiltered(put, 10);
+      HttpMetrics.NONE.onInvoked(put, HttpResponse.builder().statusCode(200).build(), null, 1000);
+      assertEquals(HttpMetrics.NONE.commandNames(), ImmutableSet.of());
+   }
+
+   public void testRecordsByCommandName() {
+      HttpMetrics metrics = new HttpMetrics();
+      HttpCommand put = new HttpCommand(request, "ObjectApi.put");
+      HttpResponse throttled = HttpResponse.builder().statusCode(503).build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      metrics.onFiltered(put, 10);
+      metrics.onResponse(put, throttled, 1000);
+      put.incrementFailureCount();
+      metrics.onFiltered(put, 10);
+      metrics.onFailure(put, new IOException("reset"), 2000);
+      put.incrementFailureCount();
+      metrics.onFiltered(put, 10);
+      metrics.onResponse(put, ok, 1000);
+      metrics.onParsed(put, 500);
+      metrics.onInvoked(put, ok, null, 5000);
+
+      metrics.onInvoked(new HttpCommand(request), null, new AuthorizationException(new HttpResponseException(
+            new HttpCommand(request), HttpResponse.builder().statusCode(403).build())), 100);
+
+      assertEquals(metrics.commandNames(), ImmutableSet.of("ObjectApi.put", "PUT"));
+      assertNull(metrics.get("ObjectApi.get"));
+
+      CommandMetrics putMetrics = metrics.get("ObjectApi.put");
+      assertEquals(putMetrics.getInvocations(), 1);
+      assertEquals(putMetrics.getRetries(), 2);
+      assertEquals(putMetrics.getConnectionFailures(), 1);
+      assertEquals(putMetrics.getStatusCodes(), ImmutableMap.of(200, 1L));
+      assertEquals(putMetrics.latency(Phase.FILTER).count(), 3);
+      assertEquals(putMetrics.latency(Phase.RESPONSE).count(), 3);
+      assertEquals(putMetrics.latency(Phase.PARSE).count(), 1);
+      assertEquals(putMetrics.latency(Phase.INVOCATION).maxNanos(), 5000);
+
+      assertEquals(metrics.get("PUT").getStatusCodes(), ImmutableMap.of(403, 1L));
+   }
+}
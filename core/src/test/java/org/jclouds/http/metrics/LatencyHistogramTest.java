@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "LatencyHistogramTest")
+public class LatencyHistogramTest {
+
+   public void testBucketsAreContiguous() {
+      long previousUpperBound = -1;
+      for (int i = 0; i <= LatencyHistogram.index((1L << 36) - 1); i++) {
+         long upperBound = LatencyHistogram.upperBound(i);
+         assertEquals(LatencyHistogram.index(previousUpperBound + 1), i);
+         assertEquals(LatencyHistogram.index(upperBound), i);
+         // each bucket is at most an eighth of its values wide
+         assertThat(upperBound - previousUpperBound).isLessThanOrEqualTo(Math.max(1, upperBound / 8 + 1));
+         previousUpperBound = upperBound;
+      }
+   }
+
+   public void testEmpty() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(histogram.count(), 0);
+      assertEquals(histogram.meanNanos(), 0);
+      assertEquals(histogram.percentileNanos(99), 0);
+   }
+
+   public void testPercentiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 1; i <= 1000; i++)
+         histogram.record(MILLISECONDS.toNanos(i));
+      assertEquals(histogram.count(), 1000);
+      assertEquals(histogram.maxNanos(), MILLISECONDS.toNanos(1000));
+      assertEquals(histogram.meanNanos(), MICROSECONDS.toNanos(500500));
+      assertThat(histogram.percentileNanos(50)).isBetween(MILLISECONDS.toNanos(500), MILLISECONDS.toNanos(563));
+      assertThat(histogram.percentileNanos(99)).isBetween(MILLISECONDS.toNanos(990), MILLISECONDS.toNanos(1000));
+      assertEquals(histogram.percentileNanos(100), MILLISECONDS.toNanos(1000));
+   }
+
+   public void testOutOfRangeDurations() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(-5);
+      histogram.record(Long.MAX_VALUE);
+      assertEquals(histogram.count(), 2);
+      assertEquals(histogram.percentileNanos(50), 0);
+      assertEquals(histogram.percentileNanos(100), Long.MAX_VALUE);
+   }
+}
@@ -21,18 +21,22 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.io.payloads.FilePayload;
+import org.jclouds.io.payloads.FileRegionPayload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
 
 @Test
 public class BasePayloadSlicerTest {
@@ -111,4 +115,55 @@ public class BasePayloadSlicerTest {
 
       assertFalse(iter.hasNext());
    }
+
+   @Test
+   public void testIterableSliceFileIntoRegions() throws IOException {
+      PayloadSlicer slicer = new BasePayloadSlicer();
+      File file = File.createTempFile("slicer", ".txt");
+      try {
+         Files.write("aaaaaaaaaabbbbbbbbbbccccc".getBytes(Charsets.US_ASCII), file); /* 25 chars */
+         Payload payload = new FilePayload(file);
+
+         Iterator<Payload> iter = slicer.slice(payload, 10).iterator();
+         FileRegionPayload part;
+
+         assertTrue(iter.hasNext(), "Not enough results");
+         part = (FileRegionPayload) iter.next();
+         assertEquals(part.getOffset(), 0);
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "aaaaaaaaaa");
+
+         assertTrue(iter.hasNext(), "Not enough results");
+         part = (FileRegionPayload) iter.next();
+         assertEquals(part.getOffset(), 10);
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "bbbbbbbbbb");
+
+         assertTrue(iter.hasNext(), "Not enough results");
+         part = (FileRegionPayload) iter.next();
+         assertEquals(part.getOffset(), 20);
+         assertEquals(part.getContentMetadata().getContentLength(), Long.valueOf(5));
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "ccccc");
+
+         assertFalse(iter.hasNext());
+      } finally {
+         file.delete();
+      }
+   }
+
+   @Test
+   public void testSliceFileRegion() throws IOException {
+      PayloadSlicer slicer = new BasePayloadSlicer();
+      File file = File.createTempFile("slicer", ".txt");
+      try {
+         Files.write("aaaaaaaaaabbbbbbbbbbccccc".getBytes(Charsets.US_ASCII), file);
+         Payload region = slicer.slice(new FilePayload(file), 5, 15);
+
+         FileRegionPayload part = (FileRegionPayload) slicer.slice(region, 5, 10);
+         assertEquals(part.getFile(), file);
+         assertEquals(part.getOffset(), 10);
+         assertEquals(part.getLength(), 10);
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "bbbbbbbbbb");
+      } finally {
+         file.delete();
+      }
+   }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "FileRegionPayloadTest")
+public class FileRegionPayloadTest {
+   private File file;
+
+   @BeforeMethod
+   public void createFile() throws IOException {
+      file = File.createTempFile("region", ".txt");
+      Files.write("aaaaaaaaaabbbbbbbbbbccccc".getBytes(Charsets.US_ASCII), file);
+   }
+
+   @AfterMethod
+   public void deleteFile() {
+      file.delete();
+   }
+
+   public void testTransferTo() throws IOException {
+      FileRegionPayload payload = new FileRegionPayload(file, 10, 10);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      assertEquals(payload.transferTo(Channels.newChannel(out)), 10);
+      assertEquals(new String(out.toByteArray(), Charsets.US_ASCII), "bbbbbbbbbb");
+   }
+
+   public void testRegionEndsAtEndOfFile() throws IOException {
+      FileRegionPayload payload = new FileRegionPayload(file, 20, 10);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      assertEquals(payload.getLength(), 5);
+      assertEquals(payload.getContentMetadata().getContentLength(), Long.valueOf(5));
+      assertEquals(payload.transferTo(Channels.newChannel(out)), 5);
+      assertEquals(new String(out.toByteArray(), Charsets.US_ASCII), "ccccc");
+   }
+
+   public void testHash() throws IOException {
+      FileRegionPayload payload = new FileRegionPayload(file, 10, 15);
+
+      assertEquals(payload.hash(Hashing.md5()),
+            Hashing.md5().hashString("bbbbbbbbbbccccc", Charsets.US_ASCII));
+   }
+}
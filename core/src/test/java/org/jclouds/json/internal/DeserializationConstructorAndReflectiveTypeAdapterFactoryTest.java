@@ -155,6 +155,16 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactoryTest
         gson.fromJson("{\"bar\":1}", ValidatedConstructor.class);
     }
 
+   public void testDefaultsAreNotSharedBetweenReads() throws IOException {
+      Gson gson = new GsonBuilder().registerTypeAdapterFactory(parameterizedCtorFactory)
+            .registerTypeAdapterFactory(new OptionalTypeAdapterFactory()).create();
+
+      assertEquals(gson.fromJson("{\"foo\":0,\"bar\":5}", ValidatedConstructor.class),
+            new ValidatedConstructor(Optional.of(0), 5));
+      assertEquals(gson.fromJson("{\"foo\":1}", ValidatedConstructor.class),
+            new ValidatedConstructor(Optional.of(1), 0));
+   }
+
    private abstract static class ValueTypeWithFactory {
       abstract List<String> foo();
       abstract Map<String, String> bar();
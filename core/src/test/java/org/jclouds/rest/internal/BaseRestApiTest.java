@@ -29,9 +29,6 @@ import java.io.IOException;
 import java.util.Date;
 import java.util.Map.Entry;
 
-import javax.inject.Named;
-import javax.inject.Singleton;
-
 import org.jclouds.concurrent.config.ConfiguresExecutorService;
 import org.jclouds.fallbacks.MapHttp4xxCodesToExceptions;
 import org.jclouds.http.HttpCommandExecutorService;
@@ -50,11 +47,8 @@ import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
 import com.google.common.reflect.Invokable;
 import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.SimpleTimeLimiter;
-import com.google.common.util.concurrent.TimeLimiter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
-import com.google.inject.Provides;
 
 @Test(groups = "unit")
 public abstract class BaseRestApiTest {
@@ -80,12 +74,6 @@ public abstract class BaseRestApiTest {
          bind(ListeningExecutorService.class).annotatedWith(named(PROPERTY_USER_THREADS)).toInstance(newDirectExecutorService());
          bind(HttpCommandExecutorService.class).toInstance(mock);
       }
-
-      @Provides
-      @Singleton
-      TimeLimiter timeLimiter(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
-         return SimpleTimeLimiter.create(userExecutor);
-      }
    }
 
    protected void assertPayloadEquals(HttpRequest request, String toMatch, String contentType, boolean contentMD5) {
@@ -18,12 +18,18 @@ package org.jclouds.rest.internal;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.reflect.Reflection2.method;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
 
 import javax.inject.Named;
 
@@ -33,7 +39,6 @@ import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.config.InvocationConfig;
-import org.jclouds.rest.internal.InvokeHttpMethod.InvokeAndTransform;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
@@ -44,7 +49,10 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.TimeLimiter;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 
 @Test(groups = "unit", singleThreaded = true)
 public class InvokeHttpMethodTest {
@@ -71,7 +79,6 @@ public class InvokeHttpMethodTest {
 
    private HttpResponse response = HttpResponse.builder().statusCode(200).payload("foo").build();
    private HttpCommandExecutorService http;
-   private TimeLimiter timeLimiter;
    @SuppressWarnings("rawtypes")
    private org.jclouds.Fallback fallback;
    private InvocationConfig config;
@@ -82,31 +89,29 @@ public class InvokeHttpMethodTest {
    @BeforeMethod
    void createMocks() {
       http = createMock(HttpCommandExecutorService.class);
-      timeLimiter = createMock(TimeLimiter.class);
       fallback = createMock(org.jclouds.Fallback.class);
       config = createMock(InvocationConfig.class);
-      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config);
+      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, config);
       expect(config.getCommandName(get)).andReturn("ns:get");
       expect(config.getFallback(get)).andReturn(fallback);
    }
 
    @AfterMethod
    void verifyMocks() {
-      verify(http, timeLimiter, fallback, config);
+      verify(http, fallback, config);
    }
 
-   public void testMethodWithTimeoutRunsTimeLimiter() throws Exception {
+   public void testMethodWithTimeoutInvokesAsync() throws Exception {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.of(250000000L));
-      InvokeAndTransform invoke = invokeHttpMethod.new InvokeAndTransform("ns:get", getCommand);
-      expect(timeLimiter.callWithTimeout(invoke, 250000000, TimeUnit.NANOSECONDS)).andReturn(response);
-      replay(http, timeLimiter, fallback, config);
-      invokeHttpMethod.apply(get);
+      expect(http.invokeAsync(getCommand)).andReturn(CompletableFuture.completedFuture(response));
+      replay(http, fallback, config);
+      assertEquals(invokeHttpMethod.apply(get), response);
    }
 
    public void testMethodWithNoTimeoutCallGetDirectly() throws Exception {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent());
       expect(http.invoke(new HttpCommand(getRequest))).andReturn(response);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, fallback, config);
       invokeHttpMethod.apply(get);
    }
 
@@ -117,17 +122,59 @@ public class InvokeHttpMethodTest {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent());
       expect(http.invoke(new HttpCommand(getRequest))).andThrow(exception);
       expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, fallback, config);
       assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
    }
 
    public void testTimeLimitedRunsFallbackCreateOrPropagate() throws Exception {
       IllegalStateException exception = new IllegalStateException();
+      CompletableFuture<HttpResponse> failed = new CompletableFuture<HttpResponse>();
+      failed.completeExceptionally(exception);
       expect(config.getTimeoutNanos(get)).andReturn(Optional.of(250000000L));
-      InvokeAndTransform invoke = invokeHttpMethod.new InvokeAndTransform("ns:get", getCommand);
-      expect(timeLimiter.callWithTimeout(invoke, 250000000, TimeUnit.NANOSECONDS)).andThrow(exception);
+      expect(http.invokeAsync(getCommand)).andReturn(failed);
       expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, fallback, config);
+      assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
+   }
+
+   public void testTimeoutCancelsCallAndRunsFallback() throws Exception {
+      CompletableFuture<HttpResponse> neverCompletes = new CompletableFuture<HttpResponse>();
+      expect(config.getTimeoutNanos(get)).andReturn(Optional.of(1000000L));
+      expect(http.invokeAsync(getCommand)).andReturn(neverCompletes);
+      expect(fallback.createOrPropagate(isA(TimeoutException.class))).andReturn(fallbackResponse);
+      replay(http, fallback, config);
       assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
+      assertTrue(neverCompletes.isCancelled());
+   }
+
+   public void testSchedulerFailsTimedOutCall() throws Exception {
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+      try {
+         CompletableFuture<HttpResponse> neverCompletes = new CompletableFuture<HttpResponse>();
+         expect(config.getTimeoutNanos(get)).andReturn(Optional.of(1000000L));
+         expect(http.invokeAsync(getCommand)).andReturn(neverCompletes);
+         expect(fallback.createOrPropagate(isA(TimeoutException.class))).andReturn(fallbackResponse);
+         replay(http, fallback, config);
+         assertEquals(withScheduler(scheduler).apply(get), fallbackResponse);
+         assertTrue(neverCompletes.isCompletedExceptionally());
+      } finally {
+         scheduler.shutdownNow();
+      }
+   }
+
+   private InvokeHttpMethod withScheduler(final ScheduledExecutorService scheduler) {
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(new TypeLiteral<Function<Invocation, HttpRequest>>() {
+            }).toInstance(toRequest);
+            bind(HttpCommandExecutorService.class).toInstance(http);
+            bind(new TypeLiteral<Function<HttpRequest, Function<HttpResponse, ?>>>() {
+            }).toInstance(transformerForRequest);
+            bind(InvocationConfig.class).toInstance(config);
+            bind(ScheduledExecutorService.class).annotatedWith(Names.named(PROPERTY_SCHEDULER_THREADS))
+                  .toInstance(scheduler);
+         }
+      }).getInstance(InvokeHttpMethod.class);
    }
 }
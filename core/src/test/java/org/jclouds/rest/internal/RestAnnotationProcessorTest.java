@@ -29,6 +29,7 @@ import static org.jclouds.reflect.Reflection2.method;
 import static org.jclouds.util.Strings2.urlEncode;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -1503,6 +1504,18 @@ public class RestAnnotationProcessorTest extends BaseRestApiTest {
       assertEquals(request.getFilters().get(0).getClass(), TestRequestFilter2.class);
    }
 
+   public void testRequestTemplateIsReused() throws SecurityException, NoSuchMethodException {
+      Invokable<?, ?> method = method(TestRequestFilter.class, "getOverride");
+      RequestTemplate template = RequestTemplate.forInvokable(method);
+      assertSame(RequestTemplate.forInvokable(method(TestRequestFilter.class, "getOverride")), template);
+      assertEquals(template.getHttpMethod(), "GET");
+      assertEquals(template.filters, ImmutableList.of(TestRequestFilter2.class));
+
+      GeneratedHttpRequest first = processor.apply(Invocation.create(method));
+      GeneratedHttpRequest second = processor.apply(Invocation.create(method));
+      assertEquals(first, second);
+   }
+
    @Test
    public void testRequestFilterStripExpect() {
       // First, verify that by default, the StripExpectHeader filter is not applied
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.jdkhttp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.EXPECT;
+import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_USER_AGENT;
+import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
+import static org.jclouds.http.HttpUtils.releasePayload;
+import static org.jclouds.io.Payloads.newInputStreamPayload;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * Sends requests with the {@link HttpClient} of the JDK.
+ * <p/>
+ * The client is shared by all requests of a context, so its connections are pooled and, for https
+ * endpoints which support it, multiplexed over HTTP/2. Plain http endpoints are always spoken to in
+ * HTTP/1.1 to avoid cleartext upgrade attempts.
+ */
+public final class JdkHttpCommandExecutorService extends BaseHttpCommandExecutorService<java.net.http.HttpRequest> {
+
+   /** Headers which the JDK client computes itself and refuses to be given. */
+   private static final Set<String> RESTRICTED_HEADERS = ImmutableSortedSet.orderedBy(String.CASE_INSENSITIVE_ORDER)
+         .add("Connection", "Content-Length", "Expect", "Host", "Upgrade").build();
+
+   private final HttpClient client;
+   private final String userAgent;
+   private final LoadingCache<String, Permits> permitsPerHost;
+   private final boolean limitPerHost;
+
+   @Inject
+   JdkHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire, HttpClient client,
+         @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods,
+         @Named(PROPERTY_USER_AGENT) String userAgent) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      this.client = client;
+      this.userAgent = userAgent;
+      final int maxConnectionsPerHost = utils.getMaxConnectionsPerHost();
+      this.limitPerHost = maxConnectionsPerHost > 0;
+      this.permitsPerHost = CacheBuilder.newBuilder().build(new CacheLoader<String, Permits>() {
+         @Override
+         public Permits load(String host) {
+            return new Permits(maxConnectionsPerHost);
+         }
+      });
+   }
+
+   @Override
+   protected java.net.http.HttpRequest convert(HttpRequest request) throws IOException, InterruptedException {
+      java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(request.getEndpoint());
+      if ("http".equalsIgnoreCase(request.getEndpoint().getScheme())) {
+         builder.version(HttpClient.Version.HTTP_1_1);
+      }
+      if (utils.getSocketOpenTimeout() > 0) {
+         builder.timeout(Duration.ofMillis(utils.getSocketOpenTimeout()));
+      }
+      populateHeaders(request, builder);
+      builder.method(request.getMethod(), bodyPublisher(request.getPayload()));
+      return builder.build();
+   }
+
+   private void populateHeaders(HttpRequest request, java.net.http.HttpRequest.Builder builder) {
+      // The JDK client does not set the Accept header if not present in the request.
+      // Make sure we send a flexible one.
+      if (request.getFirstHeaderOrNull(ACCEPT) == null) {
+         builder.header(ACCEPT, "*/*");
+      }
+      if (request.getFirstHeaderOrNull(USER_AGENT) == null) {
+         builder.header(USER_AGENT, userAgent);
+      }
+      for (Map.Entry<String, String> entry : request.getHeaders().entries()) {
+         addHeader(builder, entry.getKey(), entry.getValue());
+      }
+      if (request.getPayload() != null) {
+         MutableContentMetadata md = request.getPayload().getContentMetadata();
+         for (Map.Entry<String, String> entry : contentMetadataCodec.toHeaders(md).entries()) {
+            addHeader(builder, entry.getKey(), entry.getValue());
+         }
+      }
+   }
+
+   private static void addHeader(java.net.http.HttpRequest.Builder builder, String name, String value) {
+      if (EXPECT.equalsIgnoreCase(name)) {
+         // the client sends the header itself, and waits for the interim response before the body
+         builder.expectContinue("100-continue".equalsIgnoreCase(value));
+      } else if (!RESTRICTED_HEADERS.contains(name)) {
+         builder.header(name, value);
+      }
+   }
+
+   /**
+    * Byte arrays and files are handed to the client as they are; other payloads are streamed from
+    * {@link Payload#openStream} with their declared length.
+    */
+   private static BodyPublisher bodyPublisher(final Payload payload) throws IOException {
+      if (payload == null) {
+         return BodyPublishers.noBody();
+      }
+      long length = checkNotNull(payload.getContentMetadata().getContentLength(), "payload.getContentLength");
+      if (length == 0) {
+         return BodyPublishers.noBody();
+      }
+      Object content = payload.getRawContent();
+      if (content instanceof byte[] && ((byte[]) content).length == length) {
+         return BodyPublishers.ofByteArray((byte[]) content);
+      }
+      if (content instanceof File && ((File) content).length() == length) {
+         return BodyPublishers.ofFile(((File) content).toPath());
+      }
+      return BodyPublishers.fromPublisher(BodyPublishers.ofInputStream(new Supplier<InputStream>() {
+         @Override
+         public InputStream get() {
+            try {
+               return payload.openStream();
+            } catch (IOException e) {
+               throw new UncheckedIOException(e);
+            }
+         }
+      }), length);
+   }
+
+   @Override
+   protected HttpResponse invoke(java.net.http.HttpRequest nativeRequest) throws IOException, InterruptedException {
+      Permits permits = awaitPermit(nativeRequest);
+      java.net.http.HttpResponse<InputStream> response;
+      try {
+         response = client.send(nativeRequest, BodyHandlers.ofInputStream());
+      } catch (IOException | InterruptedException | RuntimeException e) {
+         release(permits);
+         throw e;
+      }
+      return toHttpResponse(nativeRequest, response, permits);
+   }
+
+   /**
+    * Sends the request with {@link HttpClient#sendAsync} once a per host permit, if any, is
+    * available. Nothing blocks the calling thread.
+    */
+   @Override
+   protected CompletableFuture<HttpResponse> invokeAsync(final java.net.http.HttpRequest nativeRequest) {
+      final CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+      final CompletableFuture<Permits> permit = acquirePermit(nativeRequest);
+      permit.whenComplete(new BiConsumer<Permits, Throwable>() {
+         @Override
+         public void accept(Permits permits, Throwable error) {
+            if (error != null) {
+               future.completeExceptionally(error);
+            } else if (future.isDone()) {
+               // given up while waiting for the permit
+               release(permits);
+            } else {
+               sendAsync(nativeRequest, permits, future);
+            }
+         }
+      });
+      future.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+         @Override
+         public void accept(HttpResponse response, Throwable error) {
+            if (error != null)
+               permit.cancel(false);
+         }
+      });
+      return future;
+   }
+
+   private void sendAsync(final java.net.http.HttpRequest nativeRequest, @Nullable final Permits permits,
+         final CompletableFuture<HttpResponse> future) {
+      client.sendAsync(nativeRequest, BodyHandlers.ofInputStream()).whenComplete(
+            new BiConsumer<java.net.http.HttpResponse<InputStream>, Throwable>() {
+               @Override
+               public void accept(java.net.http.HttpResponse<InputStream> response, Throwable error) {
+                  if (error != null) {
+                     release(permits);
+                     future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                           ? error.getCause() : error);
+                     return;
+                  }
+                  try {
+                     HttpResponse httpResponse = toHttpResponse(nativeRequest, response, permits);
+                     if (!future.complete(httpResponse))
+                        releasePayload(httpResponse);
+                  } catch (IOException e) {
+                     future.completeExceptionally(e);
+                  }
+               }
+            });
+   }
+
+   /**
+    * Returns the future per host permit, which completes with null if connections per host are not
+    * limited.
+    */
+   private CompletableFuture<Permits> acquirePermit(java.net.http.HttpRequest nativeRequest) {
+      if (!limitPerHost) {
+         return CompletableFuture.completedFuture(null);
+      }
+      URI uri = nativeRequest.uri();
+      return permitsPerHost.getUnchecked(uri.getHost() + ":" + uri.getPort()).acquire();
+   }
+
+   @Nullable
+   private Permits awaitPermit(java.net.http.HttpRequest nativeRequest) throws InterruptedException {
+      CompletableFuture<Permits> permit = acquirePermit(nativeRequest);
+      try {
+         return permit.get();
+      } catch (InterruptedException e) {
+         if (!permit.cancel(false))
+            release(permit.join());
+         throw e;
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   private static void release(@Nullable Permits permits) {
+      if (permits != null) {
+         permits.release();
+      }
+   }
+
+   private HttpResponse toHttpResponse(java.net.http.HttpRequest nativeRequest,
+         java.net.http.HttpResponse<InputStream> response, @Nullable Permits permits) throws IOException {
+      HttpResponse.Builder<?> builder = HttpResponse.builder();
+      builder.statusCode(response.statusCode());
+      // HTTP/2 has no reason phrase and the JDK client does not expose the HTTP/1.1 one
+      builder.message("");
+
+      ImmutableMultimap.Builder<String, String> headerBuilder = ImmutableMultimap.builder();
+      for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+         headerBuilder.putAll(header.getKey(), header.getValue());
+      }
+      ImmutableMultimap<String, String> headers = headerBuilder.build();
+
+      InputStream body = permits == null ? response.body() : new ReleasingInputStream(response.body(), permits);
+      if (response.statusCode() == 204 || "HEAD".equals(nativeRequest.method())) {
+         body.close();
+      } else {
+         Payload payload = newInputStreamPayload(body);
+         contentMetadataCodec.fromHeaders(payload.getContentMetadata(), headers);
+         builder.payload(payload);
+      }
+
+      builder.headers(filterOutContentHeaders(headers));
+
+      return builder.build();
+   }
+
+   @Override
+   protected void cleanup(java.net.http.HttpRequest nativeRequest) {
+   }
+
+   /**
+    * The connections which may be opened to a host. Requests waiting for one are handed it, in
+    * order, as others release theirs, rather than blocking a thread.
+    */
+   private static final class Permits {
+      private final int max;
+      // guarded by this
+      private int inUse;
+      private final Deque<CompletableFuture<Permits>> waiters = new ArrayDeque<CompletableFuture<Permits>>();
+
+      Permits(int max) {
+         this.max = max;
+      }
+
+      synchronized CompletableFuture<Permits> acquire() {
+         if (waiters.isEmpty() && inUse < max) {
+            inUse++;
+            return CompletableFuture.completedFuture(this);
+         }
+         CompletableFuture<Permits> waiter = new CompletableFuture<Permits>();
+         waiters.add(waiter);
+         return waiter;
+      }
+
+      void release() {
+         CompletableFuture<Permits> next;
+         synchronized (this) {
+            do {
+               next = waiters.poll();
+            } while (next != null && next.isDone());
+            if (next == null) {
+               inUse--;
+               return;
+            }
+         }
+         // the permit passes to the waiter, which continues in this thread, so complete it outside of the lock
+         if (!next.complete(this)) {
+            release();
+         }
+      }
+   }
+
+   /** Gives the per host permit back once the response has been consumed. */
+   private static final class ReleasingInputStream extends FilterInputStream {
+      private final Permits permits;
+      private final AtomicBoolean released = new AtomicBoolean();
+
+      ReleasingInputStream(InputStream in, Permits permits) {
+         super(in);
+         this.permits = permits;
+      }
+
+      @Override
+      public void close() throws IOException {
+         try {
+            super.close();
+         } finally {
+            if (released.compareAndSet(false, true)) {
+               permits.release();
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.jdkhttp.config;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.net.ssl.SSLContext;
+
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+import org.jclouds.http.config.SSLModule;
+import org.jclouds.http.jdkhttp.JdkHttpCommandExecutorService;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
+
+/**
+ * Configures the {@link JdkHttpCommandExecutorService}.
+ *
+ * Note that the JDK client uses its own threads for connection management.
+ */
+@ConfiguresHttpCommandExecutorService
+public class JdkHttpCommandExecutorServiceModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      install(new SSLModule());
+      bind(HttpCommandExecutorService.class).to(JdkHttpCommandExecutorService.class).in(Scopes.SINGLETON);
+      bind(HttpClient.class).toProvider(HttpClientProvider.class).in(Scopes.SINGLETON);
+   }
+
+   private static final class HttpClientProvider implements Provider<HttpClient> {
+      private final HttpUtils utils;
+      private final Supplier<SSLContext> untrustedSSLContextProvider;
+      private final Function<URI, Proxy> proxyForURI;
+
+      @Inject
+      HttpClientProvider(HttpUtils utils, @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider,
+            Function<URI, Proxy> proxyForURI) {
+         this.utils = utils;
+         this.untrustedSSLContextProvider = untrustedSSLContextProvider;
+         this.proxyForURI = proxyForURI;
+      }
+
+      @Override
+      public HttpClient get() {
+         HttpClient.Builder builder = HttpClient.newBuilder()
+               .version(HttpClient.Version.HTTP_2)
+               // redirects are handled by the jclouds retry handlers
+               .followRedirects(HttpClient.Redirect.NEVER)
+               .proxy(new ProxySelector() {
+                  @Override
+                  public List<Proxy> select(URI uri) {
+                     return Collections.singletonList(proxyForURI.apply(uri));
+                  }
+
+                  @Override
+                  public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
+                  }
+               });
+         if (utils.getConnectionTimeout() > 0) {
+            builder.connectTimeout(Duration.ofMillis(utils.getConnectionTimeout()));
+         }
+         if (utils.trustAllCerts()) {
+            builder.sslContext(untrustedSSLContextProvider.get());
+         }
+         return builder.build();
+      }
+   }
+
+}
@@ -22,17 +22,22 @@ import static com.google.common.net.HttpHeaders.USER_AGENT;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
 import static org.jclouds.Constants.PROPERTY_USER_AGENT;
 import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
+import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.io.Payloads.newInputStreamPayload;
 
 import java.io.IOException;
 import java.net.Proxy;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 import javax.annotation.Nullable;
 import javax.inject.Named;
 
 import okhttp3.internal.http.HttpMethod;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -172,12 +177,44 @@ public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorS
 
    @Override
    protected HttpResponse invoke(Request nativeRequest) throws IOException, InterruptedException {
+      return toHttpResponse(newCall(nativeRequest).execute());
+   }
+
+   @Override
+   protected CompletableFuture<HttpResponse> invokeAsync(Request nativeRequest) {
+      final CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+      final Call call = newCall(nativeRequest);
+      call.enqueue(new Callback() {
+         @Override
+         public void onFailure(Call call, IOException e) {
+            future.completeExceptionally(e);
+         }
+
+         @Override
+         public void onResponse(Call call, Response response) {
+            HttpResponse httpResponse = toHttpResponse(response);
+            if (!future.complete(httpResponse))
+               releasePayload(httpResponse);
+         }
+      });
+      future.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+         @Override
+         public void accept(HttpResponse response, Throwable error) {
+            if (future.isCancelled())
+               call.cancel();
+         }
+      });
+      return future;
+   }
+
+   private Call newCall(Request nativeRequest) {
       OkHttpClient requestScopedClient = globalClient.newBuilder()
           .proxy(proxyForURI.apply(nativeRequest.url().uri()))
           .build();
+      return requestScopedClient.newCall(nativeRequest);
+   }
 
-      Response response = requestScopedClient.newCall(nativeRequest).execute();
-
+   private HttpResponse toHttpResponse(Response response) {
       HttpResponse.Builder<?> builder = HttpResponse.builder();
       builder.statusCode(response.code());
       builder.message(response.message());
@@ -32,8 +32,10 @@ import net.schmizz.sshj.userauth.keyprovider.OpenSSHKeyFile;
 import net.schmizz.sshj.userauth.method.AuthMethod;
 
 import org.jclouds.domain.LoginCredentials;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.sshj.SshjSshClient.Connection;
+import org.jclouds.util.Closeables2;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
@@ -61,6 +63,7 @@ public class SSHClientConnection implements Connection<SSHClient> {
       protected int connectTimeout;
       protected int sessionTimeout;
       protected Optional<Connector> agentConnector;
+      protected SSHClientPool pool;
 
       /**
        * @see SSHClientConnection#getHostAndPort()
@@ -102,23 +105,34 @@ public class SSHClientConnection implements Connection<SSHClient> {
          return this;
       }
 
+      /**
+       * @see SSHClientConnection#getPool()
+       */
+      public Builder pool(@Nullable SSHClientPool pool) {
+         this.pool = pool;
+         return this;
+      }
+
       public SSHClientConnection build() {
-         return new SSHClientConnection(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, agentConnector);
+         return new SSHClientConnection(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, agentConnector,
+                  pool);
       }
 
       protected Builder fromSSHClientConnection(SSHClientConnection in) {
          return hostAndPort(in.getHostAndPort()).connectTimeout(in.getConnectTimeout()).loginCredentials(
-                  in.getLoginCredentials()).sessionTimeout(in.getSessionTimeout()).agentConnector(in.getAgentConnector());
+                  in.getLoginCredentials()).sessionTimeout(in.getSessionTimeout()).agentConnector(in.getAgentConnector())
+                  .pool(in.getPool());
       }
    }
 
    private SSHClientConnection(HostAndPort hostAndPort, LoginCredentials loginCredentials, int connectTimeout,
-            int sessionTimeout, Optional<Connector> agentConnector) {
+            int sessionTimeout, Optional<Connector> agentConnector, @Nullable SSHClientPool pool) {
       this.hostAndPort = checkNotNull(hostAndPort, "hostAndPort");
       this.loginCredentials = checkNotNull(loginCredentials, "loginCredentials for %", hostAndPort);
       this.connectTimeout = connectTimeout;
       this.sessionTimeout = sessionTimeout;
       this.agentConnector = checkNotNull(agentConnector, "agentConnector for %", hostAndPort);
+      this.pool = pool;
    }
    
    @Resource
@@ -129,12 +143,19 @@ public class SSHClientConnection implements Connection<SSHClient> {
    private final LoginCredentials loginCredentials;
    private final int connectTimeout;
    private final int sessionTimeout;
+   private final SSHClientPool pool;
 
    @VisibleForTesting
    transient SSHClient ssh;
 
    @Override
    public void clear() {
+      if (pool != null) {
+         if (ssh != null)
+            pool.release(this, ssh);
+         ssh = null;
+         return;
+      }
       if (ssh != null && ssh.isConnected()) {
          try {
             ssh.disconnect();
@@ -147,9 +168,31 @@ public class SSHClientConnection implements Connection<SSHClient> {
       }
    }
 
+   /**
+    * Like {@link #clear()}, but also disconnects a pooled transport, after failing to use it, so that
+    * no connection leases it again.
+    */
+   void invalidate() {
+      if (pool == null) {
+         clear();
+         return;
+      }
+      if (ssh != null)
+         pool.invalidate(this, ssh);
+      ssh = null;
+   }
+
    @Override
    public SSHClient create() throws Exception {
-      ssh = new net.schmizz.sshj.SSHClient();
+      ssh = pool != null ? pool.lease(this) : open();
+      return ssh;
+   }
+
+   /**
+    * Connects and authenticates a new ssh transport.
+    */
+   SSHClient open() throws Exception {
+      SSHClient ssh = new net.schmizz.sshj.SSHClient();
       ssh.addHostKeyVerifier(new PromiscuousVerifier());
       if (connectTimeout != 0) {
          ssh.setConnectTimeout(connectTimeout);
@@ -157,16 +200,21 @@ public class SSHClientConnection implements Connection<SSHClient> {
       if (sessionTimeout != 0) {
          ssh.setTimeout(sessionTimeout);
       }
-      ssh.connect(hostAndPort.getHost(), hostAndPort.getPortOrDefault(22));
-      if (loginCredentials.hasUnencryptedPrivateKey()) {
-         OpenSSHKeyFile key = new OpenSSHKeyFile();
-         key.init(loginCredentials.getOptionalPrivateKey().get(), null);
-         ssh.authPublickey(loginCredentials.getUser(), key);
-      } else if (loginCredentials.getOptionalPassword().isPresent()) {
-         ssh.authPassword(loginCredentials.getUser(), loginCredentials.getOptionalPassword().get());
-      } else if (agentConnector.isPresent()) {
-         AgentProxy proxy = new AgentProxy(agentConnector.get());
-         ssh.auth(loginCredentials.getUser(), getAuthMethods(proxy));
+      try {
+         ssh.connect(hostAndPort.getHost(), hostAndPort.getPortOrDefault(22));
+         if (loginCredentials.hasUnencryptedPrivateKey()) {
+            OpenSSHKeyFile key = new OpenSSHKeyFile();
+            key.init(loginCredentials.getOptionalPrivateKey().get(), null);
+            ssh.authPublickey(loginCredentials.getUser(), key);
+         } else if (loginCredentials.getOptionalPassword().isPresent()) {
+            ssh.authPassword(loginCredentials.getUser(), loginCredentials.getOptionalPassword().get());
+         } else if (agentConnector.isPresent()) {
+            AgentProxy proxy = new AgentProxy(agentConnector.get());
+            ssh.auth(loginCredentials.getUser(), getAuthMethods(proxy));
+         }
+      } catch (Exception e) {
+         Closeables2.closeQuietly(ssh);
+         throw e;
       }
       return ssh;
    }
@@ -210,6 +258,15 @@ public class SSHClientConnection implements Connection<SSHClient> {
       return agentConnector;
    }
 
+   /**
+    *
+    * @return the pool sharing the ssh transport, or {@code null} if it is not shared
+    */
+   @Nullable
+   public SSHClientPool getPool() {
+      return pool;
+   }
+
    /**
     * 
     * @return the current ssh or {@code null} if not connected
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sshj;
+
+import static com.google.common.base.Objects.equal;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import net.schmizz.sshj.SSHClient;
+
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.common.net.HostAndPort;
+import com.google.inject.Inject;
+
+/**
+ * Shares one authenticated ssh transport per host, login and timeouts between the
+ * {@link SSHClientConnection}s to it.
+ * <p/>
+ * Each connection opens its own sessions and sftp channels, which ssh multiplexes over the shared
+ * transport, so running a script on many nodes, then polling its status, handshakes once per node
+ * instead of once per command. Transports no connection has used for
+ * {@code jclouds.ssh.pool-idle-timeout} milliseconds are disconnected. As servers limit the sessions
+ * of a transport ({@code MaxSessions} of OpenSSH), a transport is shared by at most
+ * {@code jclouds.ssh.pool-max-sessions} connections, and the next ones open another one. A transport
+ * a connection failed with is disconnected, so that connections retrying do not lease it again.
+ * <p/>
+ * This class is thread safe. It is used by the {@link SshjSshClient}s of a context when
+ * {@code jclouds.ssh.pool-connections} is set.
+ */
+@Singleton
+public class SSHClientPool {
+
+   @Resource
+   @Named("jclouds.ssh")
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named("jclouds.ssh.pool-idle-timeout")
+   @VisibleForTesting
+   long idleTimeout = 30000;
+
+   @Inject(optional = true)
+   @Named("jclouds.ssh.pool-max-sessions")
+   @VisibleForTesting
+   int maxSessions = 10;
+
+   private final ConcurrentMap<Key, Transport> transports = Maps.newConcurrentMap();
+   // the transport each open ssh client belongs to
+   private final ConcurrentMap<SSHClient, Transport> owners = Maps.newConcurrentMap();
+   private final AtomicLong nextEviction = new AtomicLong(System.nanoTime());
+
+   /**
+    * Returns the connected transport for the host and login of the connection, opening it if needed.
+    * Connections to the same host wait for the one opening it, rather than handshake in parallel.
+    */
+   SSHClient lease(SSHClientConnection connection) throws Exception {
+      evictIdle();
+      Key key = new Key(connection);
+      while (true) {
+         Transport transport = transports.get(key);
+         if (transport == null) {
+            Transport created = new Transport(key);
+            transport = transports.putIfAbsent(key, created);
+            if (transport == null)
+               transport = created;
+         }
+         SSHClient ssh = transport.lease(connection);
+         if (ssh != null)
+            return ssh;
+         if (transport.closed)
+            // evicted meanwhile
+            transports.remove(key, transport);
+         else
+            // shared by as many connections as it has sessions
+            key = key.next();
+      }
+   }
+
+   /**
+    * Returns a transport leased by the connection, which must not use it anymore.
+    */
+   void release(SSHClientConnection connection, SSHClient ssh) {
+      Transport transport = owners.get(ssh);
+      if (transport != null)
+         transport.release(ssh);
+      evictIdle();
+   }
+
+   /**
+    * Disconnects a transport leased by the connection, which failed using it, and evicts it, so that
+    * the next lease opens a new one. The other connections leasing it fail too, and retry.
+    */
+   void invalidate(SSHClientConnection connection, SSHClient ssh) {
+      Transport transport = owners.get(ssh);
+      if (transport == null)
+         return;
+      transports.remove(transport.key, transport);
+      transport.close();
+   }
+
+   @VisibleForTesting
+   int size() {
+      return transports.size();
+   }
+
+   @PreDestroy
+   public void close() {
+      for (Map.Entry<Key, Transport> entry : transports.entrySet()) {
+         entry.getValue().close();
+         transports.remove(entry.getKey(), entry.getValue());
+      }
+   }
+
+   private void evictIdle() {
+      long now = System.nanoTime();
+      long next = nextEviction.get();
+      long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+      if (now - next < 0 || !nextEviction.compareAndSet(next, now + idleNanos / 2))
+         return;
+      for (Map.Entry<Key, Transport> entry : transports.entrySet()) {
+         if (entry.getValue().closeIfIdle(now, idleNanos))
+            transports.remove(entry.getKey(), entry.getValue());
+      }
+   }
+
+   private final class Transport {
+      private final Key key;
+      // held while opening, so connections to the same host wait for a single handshake
+      private final ReentrantLock lock = new ReentrantLock();
+      private SSHClient ssh;
+      private int leases;
+      private long idleSince = System.nanoTime();
+      private volatile boolean closed;
+
+      private Transport(Key key) {
+         this.key = key;
+      }
+
+      /**
+       * Returns {@code null} if the transport is closed, or already leased by
+       * {@code jclouds.ssh.pool-max-sessions} connections.
+       */
+      SSHClient lease(SSHClientConnection connection) throws Exception {
+         lock.lock();
+         try {
+            if (closed)
+               return null;
+            if (ssh == null || !ssh.isConnected()) {
+               disconnect();
+               logger.debug(">> opening pooled transport to %s", key);
+               ssh = connection.open();
+               owners.put(ssh, this);
+               // leases of the previous transport are released in vain
+               leases = 0;
+            } else if (leases >= maxSessions) {
+               return null;
+            }
+            leases++;
+            return ssh;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      void release(SSHClient released) {
+         lock.lock();
+         try {
+            if (released != ssh || leases == 0)
+               return;
+            if (--leases == 0)
+               idleSince = System.nanoTime();
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      /**
+       * Closes the transport if no connection uses it. Does not wait for a transport being opened,
+       * which is not idle.
+       */
+      boolean closeIfIdle(long now, long idleNanos) {
+         if (!lock.tryLock())
+            return false;
+         try {
+            if (leases > 0 || now - idleSince < idleNanos)
+               return false;
+            close();
+            return true;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      void close() {
+         lock.lock();
+         try {
+            closed = true;
+            disconnect();
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void disconnect() {
+         if (ssh == null)
+            return;
+         logger.debug("<< closing pooled transport to %s", key);
+         try {
+            if (ssh.isConnected())
+               ssh.disconnect();
+         } catch (IOException e) {
+            logger.debug("<< exception disconnecting from %s: %s", key, e.getMessage());
+         }
+         owners.remove(ssh, this);
+         ssh = null;
+      }
+   }
+
+   private static final class Key {
+      private final HostAndPort hostAndPort;
+      private final LoginCredentials loginCredentials;
+      private final int connectTimeout;
+      private final int sessionTimeout;
+      // transports to the same host and login, opened once the previous ones have no sessions left
+      private final int index;
+
+      private Key(SSHClientConnection connection) {
+         this(connection.getHostAndPort(), connection.getLoginCredentials(), connection.getConnectTimeout(),
+               connection.getSessionTimeout(), 0);
+      }
+
+      private Key(HostAndPort hostAndPort, LoginCredentials loginCredentials, int connectTimeout, int sessionTimeout,
+            int index) {
+         this.hostAndPort = hostAndPort;
+         this.loginCredentials = loginCredentials;
+         this.connectTimeout = connectTimeout;
+         this.sessionTimeout = sessionTimeout;
+         this.index = index;
+      }
+
+      private Key next() {
+         return new Key(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, index + 1);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof Key))
+            return false;
+         Key that = (Key) o;
+         return equal(this.hostAndPort, that.hostAndPort) && equal(this.loginCredentials, that.loginCredentials)
+               && this.connectTimeout == that.connectTimeout && this.sessionTimeout == that.sessionTimeout
+               && this.index == that.index;
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, index);
+      }
+
+      @Override
+      public String toString() {
+         return loginCredentials.getUser() + "@" + hostAndPort + (index > 0 ? "#" + index : "");
+      }
+   }
+}
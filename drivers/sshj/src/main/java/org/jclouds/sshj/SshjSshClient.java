@@ -41,7 +41,6 @@ import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.inject.Named;
 
-import net.schmizz.sshj.SSHClient;
 import net.schmizz.sshj.common.IOUtils;
 import net.schmizz.sshj.connection.ConnectionException;
 import net.schmizz.sshj.connection.channel.direct.PTYMode;
@@ -60,6 +59,7 @@ import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.io.Payload;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.io.Payloads;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.AuthorizationException;
@@ -82,6 +82,9 @@ import com.jcraft.jsch.agentproxy.Connector;
 
 /**
  * This class needs refactoring. It is not thread safe.
+ * <p/>
+ * Given a {@link SSHClientPool}, clients to the same node share its transport, and each opens its
+ * own channels over it.
  */
 @SuppressWarnings("unchecked")
 public class SshjSshClient implements SshClient {
@@ -143,6 +146,12 @@ public class SshjSshClient implements SshClient {
 
    public SshjSshClient(BackoffLimitedRetryHandler backoffLimitedRetryHandler, HostAndPort socket,
             LoginCredentials loginCredentials, int timeout, Optional<Connector> agentConnector) {
+      this(backoffLimitedRetryHandler, socket, loginCredentials, timeout, agentConnector, null);
+   }
+
+   public SshjSshClient(BackoffLimitedRetryHandler backoffLimitedRetryHandler, HostAndPort socket,
+            LoginCredentials loginCredentials, int timeout, Optional<Connector> agentConnector,
+            @Nullable SSHClientPool pool) {
       this.user = checkNotNull(loginCredentials, "loginCredentials").getUser();
       this.host = checkNotNull(socket, "socket").getHost();
       checkArgument(socket.getPort() > 0, "ssh port must be greater then zero" + socket.getPort());
@@ -163,7 +172,8 @@ public class SshjSshClient implements SshClient {
                   host, socket.getPort());
       }
       sshClientConnection = SSHClientConnection.builder().hostAndPort(HostAndPort.fromParts(host, socket.getPort()))
-               .loginCredentials(loginCredentials).connectTimeout(timeout).sessionTimeout(timeout).agentConnector(agentConnector).build();
+               .loginCredentials(loginCredentials).connectTimeout(timeout).sessionTimeout(timeout).agentConnector(agentConnector).pool(pool)
+               .build();
    }
 
    @Override
@@ -197,7 +207,9 @@ public class SshjSshClient implements SshClient {
             return returnVal;
          } catch (Exception from) {
             try {
-               disconnect();
+               if (connection instanceof SSHClientConnection && connection != sshClientConnection)
+                  SSHClientConnection.class.cast(connection).invalidate();
+               sshClientConnection.invalidate();
             } catch (Exception e1) {
                logger.warn(from, "<< (%s) error closing connection", toString());
             }
@@ -490,21 +502,21 @@ public class SshjSshClient implements SshClient {
       return new Connection<Session>() {
 
          private Session session = null;
-         private SSHClient sshClientConnection;
+         private SSHClientConnection sshClientConnection;
 
          @Override
          public void clear() throws TransportException, ConnectionException {
             if (session != null)
                session.close();
             if (sshClientConnection != null)
-               Closeables2.closeQuietly(sshClientConnection);
+               sshClientConnection.clear();
          }
 
          @Override
          public Session create() throws Exception {
-            this.sshClientConnection = acquire(SSHClientConnection.builder().fromSSHClientConnection(
-                     SshjSshClient.this.sshClientConnection).sessionTimeout(0).build());
-            session = sshClientConnection.startSession();
+            this.sshClientConnection = SSHClientConnection.builder().fromSSHClientConnection(
+                     SshjSshClient.this.sshClientConnection).sessionTimeout(0).build();
+            session = acquire(sshClientConnection).startSession();
             return session;
          }
 
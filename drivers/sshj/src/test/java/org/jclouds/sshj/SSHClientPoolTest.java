@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sshj;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import net.schmizz.sshj.SSHClient;
+
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.Test;
+
+import com.google.common.net.HostAndPort;
+
+@Test(groups = "unit", testName = "SSHClientPoolTest")
+public class SSHClientPoolTest {
+
+   public void testConnectionsToTheSameNodeShareATransport() throws Exception {
+      SSHClient ssh = transport(true);
+      replay(ssh);
+      SSHClientConnection first = connection("node1", ssh);
+      SSHClientConnection second = connection("node1");
+      SSHClientPool pool = new SSHClientPool();
+
+      assertSame(pool.lease(first), ssh);
+      assertSame(pool.lease(second), ssh);
+      pool.release(first, ssh);
+      pool.release(second, ssh);
+      assertSame(pool.lease(second), ssh);
+      assertEquals(pool.size(), 1);
+      verify(ssh, first, second);
+   }
+
+   public void testIdleTransportsAreDisconnected() throws Exception {
+      SSHClient ssh = transport(true);
+      ssh.disconnect();
+      expectLastCall();
+      replay(ssh);
+      SSHClientConnection connection = connection("node1", ssh);
+      SSHClientPool pool = new SSHClientPool();
+      pool.idleTimeout = 0;
+
+      pool.lease(connection);
+      pool.release(connection, ssh);
+      assertEquals(pool.size(), 0);
+      verify(ssh, connection);
+   }
+
+   public void testDisconnectedTransportsAreReopened() throws Exception {
+      SSHClient lost = transport(false);
+      SSHClient reopened = transport(true);
+      replay(lost, reopened);
+      SSHClientConnection connection = connection("node1", lost, reopened);
+      SSHClientPool pool = new SSHClientPool();
+
+      assertSame(pool.lease(connection), lost);
+      assertSame(pool.lease(connection), reopened);
+      // leases of the lost transport do not count
+      pool.release(connection, lost);
+      pool.release(connection, lost);
+      assertSame(pool.lease(connection), reopened);
+      verify(lost, reopened, connection);
+   }
+
+   public void testFailedTransportsAreDisconnectedAndEvicted() throws Exception {
+      SSHClient failed = transport(true);
+      failed.disconnect();
+      expectLastCall();
+      SSHClient reopened = transport(true);
+      replay(failed, reopened);
+      SSHClientConnection first = connection("node1", failed, reopened);
+      SSHClientConnection second = connection("node1");
+      SSHClientPool pool = new SSHClientPool();
+
+      assertSame(pool.lease(first), failed);
+      assertSame(pool.lease(second), failed);
+      pool.invalidate(first, failed);
+      assertEquals(pool.size(), 0);
+      // the other connection leasing it fails too
+      pool.invalidate(second, failed);
+      pool.release(second, failed);
+      assertSame(pool.lease(first), reopened);
+      assertEquals(pool.size(), 1);
+      verify(failed, reopened, first, second);
+   }
+
+   public void testTransportsAreSharedByAtMostMaxSessionsConnections() throws Exception {
+      SSHClient ssh1 = transport(true);
+      SSHClient ssh2 = transport(true);
+      replay(ssh1, ssh2);
+      SSHClientConnection first = connection("node1", ssh1);
+      SSHClientConnection second = connection("node1");
+      SSHClientConnection third = connection("node1", ssh2);
+      SSHClientPool pool = new SSHClientPool();
+      pool.maxSessions = 2;
+
+      assertSame(pool.lease(first), ssh1);
+      assertSame(pool.lease(second), ssh1);
+      assertSame(pool.lease(third), ssh2);
+      assertEquals(pool.size(), 2);
+      pool.release(first, ssh1);
+      assertSame(pool.lease(first), ssh1);
+      verify(ssh1, ssh2, first, second, third);
+   }
+
+   public void testCloseDisconnectsEveryTransport() throws Exception {
+      SSHClient ssh1 = transport(true);
+      ssh1.disconnect();
+      expectLastCall();
+      SSHClient ssh2 = transport(true);
+      ssh2.disconnect();
+      expectLastCall();
+      replay(ssh1, ssh2);
+      SSHClientConnection node1 = connection("node1", ssh1);
+      SSHClientConnection node2 = connection("node2", ssh2);
+      SSHClientPool pool = new SSHClientPool();
+
+      assertSame(pool.lease(node1), ssh1);
+      assertSame(pool.lease(node2), ssh2);
+      pool.close();
+      assertEquals(pool.size(), 0);
+      verify(ssh1, ssh2, node1, node2);
+   }
+
+   private static SSHClient transport(boolean connected) {
+      SSHClient ssh = createMock(SSHClient.class);
+      expect(ssh.isConnected()).andReturn(connected).anyTimes();
+      return ssh;
+   }
+
+   private static SSHClientConnection connection(String host, SSHClient... opened) throws Exception {
+      SSHClientConnection connection = createMock(SSHClientConnection.class);
+      expect(connection.getHostAndPort()).andReturn(HostAndPort.fromParts(host, 22)).anyTimes();
+      expect(connection.getLoginCredentials()).andReturn(
+            LoginCredentials.builder().user("root").password("password").build()).anyTimes();
+      expect(connection.getConnectTimeout()).andReturn(60000).anyTimes();
+      expect(connection.getSessionTimeout()).andReturn(60000).anyTimes();
+      for (SSHClient ssh : opened)
+         expect(connection.open()).andReturn(ssh);
+      replay(connection);
+      return connection;
+   }
+}
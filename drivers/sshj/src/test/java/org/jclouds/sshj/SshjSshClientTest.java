@@ -129,6 +129,14 @@ public class SshjSshClientTest {
       assert ssh1.shouldRetry(new UserAuthException("problem", null));
    }
 
+   public void testPoolsConnectionsOnlyWhenSet() {
+      assertEquals(createClient().sshClientConnection.getPool(), null);
+      Properties props = new Properties();
+      props.setProperty("jclouds.ssh.pool-connections", "true");
+      SshjSshClient ssh1 = createClient(props);
+      assert ssh1.sshClientConnection.getPool() != null;
+   }
+
    public void testExceptionMessagesRetry() {
       assert !ssh.shouldRetry(new SSHException(""));
       assert !ssh.shouldRetry(new NullPointerException((String) null));
@@ -194,8 +202,8 @@ public class SshjSshClientTest {
 
       mockConnection.clear(); expectLastCall();
       mockConnection.create(); expectLastCall().andThrow(new ConnectionException("test1"));
-      mockConnection.clear(); expectLastCall();
-      //currently does two clears, one on failure (above) and one on next iteration (below)
+      //invalidates the failed connection, then clears it on the next iteration
+      mockConnection.invalidate(); expectLastCall();
       mockConnection.clear(); expectLastCall();
       mockConnection.create(); expectLastCall().andReturn(mockClient);
       replay(mockConnection);